@@ -0,0 +1,83 @@
+package powerlessri.harmonics.gui;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.opengl.GL11.GL_QUADS;
+
+/**
+ * Compares writing colored rectangles into a {@link BufferBuilder} through the {@code pos().color().endVertex()} chain, as {@link
+ * Render2D#coloredRect(int, int, int, int, float, int)} used to, with {@link PackedVertexWriter#coloredRect(BufferBuilder, float, float,
+ * float, float, float, int)}. Only the CPU side of filling the buffer is measured, nothing is uploaded, so no GL context is needed.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColoredRectBenchmark {
+
+    /**
+     * Rectangles written between {@link BufferBuilder#begin(int, net.minecraft.client.renderer.vertex.VertexFormat)} and {@link
+     * BufferBuilder#finishDrawing()}, roughly a small and a busy screen.
+     */
+    @Param({"16", "256"})
+    public int rects;
+
+    private BufferBuilder buffer;
+    private int[] colors;
+
+    @Setup
+    public void setup() {
+        buffer = new BufferBuilder(0x40000);
+        colors = new int[rects];
+        for (int i = 0; i < rects; i++) {
+            colors[i] = 0xff000000 | (i * 0x10305);
+        }
+    }
+
+    @Benchmark
+    public int chained() {
+        buffer.begin(GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+        for (int i = 0; i < rects; i++) {
+            int x1 = i;
+            int y1 = i * 2;
+            int x2 = x1 + 16;
+            int y2 = y1 + 16;
+            int color = colors[i];
+            int alpha = (color >> 24) & 255;
+            int red = (color >> 16) & 255;
+            int green = (color >> 8) & 255;
+            int blue = color & 255;
+            buffer.pos(x1, y1, 0F).color(red, green, blue, alpha).endVertex();
+            buffer.pos(x1, y2, 0F).color(red, green, blue, alpha).endVertex();
+            buffer.pos(x2, y2, 0F).color(red, green, blue, alpha).endVertex();
+            buffer.pos(x2, y1, 0F).color(red, green, blue, alpha).endVertex();
+        }
+        return finish();
+    }
+
+    @Benchmark
+    public int packed() {
+        buffer.begin(GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+        for (int i = 0; i < rects; i++) {
+            int x1 = i;
+            int y1 = i * 2;
+            PackedVertexWriter.coloredRect(buffer, x1, y1, x1 + 16, y1 + 16, 0F, PackedVertexWriter.packColor(colors[i]));
+        }
+        return finish();
+    }
+
+    private int finish() {
+        int vertices = buffer.getVertexCount();
+        buffer.finishDrawing();
+        buffer.reset();
+        return vertices;
+    }
+}
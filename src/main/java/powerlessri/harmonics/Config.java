@@ -42,6 +42,9 @@ public final class Config {
         public final ForgeConfigSpec.IntValue scrollSpeed;
         public final ForgeConfigSpec.IntValue dialogMessageMaxWidth;
         public final ForgeConfigSpec.IntValue minBorderDistance;
+        public final ForgeConfigSpec.BooleanValue partialRedraw;
+        public final ForgeConfigSpec.BooleanValue guiMetricsOverlay;
+        public final ForgeConfigSpec.BooleanValue batchedText;
 
         private ClientCategory(ForgeConfigSpec.Builder builder) {
             builder.comment("General client config options").push("client");
@@ -63,6 +66,20 @@ public final class Config {
                             "If the context menu is created too close to the screen border, it will shift towards the center")
                     .translation("config.harmonics.client.ctxMenuMinBorderDistance")
                     .defineInRange("minBorderDistance", 4, 0, Integer.MAX_VALUE);
+            partialRedraw = builder
+                    .comment("Keep the rendered windows of a GUI offscreen and only redraw the parts that have changed",
+                            "Experimental: parts of a GUI that do not report their changes might not update properly")
+                    .translation("config.harmonics.client.partialRedraw")
+                    .define("PartialRedraw", false);
+            guiMetricsOverlay = builder
+                    .comment("Show per-frame rendering statistics in the top right corner of GUIs")
+                    .translation("config.harmonics.client.guiMetricsOverlay")
+                    .define("GuiMetricsOverlay", false);
+            batchedText = builder
+                    .comment("Draw GUI text as glyph quads batched together with other GUI elements",
+                            "Disable this if GUI text looks different from vanilla text, e.g. with a custom font resource pack")
+                    .translation("config.harmonics.client.batchedText")
+                    .define("BatchedText", true);
 
             builder.pop();
         }
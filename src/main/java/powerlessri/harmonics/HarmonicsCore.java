@@ -11,6 +11,8 @@ import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import org.apache.commons.lang3.Validate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import powerlessri.harmonics.gui.GuiTextureAtlas;
+import powerlessri.harmonics.gui.TextMeasurements;
 import powerlessri.harmonics.network.NetworkHandler;
 
 @Mod(HarmonicsCore.MODID)
@@ -43,6 +45,8 @@ public class HarmonicsCore {
     }
 
     private void clientSetup(final FMLClientSetupEvent event) {
+        GuiTextureAtlas.registerReloadListener();
+        TextMeasurements.registerReloadListener();
     }
 
     private void loadComplete(final FMLLoadCompleteEvent event) {
@@ -1,8 +1,6 @@
 package powerlessri.harmonics.gui;
 
 import com.google.common.base.MoreObjects;
-import net.minecraft.client.renderer.BufferBuilder;
-import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.util.ResourceLocation;
 
 import java.util.Objects;
@@ -66,11 +64,7 @@ class CompleteTexture implements ITexture {
 
     @Override
     public void vertices(int x1, int y1, int x2, int y2, float z) {
-        BufferBuilder buffer = Tessellator.getInstance().getBuffer();
-        buffer.pos(x1, y1, z).tex(0D, 0D).endVertex();
-        buffer.pos(x1, y2, z).tex(0D, 1D).endVertex();
-        buffer.pos(x2, y2, z).tex(1D, 1D).endVertex();
-        buffer.pos(x2, y1, z).tex(1D, 0D).endVertex();
+        textureVertices(x1, y1, x2, y2, z, 0F, 0F, 1F, 1F);
     }
 
     @Override
@@ -0,0 +1,111 @@
+package powerlessri.harmonics.gui;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.util.ResourceLocation;
+import powerlessri.harmonics.Config;
+
+import java.util.List;
+
+/**
+ * Text renderer that writes one textured quad per glyph into the frame-wide {@link QuadBatch}, instead of drawing every string through
+ * the vanilla font renderer. The quads carry their own color, so text of any color is drawn together with everything else that uses the
+ * {@link GuiTextureAtlas} page the font texture is packed into.
+ * <p>
+ * Only the printable ASCII characters of the default font's {@code ascii.png} are supported. Strings containing anything else (including
+ * formatting codes), text with a {@link TextStyle} that has formatting, or everything when the unicode font is forced or {@code
+ * BatchedText} is disabled in the config, are drawn by {@link VanillaTextRenderer} instead.
+ */
+public class GlyphTextRenderer extends VanillaTextRenderer {
+
+    public static final ResourceLocation ASCII_FONT = new ResourceLocation("minecraft", "textures/font/ascii.png");
+
+    // ascii.png is a grid of 16x16 cells, printable ASCII characters are at their code point
+    private static final int GRID_SIZE = 16;
+    private static final char FIRST_CHAR = ' ';
+    private static final char LAST_CHAR = '~';
+
+    static {
+        GuiTextureAtlas.register(ASCII_FONT);
+    }
+
+    GlyphTextRenderer() {
+    }
+
+    @Override
+    public void renderText(TextStyle style, String text, int x, int y, float z) {
+        GuiTextureAtlas.Sprite sprite = getFontSprite(style);
+        if (sprite == null || !isSupported(text)) {
+            super.renderText(style, text, x, y, z);
+            return;
+        }
+        BufferBuilder buffer = beginGlyphs();
+        writeGlyphs(buffer, sprite, text, x, y, z + 0.1F, style.getScale(), PackedVertexWriter.packColor(getVertexColor(style)));
+        Render2D.draw();
+    }
+
+    @Override
+    public void renderLines(TextStyle style, List<String> text, int x, int y, float z) {
+        GuiTextureAtlas.Sprite sprite = getFontSprite(style);
+        if (sprite == null || !text.stream().allMatch(GlyphTextRenderer::isSupported)) {
+            super.renderLines(style, text, x, y, z);
+            return;
+        }
+        BufferBuilder buffer = beginGlyphs();
+        int packedColor = PackedVertexWriter.packColor(getVertexColor(style));
+        float lineHeight = style.getFontHeight();
+        float lineY = y;
+        for (String line : text) {
+            writeGlyphs(buffer, sprite, line, x, lineY, z + 0.1F, style.getScale(), packedColor);
+            lineY += lineHeight;
+        }
+        Render2D.draw();
+    }
+
+    private BufferBuilder beginGlyphs() {
+        Render2D.bindTexture(ASCII_FONT);
+        // The font texture only has fully transparent or fully opaque pixels
+        QuadBatch.changeStates(RenderStateTracker.TEXTURE | RenderStateTracker.ALPHA_TEST, RenderStateTracker.BLEND);
+        Render2D.beginQuads(DefaultVertexFormats.POSITION_TEX_COLOR);
+        return Render2D.buffer();
+    }
+
+    private void writeGlyphs(BufferBuilder buffer, GuiTextureAtlas.Sprite sprite, String text, float x, float y, float z, float scale,
+                             int packedColor) {
+        float size = 8F * scale;
+        float penX = x;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != ' ') {
+                float u = (float) (c % GRID_SIZE) / GRID_SIZE;
+                float v = (float) (c / GRID_SIZE) / GRID_SIZE;
+                PackedVertexWriter.texturedColoredRect(buffer, penX, y, penX + size, y + size, z,
+                        sprite.u(u), sprite.v(v), sprite.u(u + 1F / GRID_SIZE), sprite.v(v + 1F / GRID_SIZE), packedColor);
+            }
+            penX += TextMeasurements.getCharWidth(c) * scale;
+        }
+    }
+
+    private static int getVertexColor(TextStyle style) {
+        int color = style.getColor();
+        // Same as the vanilla font renderer: colors without alpha are opaque
+        return (color & 0xfc000000) == 0 ? color | 0xff000000 : color;
+    }
+
+    private static GuiTextureAtlas.Sprite getFontSprite(TextStyle style) {
+        if (style.hasFormatting() || !Config.CLIENT.batchedText.get() || Render2D.backend().isUnicodeFont()) {
+            return null;
+        }
+        return GuiTextureAtlas.getSprite(ASCII_FONT);
+    }
+
+    private static boolean isSupported(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < FIRST_CHAR || c > LAST_CHAR) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,235 @@
+package powerlessri.harmonics.gui;
+
+import com.google.common.base.MoreObjects;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.client.renderer.texture.TextureManager;
+import net.minecraft.resources.IReloadableResourceManager;
+import net.minecraft.resources.IResource;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.resource.ISelectiveResourceReloadListener;
+import net.minecraftforge.resource.VanillaResourceType;
+import powerlessri.harmonics.HarmonicsCore;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Packs registered GUI textures into one or a few atlas pages, so that quads using different source textures can be drawn in the same
+ * draw call.
+ * <p>
+ * {@link Render2D#bindTexture(ResourceLocation)} binds the atlas page instead of a registered texture and remembers its {@link Sprite};
+ * texture coordinates submitted through {@link Render2D#textureVertices(int, int, int, int, float, float, float, float, float)} (which
+ * {@link ITexture} uses) are then remapped into the sprite. Textures bound through the texture manager directly will not be remapped, and
+ * vice versa.
+ */
+public final class GuiTextureAtlas {
+
+    private GuiTextureAtlas() {
+    }
+
+    public static final int PAGE_SIZE = 512;
+    private static final int PADDING = 1;
+
+    public static final class Sprite {
+
+        private final ResourceLocation atlas;
+        private final float minU;
+        private final float minV;
+        private final float maxU;
+        private final float maxV;
+
+        private Sprite(ResourceLocation atlas, int x, int y, int width, int height) {
+            this.atlas = atlas;
+            this.minU = (float) x / PAGE_SIZE;
+            this.minV = (float) y / PAGE_SIZE;
+            this.maxU = (float) (x + width) / PAGE_SIZE;
+            this.maxV = (float) (y + height) / PAGE_SIZE;
+        }
+
+        public ResourceLocation getAtlas() {
+            return atlas;
+        }
+
+        /**
+         * Map a texture coordinate of the original texture to the atlas page.
+         */
+        public float u(float u) {
+            return minU + (maxU - minU) * u;
+        }
+
+        /**
+         * Map a texture coordinate of the original texture to the atlas page.
+         */
+        public float v(float v) {
+            return minV + (maxV - minV) * v;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("atlas", atlas)
+                    .add("minU", minU)
+                    .add("minV", minV)
+                    .add("maxU", maxU)
+                    .add("maxV", maxV)
+                    .toString();
+        }
+    }
+
+    private static final Set<ResourceLocation> registered = new LinkedHashSet<>();
+    private static final List<ResourceLocation> pages = new ArrayList<>();
+    private static Map<ResourceLocation, Sprite> sprites = Collections.emptyMap();
+    private static boolean dirty = true;
+
+    static {
+        register(Render2D.COMPONENTS);
+        register(Render2D.DELETE);
+        register(Render2D.CUT);
+        register(Render2D.COPY);
+        register(Render2D.PASTE);
+        register(Render2D.BACK);
+        register(Render2D.CLOSE);
+        register(Render2D.ITEM_SLOT);
+        register(Render2D.RIGHT_ARROW_SHORT);
+    }
+
+    /**
+     * Add a texture to the atlas. It will be packed the next time the atlas gets rebuilt, see {@link #rebuildIfNeeded()}.
+     */
+    public static void register(ResourceLocation texture) {
+        if (registered.add(texture)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * @return The sprite of the given texture, or {@code null} if it is not packed in the atlas.
+     */
+    @Nullable
+    public static Sprite getSprite(ResourceLocation texture) {
+        return sprites.get(texture);
+    }
+
+    public static void registerReloadListener() {
+        IReloadableResourceManager resourceManager = (IReloadableResourceManager) Minecraft.getInstance().getResourceManager();
+        resourceManager.addReloadListener((ISelectiveResourceReloadListener) (manager, predicate) -> {
+            if (predicate.test(VanillaResourceType.TEXTURES)) {
+                dirty = true;
+            }
+        });
+    }
+
+    /**
+     * Rebuild the atlas if any texture was registered or resources have been reloaded since the last build. Must be called on the render
+     * thread while no quads are pending, since it replaces the atlas pages.
+     *
+     * @return {@code true} if the atlas has been rebuilt.
+     */
+    public static boolean rebuildIfNeeded() {
+        if (dirty) {
+            rebuild();
+            return true;
+        }
+        return false;
+    }
+
+    private static void rebuild() {
+        dirty = false;
+        Minecraft minecraft = Minecraft.getInstance();
+        TextureManager textureManager = minecraft.getTextureManager();
+
+        List<ResourceLocation> textures = new ArrayList<>();
+        List<NativeImage> images = new ArrayList<>();
+        try {
+            for (ResourceLocation texture : registered) {
+                NativeImage image = load(minecraft.getResourceManager(), texture);
+                if (image == null) {
+                    continue;
+                }
+                if (image.getWidth() > PAGE_SIZE || image.getHeight() > PAGE_SIZE) {
+                    HarmonicsCore.logger.warn("Texture {} is too large to be packed into the GUI atlas", texture);
+                    image.close();
+                    continue;
+                }
+                textures.add(texture);
+                images.add(image);
+            }
+
+            // Shelf packing works best when shelves are filled with sprites of similar heights
+            Integer[] order = new Integer[images.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> images.get(b).getHeight() - images.get(a).getHeight());
+
+            Map<ResourceLocation, Sprite> newSprites = new HashMap<>();
+            List<NativeImage> newPages = new ArrayList<>();
+            NativeImage page = null;
+            int shelfX = 0;
+            int shelfY = 0;
+            int shelfHeight = 0;
+            for (int i : order) {
+                NativeImage image = images.get(i);
+                int width = image.getWidth();
+                int height = image.getHeight();
+                if (page != null && shelfX + width > PAGE_SIZE) {
+                    shelfX = 0;
+                    shelfY += shelfHeight + PADDING;
+                    shelfHeight = 0;
+                }
+                if (page == null || shelfY + height > PAGE_SIZE) {
+                    page = new NativeImage(PAGE_SIZE, PAGE_SIZE, true);
+                    newPages.add(page);
+                    shelfX = 0;
+                    shelfY = 0;
+                    shelfHeight = 0;
+                }
+
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        page.setPixelRGBA(shelfX + x, shelfY + y, image.getPixelRGBA(x, y));
+                    }
+                }
+                newSprites.put(textures.get(i), new Sprite(getPageLocation(newPages.size() - 1), shelfX, shelfY, width, height));
+
+                shelfX += width + PADDING;
+                shelfHeight = Math.max(shelfHeight, height);
+            }
+
+            for (ResourceLocation location : pages) {
+                textureManager.deleteTexture(location);
+            }
+            pages.clear();
+            for (int i = 0; i < newPages.size(); i++) {
+                ResourceLocation location = getPageLocation(i);
+                // The dynamic texture takes ownership of the image
+                textureManager.loadTexture(location, new DynamicTexture(newPages.get(i)));
+                pages.add(location);
+            }
+            sprites = newSprites;
+            HarmonicsCore.logger.info("Packed {} GUI textures into {} atlas page(s)", newSprites.size(), pages.size());
+        } finally {
+            for (NativeImage image : images) {
+                image.close();
+            }
+        }
+    }
+
+    @Nullable
+    private static NativeImage load(IResourceManager resourceManager, ResourceLocation texture) {
+        try (IResource resource = resourceManager.getResource(texture)) {
+            return NativeImage.read(NativeImage.PixelFormat.RGBA, resource.getInputStream());
+        } catch (IOException e) {
+            HarmonicsCore.logger.error("Failed to load texture {} for the GUI atlas", texture, e);
+            return null;
+        }
+    }
+
+    private static ResourceLocation getPageLocation(int index) {
+        return new ResourceLocation(HarmonicsCore.MODID, "gui_atlas_" + index);
+    }
+}
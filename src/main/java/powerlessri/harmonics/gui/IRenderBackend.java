@@ -0,0 +1,97 @@
+package powerlessri.harmonics.gui;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.util.ResourceLocation;
+
+import javax.annotation.Nullable;
+
+/**
+ * Lowest level of GUI rendering. {@link Render2D}, {@link QuadBatch}, {@link ScissorTest} and {@link VanillaTextRenderer} submit
+ * everything through the backend returned by {@link Render2D#backend()}, so that it can be replaced by e.g. a
+ * {@link RecordingRenderBackend} to measure render cost without a GPU.
+ */
+public interface IRenderBackend {
+
+    /**
+     * Called by {@link QuadBatch#beginFrame()}.
+     */
+    default void beginFrame() {
+    }
+
+    /**
+     * Called by {@link QuadBatch#endFrame()}.
+     */
+    default void endFrame() {
+    }
+
+    void setTextureEnabled(boolean enabled);
+
+    /**
+     * Enabling blending also sets the standard alpha blending function.
+     */
+    void setBlendEnabled(boolean enabled);
+
+    void setAlphaTestEnabled(boolean enabled);
+
+    void setSmoothShading(boolean smooth);
+
+    /**
+     * @param color Color in ARGB format.
+     */
+    void setColor(int color);
+
+    void bindTexture(ResourceLocation texture);
+
+    /**
+     * Draw a buffer that {@link BufferBuilder#finishDrawing()} has been called on. Implementations must reset the buffer afterwards.
+     */
+    void draw(BufferBuilder buffer);
+
+    void beginLines(float width);
+
+    void lineVertex(float x, float y, float z);
+
+    void endLines();
+
+    /**
+     * Enable scissor test with the given box in GUI coordinates, relative to the current render target if there is one.
+     */
+    void enableScissor(int x, int y, int width, int height);
+
+    void disableScissor();
+
+    /**
+     * Create an offscreen render target of the given size in GUI pixels.
+     *
+     * @return {@code null} if this backend does not support offscreen rendering.
+     */
+    @Nullable
+    IRenderTarget createRenderTarget(int width, int height);
+
+    void pushMatrix();
+
+    void popMatrix();
+
+    void translate(float x, float y, float z);
+
+    void scale(float x, float y, float z);
+
+    void drawString(String text, float x, float y, int color);
+
+    int getStringWidth(String text);
+
+    /**
+     * Width of a single glyph, without any formatting applied. Used by {@link TextMeasurements} to measure strings without formatting codes.
+     */
+    float getCharWidth(char c);
+
+    String trimStringToWidth(String text, int width);
+
+    /**
+     * @return {@code true} if all glyphs are drawn from the unicode font, which changes their widths. Read once per frame by
+     * {@link TextMeasurements#checkFontOptions()}.
+     */
+    boolean isUnicodeFont();
+
+    int getFontHeight();
+}
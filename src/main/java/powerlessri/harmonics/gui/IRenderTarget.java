@@ -0,0 +1,47 @@
+package powerlessri.harmonics.gui;
+
+/**
+ * An offscreen surface created by {@link IRenderBackend#createRenderTarget(int, int)}. Sizes are in GUI (scaled) pixels.
+ * <p>
+ * Use {@link Render2D#beginRenderTarget(IRenderTarget, int, int)}, {@link Render2D#endRenderTarget(IRenderTarget)} and {@link
+ * Render2D#blitRenderTarget(IRenderTarget, int, int, float)} instead of calling the methods here directly, so that pending batched quads
+ * and scissor boxes are handled properly.
+ */
+public interface IRenderTarget {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * Resize this target. The contents are undefined afterwards.
+     */
+    void resize(int width, int height);
+
+    /**
+     * Redirect all rendering into this target, such that the GUI coordinate {@code (originX, originY)} maps to the top left corner of the
+     * target. The previous contents are kept.
+     */
+    void begin(int originX, int originY);
+
+    /**
+     * Clear the color and depth of this target to fully transparent, only inside the current scissor box if there is one. Must be called
+     * between {@link #begin(int, int)} and {@link #end()}.
+     */
+    void clear();
+
+    /**
+     * Redirect rendering back to wherever it went before {@link #begin(int, int)}.
+     */
+    void end();
+
+    /**
+     * Draw the contents of this target as a single quad, with its top left corner at the given GUI coordinate.
+     */
+    void blit(int x, int y, float z);
+
+    /**
+     * Release all resources of this target. It must not be used afterwards.
+     */
+    void delete();
+}
@@ -2,6 +2,15 @@ package powerlessri.harmonics.gui;
 
 import java.util.List;
 
+/**
+ * Methods that take a {@link TextStyle} do not depend on or change the state of the renderer, so a single renderer can be shared by any
+ * number of widgets that each keep their own style. The other methods use and change the style stored in the renderer, see {@link
+ * #getTextStyle()}.
+ * <p>
+ * Implementations written before text styles existed only need the methods without a style. The style-taking methods then fall back to
+ * temporarily applying the style through {@link #setTextStyle(TextStyle)}, which is based on the old setters. Such implementations do not
+ * report bold, italic or strike-through through {@link #getTextStyle()}, so they should override it if they support formatting.
+ */
 public interface ITextRenderer {
 
     void renderText(String text, int x, int y, float z);
@@ -25,4 +34,56 @@ public interface ITextRenderer {
     void useBold(boolean bold);
 
     void useStrikeThrough(boolean strikeThrough);
+
+    default TextStyle getTextStyle() {
+        return TextStyle.of(getTextColor(), getFontHeight() / Render2D.backend().getFontHeight());
+    }
+
+    default void setTextStyle(TextStyle style) {
+        setTextColor(style.getColor());
+        setFontHeight(style.getFontHeight());
+        useItalics(style.isItalic());
+        useBold(style.isBold());
+        useStrikeThrough(style.isStrikeThrough());
+    }
+
+    default void renderText(TextStyle style, String text, int x, int y, float z) {
+        TextStyle previous = getTextStyle();
+        setTextStyle(style);
+        try {
+            renderText(text, x, y, z);
+        } finally {
+            setTextStyle(previous);
+        }
+    }
+
+    default void renderLines(TextStyle style, List<String> text, int x, int y, float z) {
+        TextStyle previous = getTextStyle();
+        setTextStyle(style);
+        try {
+            renderLines(text, x, y, z);
+        } finally {
+            setTextStyle(previous);
+        }
+    }
+
+    default int calculateWidth(TextStyle style, String text) {
+        TextStyle previous = getTextStyle();
+        setTextStyle(style);
+        try {
+            return calculateWidth(text);
+        } finally {
+            setTextStyle(previous);
+        }
+    }
+
+    default String trimToWidth(TextStyle style, String text, int width) {
+        TextStyle previous = getTextStyle();
+        setTextStyle(style);
+        try {
+            return trimToWidth(text, width);
+        } finally {
+            setTextStyle(previous);
+        }
+    }
 }
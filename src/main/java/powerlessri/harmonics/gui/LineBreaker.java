@@ -0,0 +1,162 @@
+package powerlessri.harmonics.gui;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Greedy line breaking for a fixed string. The string is scanned once for its cumulative glyph widths and break opportunities (spaces and
+ * line feeds), so that wrapping it to any width only takes a binary search per produced line, and the lines for the last width are
+ * cached.
+ * <p>
+ * Lines break at the last space that fits, or at the last character that fits if there is no such space, just like {@link
+ * net.minecraft.client.gui.FontRenderer#sizeStringToWidth(String, int)}. Spaces at the beginning of wrapped lines are dropped. Widths are
+ * in unscaled font pixels; formatting codes take no space, but bold text is measured as regular text.
+ */
+public final class LineBreaker {
+
+    private static final char FORMATTING_CODE = '\u00a7';
+
+    private final String text;
+    // prefixWidths[i] is the width of text[0, i)
+    private final float[] prefixWidths;
+    // Index of the last space in text[0, i], or -1
+    private final int[] lastSpace;
+    // Index of the first line feed in text[i, length), or length
+    private final int[] nextLineFeed;
+    private int measuredGeneration;
+
+    private int wrappedWidth = -1;
+    private List<String> wrappedLines = Collections.emptyList();
+
+    public LineBreaker(String text) {
+        this.text = text;
+        int length = text.length();
+        this.prefixWidths = new float[length + 1];
+        this.lastSpace = new int[length];
+        this.nextLineFeed = new int[length + 1];
+
+        int space = -1;
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) == ' ') {
+                space = i;
+            }
+            lastSpace[i] = space;
+        }
+        nextLineFeed[length] = length;
+        for (int i = length - 1; i >= 0; i--) {
+            nextLineFeed[i] = text.charAt(i) == '\n' ? i : nextLineFeed[i + 1];
+        }
+        measure();
+    }
+
+    private void measure() {
+        measuredGeneration = TextMeasurements.getGeneration();
+        float sum = 0F;
+        boolean formatting = false;
+        for (int i = 0; i < text.length(); i++) {
+            prefixWidths[i] = sum;
+            char c = text.charAt(i);
+            if (formatting) {
+                formatting = false;
+            } else if (c == FORMATTING_CODE) {
+                formatting = true;
+            } else if (c != '\n') {
+                sum += TextMeasurements.getCharWidth(c);
+            }
+        }
+        prefixWidths[text.length()] = sum;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return Width of the whole text, ignoring line feeds.
+     */
+    public int getTotalWidth() {
+        validate();
+        return (int) Math.ceil(prefixWidths[text.length()]);
+    }
+
+    /**
+     * @return Unmodifiable list of lines of the text wrapped to the given width. Calling this again with the same width returns the same
+     * list without doing any work.
+     */
+    public List<String> wrap(int maxWidth) {
+        Preconditions.checkArgument(maxWidth >= 0);
+        if (validate() && maxWidth == wrappedWidth) {
+            return wrappedLines;
+        }
+
+        List<String> lines = new ArrayList<>();
+        int length = text.length();
+        int start = 0;
+        while (true) {
+            int lineFeed = nextLineFeed[start];
+            int end = findFittingEnd(start, lineFeed, maxWidth);
+            if (end == lineFeed) {
+                lines.add(text.substring(start, lineFeed));
+                if (lineFeed == length) {
+                    break;
+                }
+                start = lineFeed + 1;
+                continue;
+            }
+
+            // Character at end does not fit anymore, prefer breaking at a space before or at it
+            int space = lastSpace[end];
+            int cut = space > start ? space : Math.max(end, start + 1);
+            lines.add(text.substring(start, cut));
+            start = cut;
+            while (start < length && text.charAt(start) == ' ') {
+                start++;
+            }
+            // A line feed right after the break ends the line that was just broken, and should not produce an empty line
+            if (start < length && text.charAt(start) == '\n') {
+                start++;
+                continue;
+            }
+            if (start == length) {
+                break;
+            }
+        }
+
+        wrappedWidth = maxWidth;
+        wrappedLines = Collections.unmodifiableList(lines);
+        return wrappedLines;
+    }
+
+    /**
+     * @return The largest index in [start, limit] such that text[start, index) is at most maxWidth wide.
+     */
+    private int findFittingEnd(int start, int limit, int maxWidth) {
+        float base = prefixWidths[start];
+        int low = start;
+        int high = limit;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (prefixWidths[mid] - base <= maxWidth) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return {@code false} if glyph widths have changed and everything has been measured again.
+     */
+    private boolean validate() {
+        if (measuredGeneration != TextMeasurements.getGeneration()) {
+            measure();
+            wrappedWidth = -1;
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package powerlessri.harmonics.gui;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+
+import java.nio.ByteOrder;
+
+import static java.lang.Float.floatToRawIntBits;
+
+/**
+ * Writes whole quads into a {@link BufferBuilder} with {@link BufferBuilder#addVertexData(int[])}, which copies the raw vertex data into
+ * the builder's direct buffer in one go, instead of going through the {@code pos().color().endVertex()} chain for every vertex.
+ * <p>
+ * Colors passed to the methods here must be packed with {@link #packColor(int)} beforehand, so that a color used for many vertices only
+ * needs to be converted once. The buffer must have been started with the vertex format required by each method.
+ * <p>
+ * This only removes the per-vertex call overhead. The vertex data itself is unchanged: positions are still three floats in the vanilla
+ * vertex formats, since widgets rely on z for depth testing, so the amount of data uploaded per quad is the same as before. The write
+ * paths are compared by {@code ColoredRectBenchmark} in the jmh source set.
+ */
+public final class PackedVertexWriter {
+
+    private PackedVertexWriter() {
+    }
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private static final int COLORED_QUAD_INTS = DefaultVertexFormats.POSITION_COLOR.getIntegerSize() * 4;
+    private static final int TEXTURED_QUAD_INTS = DefaultVertexFormats.POSITION_TEX.getIntegerSize() * 4;
+    private static final int TEXTURED_COLORED_QUAD_INTS = DefaultVertexFormats.POSITION_TEX_COLOR.getIntegerSize() * 4;
+
+    // Only ever used on the render thread
+    private static final int[] coloredQuad = new int[COLORED_QUAD_INTS];
+    private static final int[] texturedQuad = new int[TEXTURED_QUAD_INTS];
+    private static final int[] texturedColoredQuad = new int[TEXTURED_COLORED_QUAD_INTS];
+
+    /**
+     * Convert an ARGB color to the in-memory layout of the color element (RGBA bytes) in the native byte order.
+     */
+    public static int packColor(int argb) {
+        if (LITTLE_ENDIAN) {
+            // ARGB -> ABGR
+            return (argb & 0xff00ff00) | ((argb >> 16) & 0xff) | ((argb & 0xff) << 16);
+        }
+        // ARGB -> RGBA
+        return (argb << 8) | (argb >>> 24);
+    }
+
+    /**
+     * Write a quad in {@link DefaultVertexFormats#POSITION_COLOR}.
+     */
+    public static void coloredQuad(BufferBuilder buffer, float x1, float y1, float x2, float y2, float x3, float y3, float x4, float y4, float z, int packedColor1, int packedColor2, int packedColor3, int packedColor4) {
+        int[] data = coloredQuad;
+        int zBits = floatToRawIntBits(z);
+        data[0] = floatToRawIntBits(x1);
+        data[1] = floatToRawIntBits(y1);
+        data[2] = zBits;
+        data[3] = packedColor1;
+        data[4] = floatToRawIntBits(x2);
+        data[5] = floatToRawIntBits(y2);
+        data[6] = zBits;
+        data[7] = packedColor2;
+        data[8] = floatToRawIntBits(x3);
+        data[9] = floatToRawIntBits(y3);
+        data[10] = zBits;
+        data[11] = packedColor3;
+        data[12] = floatToRawIntBits(x4);
+        data[13] = floatToRawIntBits(y4);
+        data[14] = zBits;
+        data[15] = packedColor4;
+        buffer.addVertexData(data);
+    }
+
+    /**
+     * Write an axis aligned rectangle in {@link DefaultVertexFormats#POSITION_COLOR}, with vertices in the order of top left, bottom left,
+     * bottom right and top right.
+     */
+    public static void coloredRect(BufferBuilder buffer, float x1, float y1, float x2, float y2, float z, int packedColor) {
+        coloredQuad(buffer, x1, y1, x1, y2, x2, y2, x2, y1, z, packedColor, packedColor, packedColor, packedColor);
+    }
+
+    /**
+     * Write an axis aligned rectangle in {@link DefaultVertexFormats#POSITION_TEX}, with vertices in the order of top left, bottom left,
+     * bottom right and top right.
+     */
+    public static void texturedRect(BufferBuilder buffer, float x1, float y1, float x2, float y2, float z, float u1, float v1, float u2, float v2) {
+        int[] data = texturedQuad;
+        int zBits = floatToRawIntBits(z);
+        int x1Bits = floatToRawIntBits(x1);
+        int y1Bits = floatToRawIntBits(y1);
+        int x2Bits = floatToRawIntBits(x2);
+        int y2Bits = floatToRawIntBits(y2);
+        int u1Bits = floatToRawIntBits(u1);
+        int v1Bits = floatToRawIntBits(v1);
+        int u2Bits = floatToRawIntBits(u2);
+        int v2Bits = floatToRawIntBits(v2);
+        data[0] = x1Bits;
+        data[1] = y1Bits;
+        data[2] = zBits;
+        data[3] = u1Bits;
+        data[4] = v1Bits;
+        data[5] = x1Bits;
+        data[6] = y2Bits;
+        data[7] = zBits;
+        data[8] = u1Bits;
+        data[9] = v2Bits;
+        data[10] = x2Bits;
+        data[11] = y2Bits;
+        data[12] = zBits;
+        data[13] = u2Bits;
+        data[14] = v2Bits;
+        data[15] = x2Bits;
+        data[16] = y1Bits;
+        data[17] = zBits;
+        data[18] = u2Bits;
+        data[19] = v1Bits;
+        buffer.addVertexData(data);
+    }
+
+    /**
+     * Write an axis aligned rectangle in {@link DefaultVertexFormats#POSITION_TEX_COLOR}, with vertices in the order of top left, bottom
+     * left, bottom right and top right.
+     */
+    public static void texturedColoredRect(BufferBuilder buffer, float x1, float y1, float x2, float y2, float z, float u1, float v1, float u2, float v2, int packedColor) {
+        int[] data = texturedColoredQuad;
+        int zBits = floatToRawIntBits(z);
+        int x1Bits = floatToRawIntBits(x1);
+        int y1Bits = floatToRawIntBits(y1);
+        int x2Bits = floatToRawIntBits(x2);
+        int y2Bits = floatToRawIntBits(y2);
+        int u1Bits = floatToRawIntBits(u1);
+        int v1Bits = floatToRawIntBits(v1);
+        int u2Bits = floatToRawIntBits(u2);
+        int v2Bits = floatToRawIntBits(v2);
+        data[0] = x1Bits;
+        data[1] = y1Bits;
+        data[2] = zBits;
+        data[3] = u1Bits;
+        data[4] = v1Bits;
+        data[5] = packedColor;
+        data[6] = x1Bits;
+        data[7] = y2Bits;
+        data[8] = zBits;
+        data[9] = u1Bits;
+        data[10] = v2Bits;
+        data[11] = packedColor;
+        data[12] = x2Bits;
+        data[13] = y2Bits;
+        data[14] = zBits;
+        data[15] = u2Bits;
+        data[16] = v2Bits;
+        data[17] = packedColor;
+        data[18] = x2Bits;
+        data[19] = y1Bits;
+        data[20] = zBits;
+        data[21] = u2Bits;
+        data[22] = v1Bits;
+        data[23] = packedColor;
+        buffer.addVertexData(data);
+    }
+}
@@ -1,8 +1,6 @@
 package powerlessri.harmonics.gui;
 
 import com.google.common.base.MoreObjects;
-import net.minecraft.client.renderer.BufferBuilder;
-import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.util.ResourceLocation;
 
 import java.util.Objects;
@@ -82,11 +80,7 @@ class PartialTexture implements ITexture {
         float v1 = portionY * vFactor;
         float u2 = px2 * uFactor;
         float v2 = py2 * vFactor;
-        BufferBuilder buffer = Tessellator.getInstance().getBuffer();
-        buffer.pos(x1, y1, z).tex(u1, v1).endVertex();
-        buffer.pos(x1, y2, z).tex(u1, v2).endVertex();
-        buffer.pos(x2, y2, z).tex(u2, v2).endVertex();
-        buffer.pos(x2, y1, z).tex(u2, v1).endVertex();
+        textureVertices(x1, y1, x2, y2, z, u1, v1, u2, v2);
     }
 
     @Override
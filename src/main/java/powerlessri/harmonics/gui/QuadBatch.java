@@ -0,0 +1,226 @@
+package powerlessri.harmonics.gui;
+
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.util.ResourceLocation;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Frame-wide quad batch used by {@link Render2D}.
+ * <p>
+ * While a frame is open (see {@link #beginFrame()}), {@link Render2D#beginColoredQuad()}, {@link Render2D#beginTexturedQuad()} and
+ * {@link Render2D#draw()} no longer submit a draw call each. Quads from consecutive widgets are accumulated into one buffer, and the GL
+ * states requested through {@link Render2D} (e.g. {@link Render2D#useTextureGLStates()}) are only recorded by the
+ * {@link RenderStateTracker}. The accumulated quads are submitted only when the vertex format, the bound texture, the requested GL states
+ * or the color really changes.
+ * <p>
+ * Anything that draws without going through {@link Render2D} (font renderer, item renderer, immediate mode GL, scissor tests, matrix
+ * changes, raw {@code GlStateManager} calls, etc.) must call {@link #flush()} beforehand, otherwise it will be drawn before the quads
+ * that are still pending in the batch.
+ */
+public final class QuadBatch {
+
+    private QuadBatch() {
+    }
+
+    private static final BufferBuilder BUFFER = new BufferBuilder(0x40000);
+
+    private static boolean batching = false;
+    /**
+     * Whether the caller is currently between {@link #begin(VertexFormat)} and {@link #end()}.
+     */
+    private static boolean writing = false;
+
+    // States of the pending segment; segmentFormat is null when nothing is pending
+    private static VertexFormat segmentFormat = null;
+    private static int segmentEnabled;
+    private static int segmentDisabled;
+    private static int segmentColor;
+    private static ResourceLocation segmentTexture;
+
+    private static int drawCalls = 0;
+    private static int vertices = 0;
+
+    /**
+     * Start accumulating quads. All GL states are assumed to be unknown at this point.
+     */
+    public static void beginFrame() {
+        batching = true;
+        writing = false;
+        drawCalls = 0;
+        vertices = 0;
+        RenderStateTracker.beginFrame();
+        Render2D.backend().beginFrame();
+    }
+
+    /**
+     * Submit everything pending and go back to drawing every {@link Render2D#draw()} immediately.
+     */
+    public static void endFrame() {
+        flush();
+        batching = false;
+        RenderStateTracker.endFrame();
+        Render2D.backend().endFrame();
+    }
+
+    /**
+     * Submit everything pending and temporarily stop batching, e.g. for compiling a display list where every draw call has to happen
+     * immediately. Must be paired with {@link #resume()}.
+     *
+     * @return {@code true} if a frame was open and has been paused.
+     */
+    public static boolean pause() {
+        if (!batching) {
+            return false;
+        }
+        flush();
+        batching = false;
+        return true;
+    }
+
+    /**
+     * Continue a frame paused by {@link #pause()}. GL states changed in between are assumed to be unknown.
+     */
+    public static void resume() {
+        batching = true;
+        writing = false;
+        RenderStateTracker.reset();
+    }
+
+    public static boolean isBatching() {
+        return batching;
+    }
+
+    /**
+     * Number of draw calls submitted by the batch since the last {@link #beginFrame()}.
+     */
+    public static int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Number of vertices submitted by the batch since the last {@link #beginFrame()}.
+     */
+    public static int getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Submit all pending quads and apply the requested GL states and texture. Use this as an ordering barrier before drawing anything not
+     * through {@link Render2D}.
+     */
+    public static void flush() {
+        if (!batching) {
+            return;
+        }
+        submit();
+        RenderStateTracker.apply(true);
+        // Whatever comes after this may change any GL state
+        RenderStateTracker.invalidate();
+    }
+
+    static BufferBuilder buffer() {
+        return BUFFER;
+    }
+
+    static void begin(VertexFormat format) {
+        if (!canContinue(format)) {
+            submit();
+            open(format);
+        }
+        writing = true;
+    }
+
+    static void end() {
+        writing = false;
+    }
+
+    static void bindTexture(ResourceLocation texture) {
+        if (!batching) {
+            Render2D.backend().bindTexture(texture);
+            return;
+        }
+        RenderStateTracker.requestTexture(texture);
+        if (writing && isTextured(segmentFormat) && !texture.equals(segmentTexture)) {
+            reopen();
+        }
+    }
+
+    static void changeStates(int enable, int disable) {
+        if (!batching) {
+            RenderStateTracker.applyImmediately(enable, disable);
+            return;
+        }
+        RenderStateTracker.request(enable, disable);
+        if (writing && (RenderStateTracker.getDesiredEnabled() != segmentEnabled || RenderStateTracker.getDesiredDisabled() != segmentDisabled)) {
+            reopen();
+        }
+    }
+
+    static void color(int color) {
+        if (!batching) {
+            Render2D.backend().setColor(color);
+            return;
+        }
+        RenderStateTracker.requestColor(color);
+        if (writing && color != segmentColor) {
+            reopen();
+        }
+    }
+
+    private static boolean canContinue(VertexFormat format) {
+        return segmentFormat == format &&
+                segmentEnabled == RenderStateTracker.getDesiredEnabled() &&
+                segmentDisabled == RenderStateTracker.getDesiredDisabled() &&
+                segmentColor == RenderStateTracker.getDesiredColor() &&
+                (!isTextured(format) || Objects.equals(segmentTexture, RenderStateTracker.getDesiredTexture()));
+    }
+
+    private static void reopen() {
+        VertexFormat format = segmentFormat;
+        if (BUFFER.getVertexCount() > 0) {
+            submit();
+        } else {
+            abandon();
+        }
+        open(format);
+    }
+
+    private static void open(VertexFormat format) {
+        RenderStateTracker.apply(isTextured(format));
+        segmentFormat = format;
+        segmentEnabled = RenderStateTracker.getDesiredEnabled();
+        segmentDisabled = RenderStateTracker.getDesiredDisabled();
+        segmentColor = RenderStateTracker.getDesiredColor();
+        segmentTexture = RenderStateTracker.getDesiredTexture();
+        BUFFER.begin(GL_QUADS, format);
+    }
+
+    private static void submit() {
+        if (segmentFormat == null) {
+            return;
+        }
+        if (BUFFER.getVertexCount() > 0) {
+            drawCalls++;
+            vertices += BUFFER.getVertexCount();
+        }
+        BUFFER.finishDrawing();
+        Render2D.backend().draw(BUFFER);
+        segmentFormat = null;
+    }
+
+    private static void abandon() {
+        BUFFER.finishDrawing();
+        BUFFER.reset();
+        segmentFormat = null;
+    }
+
+    private static boolean isTextured(@Nullable VertexFormat format) {
+        return format != null && format != DefaultVertexFormats.POSITION_COLOR;
+    }
+}
@@ -0,0 +1,323 @@
+package powerlessri.harmonics.gui;
+
+import com.google.common.base.MoreObjects;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.Objects;
+
+/**
+ * A render backend that does not touch OpenGL at all, and instead counts what would have been submitted. Counters are reset on every
+ * {@link #beginFrame()}, so after a frame has been rendered they describe the cost of that frame.
+ * <p>
+ * Text is measured with a fixed-width fake font ({@link #CHAR_WIDTH} pixels per character, {@link #FONT_HEIGHT} pixels tall), so that
+ * widget trees can be laid out and rendered without a running client.
+ */
+public class RecordingRenderBackend implements IRenderBackend {
+
+    public static final int CHAR_WIDTH = 6;
+    public static final int FONT_HEIGHT = 9;
+
+    private int frames;
+    private int drawCalls;
+    private int vertices;
+    private int stateChanges;
+    private int redundantStateChanges;
+    private int textureBinds;
+    private int scissorPushes;
+    private int lineVertices;
+    private int strings;
+    private int targetRedraws;
+    private int targetBlits;
+    private int matrixDepth;
+    private int maxMatrixDepth;
+
+    private Boolean texture;
+    private Boolean blend;
+    private Boolean alphaTest;
+    private Boolean smoothShading;
+    private Integer color;
+    private ResourceLocation boundTexture;
+
+    @Override
+    public void beginFrame() {
+        frames++;
+        reset();
+    }
+
+    /**
+     * Reset all counters. The recorded GL states are kept.
+     */
+    public void reset() {
+        drawCalls = 0;
+        vertices = 0;
+        stateChanges = 0;
+        redundantStateChanges = 0;
+        textureBinds = 0;
+        scissorPushes = 0;
+        lineVertices = 0;
+        strings = 0;
+        targetRedraws = 0;
+        targetBlits = 0;
+        maxMatrixDepth = matrixDepth;
+    }
+
+    private boolean recordState(Object oldValue, Object newValue) {
+        if (Objects.equals(oldValue, newValue)) {
+            redundantStateChanges++;
+            return false;
+        }
+        stateChanges++;
+        return true;
+    }
+
+    @Override
+    public void setTextureEnabled(boolean enabled) {
+        recordState(texture, enabled);
+        texture = enabled;
+    }
+
+    @Override
+    public void setBlendEnabled(boolean enabled) {
+        recordState(blend, enabled);
+        blend = enabled;
+    }
+
+    @Override
+    public void setAlphaTestEnabled(boolean enabled) {
+        recordState(alphaTest, enabled);
+        alphaTest = enabled;
+    }
+
+    @Override
+    public void setSmoothShading(boolean smooth) {
+        recordState(smoothShading, smooth);
+        smoothShading = smooth;
+    }
+
+    @Override
+    public void setColor(int color) {
+        recordState(this.color, color);
+        this.color = color;
+    }
+
+    @Override
+    public void bindTexture(ResourceLocation texture) {
+        textureBinds++;
+        recordState(boundTexture, texture);
+        boundTexture = texture;
+    }
+
+    @Override
+    public void draw(BufferBuilder buffer) {
+        int count = buffer.getVertexCount();
+        if (count > 0) {
+            drawCalls++;
+            vertices += count;
+        }
+        buffer.reset();
+    }
+
+    @Override
+    public void beginLines(float width) {
+        drawCalls++;
+    }
+
+    @Override
+    public void lineVertex(float x, float y, float z) {
+        lineVertices++;
+    }
+
+    @Override
+    public void endLines() {
+    }
+
+    @Override
+    public void enableScissor(int x, int y, int width, int height) {
+        scissorPushes++;
+    }
+
+    @Override
+    public void disableScissor() {
+    }
+
+    @Override
+    public IRenderTarget createRenderTarget(int width, int height) {
+        return new Target(width, height);
+    }
+
+    @Override
+    public void pushMatrix() {
+        matrixDepth++;
+        maxMatrixDepth = Math.max(maxMatrixDepth, matrixDepth);
+    }
+
+    @Override
+    public void popMatrix() {
+        matrixDepth--;
+    }
+
+    @Override
+    public void translate(float x, float y, float z) {
+    }
+
+    @Override
+    public void scale(float x, float y, float z) {
+    }
+
+    @Override
+    public void drawString(String text, float x, float y, int color) {
+        strings++;
+    }
+
+    @Override
+    public int getStringWidth(String text) {
+        return text.length() * CHAR_WIDTH;
+    }
+
+    @Override
+    public float getCharWidth(char c) {
+        return CHAR_WIDTH;
+    }
+
+    @Override
+    public String trimStringToWidth(String text, int width) {
+        return text.substring(0, Math.min(text.length(), Math.max(0, width / CHAR_WIDTH)));
+    }
+
+    @Override
+    public boolean isUnicodeFont() {
+        return false;
+    }
+
+    @Override
+    public int getFontHeight() {
+        return FONT_HEIGHT;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    public int getVertices() {
+        return vertices;
+    }
+
+    /**
+     * Number of state setter calls that actually changed a GL state, including texture binds.
+     */
+    public int getStateChanges() {
+        return stateChanges;
+    }
+
+    /**
+     * Number of state setter calls that set a GL state to the value it already had.
+     */
+    public int getRedundantStateChanges() {
+        return redundantStateChanges;
+    }
+
+    public int getTextureBinds() {
+        return textureBinds;
+    }
+
+    public int getScissorPushes() {
+        return scissorPushes;
+    }
+
+    public int getLineVertices() {
+        return lineVertices;
+    }
+
+    public int getStrings() {
+        return strings;
+    }
+
+    /**
+     * Number of times a render target's contents were redrawn.
+     */
+    public int getTargetRedraws() {
+        return targetRedraws;
+    }
+
+    public int getTargetBlits() {
+        return targetBlits;
+    }
+
+    public int getMaxMatrixDepth() {
+        return maxMatrixDepth;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("frames", frames)
+                .add("drawCalls", drawCalls)
+                .add("vertices", vertices)
+                .add("stateChanges", stateChanges)
+                .add("redundantStateChanges", redundantStateChanges)
+                .add("textureBinds", textureBinds)
+                .add("scissorPushes", scissorPushes)
+                .add("lineVertices", lineVertices)
+                .add("strings", strings)
+                .add("targetRedraws", targetRedraws)
+                .add("targetBlits", targetBlits)
+                .add("maxMatrixDepth", maxMatrixDepth)
+                .toString();
+    }
+
+    private class Target implements IRenderTarget {
+
+        private int width;
+        private int height;
+
+        private Target(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public void resize(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void begin(int originX, int originY) {
+            targetRedraws++;
+        }
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public void blit(int x, int y, float z) {
+            targetBlits++;
+            drawCalls++;
+            vertices += 4;
+        }
+
+        @Override
+        public void delete() {
+        }
+    }
+}
@@ -1,13 +1,11 @@
 package powerlessri.harmonics.gui;
 
-import com.mojang.blaze3d.platform.GlStateManager;
-import com.mojang.blaze3d.platform.GlStateManager.DestFactor;
-import com.mojang.blaze3d.platform.GlStateManager.SourceFactor;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.FontRenderer;
 import net.minecraft.client.renderer.BufferBuilder;
 import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexFormat;
 import net.minecraft.util.ResourceLocation;
 import powerlessri.harmonics.HarmonicsCore;
 
@@ -35,6 +33,65 @@ public final class Render2D {
     private Render2D() {
     }
 
+    private static final IRenderBackend VANILLA_BACKEND = new VanillaRenderBackend();
+
+    private static IRenderBackend backend = VANILLA_BACKEND;
+    private static GuiTextureAtlas.Sprite boundSprite;
+
+    public static IRenderBackend backend() {
+        return backend;
+    }
+
+    /**
+     * Replace the backend all GUI rendering is submitted to, e.g. with a {@link RecordingRenderBackend}. Must not be called during a
+     * frame.
+     */
+    public static void useBackend(IRenderBackend backend) {
+        Render2D.backend = backend;
+    }
+
+    public static void useVanillaBackend() {
+        backend = VANILLA_BACKEND;
+    }
+
+    /**
+     * Redirect all following rendering into the given target, until {@link #endRenderTarget(IRenderTarget)}. Scissor boxes created
+     * before this call do not apply inside the target.
+     *
+     * @param clear Whether the whole target should be cleared, or the previous contents should be kept.
+     */
+    public static void beginRenderTarget(IRenderTarget target, int originX, int originY, boolean clear) {
+        QuadBatch.flush();
+        ScissorTest.isolate();
+        target.begin(originX, originY);
+        if (clear) {
+            target.clear();
+        }
+    }
+
+    public static void beginRenderTarget(IRenderTarget target, int originX, int originY) {
+        beginRenderTarget(target, originX, originY, true);
+    }
+
+    /**
+     * Clear the target that is currently being rendered into, limited to the current {@link ScissorTest} box.
+     */
+    public static void clearRenderTarget(IRenderTarget target) {
+        QuadBatch.flush();
+        target.clear();
+    }
+
+    public static void endRenderTarget(IRenderTarget target) {
+        QuadBatch.flush();
+        target.end();
+        ScissorTest.restore();
+    }
+
+    public static void blitRenderTarget(IRenderTarget target, int x, int y, float z) {
+        QuadBatch.flush();
+        target.blit(x, y, z);
+    }
+
     public static boolean isInside(int x, int y, int mx, int my) {
         return isInside(x, y, 0, 0, mx, my);
     }
@@ -59,43 +116,70 @@ public final class Render2D {
         return Minecraft.getInstance().fontRenderer;
     }
 
+    /**
+     * Width of the given string in the default font, measured through {@link TextMeasurements}.
+     */
+    public static int textWidth(String text) {
+        return TextMeasurements.getStringWidth(text);
+    }
+
     public static int fontHeight() {
-        return Minecraft.getInstance().fontRenderer.FONT_HEIGHT;
+        return backend.getFontHeight();
     }
 
     public static void color(int color) {
-        int alpha = (color >> 24) & 255;
-        int red = (color >> 16) & 255;
-        int green = (color >> 8) & 255;
-        int blue = color & 255;
-        GlStateManager.color4f(red / 255F, green / 255F, blue / 255F, alpha / 255F);
+        QuadBatch.color(color);
     }
 
+    /**
+     * Bind the given texture, or the {@link GuiTextureAtlas} page it has been packed into. In the latter case, texture coordinates
+     * passed to {@link #textureVertices(int, int, int, int, float, float, float, float, float)} are remapped to the atlas until the next
+     * call to this method.
+     */
     public static void bindTexture(ResourceLocation texture) {
-        Minecraft.getInstance().getTextureManager().bindTexture(texture);
+        GuiTextureAtlas.Sprite sprite = GuiTextureAtlas.getSprite(texture);
+        boundSprite = sprite;
+        QuadBatch.bindTexture(sprite == null ? texture : sprite.getAtlas());
+    }
+
+    /**
+     * The buffer that quads should be written into after calling {@link #beginColoredQuad()}, {@link #beginTexturedQuad()} or
+     * {@link #beginQuads(VertexFormat)}. This is the frame-wide batch buffer when {@link QuadBatch#isBatching()}, or the tessellator's
+     * buffer otherwise.
+     */
+    public static BufferBuilder buffer() {
+        return QuadBatch.isBatching() ? QuadBatch.buffer() : Tessellator.getInstance().getBuffer();
     }
 
     public static void beginColoredQuad() {
-        Tessellator.getInstance().getBuffer().begin(GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+        beginQuads(DefaultVertexFormats.POSITION_COLOR);
     }
 
     public static void beginTexturedQuad() {
-        Tessellator.getInstance().getBuffer().begin(GL_QUADS, DefaultVertexFormats.POSITION_TEX);
+        beginQuads(DefaultVertexFormats.POSITION_TEX);
+    }
+
+    public static void beginQuads(VertexFormat format) {
+        if (QuadBatch.isBatching()) {
+            QuadBatch.begin(format);
+        } else {
+            Tessellator.getInstance().getBuffer().begin(GL_QUADS, format);
+        }
     }
 
     public static void draw() {
-        Tessellator.getInstance().draw();
+        if (QuadBatch.isBatching()) {
+            QuadBatch.end();
+        } else {
+            BufferBuilder buffer = Tessellator.getInstance().getBuffer();
+            buffer.finishDrawing();
+            backend.draw(buffer);
+        }
     }
 
     public static void quad(BufferBuilder buffer, int x1, int y1, int x2, int y2, int x3, int y3, int x4, int y4, float z, int color) {
-        int alpha = (color >> 24) & 255;
-        int red = (color >> 16) & 255;
-        int green = (color >> 8) & 255;
-        int blue = color & 255;
-        buffer.pos(x1, y1, z).color(red, green, blue, alpha).endVertex();
-        buffer.pos(x2, y2, z).color(red, green, blue, alpha).endVertex();
-        buffer.pos(x3, y3, z).color(red, green, blue, alpha).endVertex();
-        buffer.pos(x4, y4, z).color(red, green, blue, alpha).endVertex();
+        int packed = PackedVertexWriter.packColor(color);
+        PackedVertexWriter.coloredQuad(buffer, x1, y1, x2, y2, x3, y3, x4, y4, z, packed, packed, packed, packed);
     }
 
     public static void coloredRect(Point position, Dimension dimensions, float z, int color) {
@@ -111,15 +195,7 @@ public final class Render2D {
     }
 
     public static void coloredRect(int x1, int y1, int x2, int y2, float z, int color) {
-        int alpha = (color >> 24) & 255;
-        int red = (color >> 16) & 255;
-        int green = (color >> 8) & 255;
-        int blue = color & 255;
-        BufferBuilder renderer = Tessellator.getInstance().getBuffer();
-        renderer.pos(x1, y1, z).color(red, green, blue, alpha).endVertex();
-        renderer.pos(x1, y2, z).color(red, green, blue, alpha).endVertex();
-        renderer.pos(x2, y2, z).color(red, green, blue, alpha).endVertex();
-        renderer.pos(x2, y1, z).color(red, green, blue, alpha).endVertex();
+        PackedVertexWriter.coloredRect(buffer(), x1, y1, x2, y2, z, PackedVertexWriter.packColor(color));
     }
 
     public static void coloredRect(int x1, int y1, int x2, int y2, int color) {
@@ -127,61 +203,55 @@ public final class Render2D {
     }
 
     public static void verticalGradientRect(int x1, int y1, int x2, int y2, float z, int color1, int color2) {
-        int a1 = (color1 >> 24) & 255;
-        int r1 = (color1 >> 16) & 255;
-        int g1 = (color1 >> 8) & 255;
-        int b1 = color1 & 255;
-        int a2 = (color2 >> 24) & 255;
-        int r2 = (color2 >> 16) & 255;
-        int g2 = (color2 >> 8) & 255;
-        int b2 = color2 & 255;
-
-        BufferBuilder buffer = Tessellator.getInstance().getBuffer();
-        buffer.pos(x2, y1, z).color(r1, g1, b1, a1).endVertex();
-        buffer.pos(x1, y1, z).color(r1, g1, b1, a1).endVertex();
-        buffer.pos(x1, y2, z).color(r2, g2, b2, a2).endVertex();
-        buffer.pos(x2, y2, z).color(r2, g2, b2, a2).endVertex();
+        int packed1 = PackedVertexWriter.packColor(color1);
+        int packed2 = PackedVertexWriter.packColor(color2);
+        PackedVertexWriter.coloredQuad(buffer(), x2, y1, x1, y1, x1, y2, x2, y2, z, packed1, packed1, packed2, packed2);
     }
 
     public static void horizontalGradientRect(int x1, int y1, int x2, int y2, float z, int color1, int color2) {
-        int a1 = (color1 >> 24) & 255;
-        int r1 = (color1 >> 16) & 255;
-        int g1 = (color1 >> 8) & 255;
-        int b1 = color1 & 255;
-        int a2 = (color2 >> 24) & 255;
-        int r2 = (color2 >> 16) & 255;
-        int g2 = (color2 >> 8) & 255;
-        int b2 = color2 & 255;
-
-        BufferBuilder buffer = Tessellator.getInstance().getBuffer();
-        buffer.pos(x1, y1, z).color(r1, g1, b1, a1).endVertex();
-        buffer.pos(x1, y2, z).color(r1, g1, b1, a1).endVertex();
-        buffer.pos(x2, y2, z).color(r2, g2, b2, a2).endVertex();
-        buffer.pos(x2, y1, z).color(r2, g2, b2, a2).endVertex();
+        int packed1 = PackedVertexWriter.packColor(color1);
+        int packed2 = PackedVertexWriter.packColor(color2);
+        PackedVertexWriter.coloredQuad(buffer(), x1, y1, x1, y2, x2, y2, x2, y1, z, packed1, packed1, packed2, packed2);
     }
 
     public static void thickBeveledBox(int x1, int y1, int x2, int y2, float z, int thickness, int topLeftColor, int bottomRightColor, int fillColor) {
-        coloredRect(x1, y1, x2, y2, z, bottomRightColor);
-        coloredRect(x1, y1, x2 - thickness, y2 - thickness, z, topLeftColor);
-        coloredRect(x1 + thickness, y1 + thickness, x2 - thickness, y2 - thickness, z, fillColor);
+        BufferBuilder buffer = buffer();
+        PackedVertexWriter.coloredRect(buffer, x1, y1, x2, y2, z, PackedVertexWriter.packColor(bottomRightColor));
+        PackedVertexWriter.coloredRect(buffer, x1, y1, x2 - thickness, y2 - thickness, z, PackedVertexWriter.packColor(topLeftColor));
+        PackedVertexWriter.coloredRect(buffer, x1 + thickness, y1 + thickness, x2 - thickness, y2 - thickness, z, PackedVertexWriter.packColor(fillColor));
     }
 
     public static void textureVertices(int x1, int y1, int x2, int y2, float z, float u1, float v1, float u2, float v2) {
-        BufferBuilder buffer = Tessellator.getInstance().getBuffer();
-        buffer.pos(x1, y1, z).tex(u1, v1).endVertex();
-        buffer.pos(x1, y2, z).tex(u1, v2).endVertex();
-        buffer.pos(x2, y2, z).tex(u2, v2).endVertex();
-        buffer.pos(x2, y1, z).tex(u2, v1).endVertex();
+        if (boundSprite != null) {
+            u1 = boundSprite.u(u1);
+            v1 = boundSprite.v(v1);
+            u2 = boundSprite.u(u2);
+            v2 = boundSprite.v(v2);
+        }
+        PackedVertexWriter.texturedRect(buffer(), x1, y1, x2, y2, z, u1, v1, u2, v2);
+    }
+
+    /**
+     * Start drawing lines with {@link #verticalLine(int, int, int, float)} and {@link #horizontalLine(int, int, int, float)}, using the
+     * current color. Lines are not batched, so this flushes the {@link QuadBatch}.
+     */
+    public static void beginLines(float width) {
+        QuadBatch.flush();
+        backend.beginLines(width);
+    }
+
+    public static void endLines() {
+        backend.endLines();
     }
 
     public static void verticalLine(int x, int y1, int y2, float z) {
-        glVertex3f(x, y1, z);
-        glVertex3f(x, y2, z);
+        backend.lineVertex(x, y1, z);
+        backend.lineVertex(x, y2, z);
     }
 
     public static void horizontalLine(int x1, int x2, int y, float z) {
-        glVertex3f(x1, y, z);
-        glVertex3f(x2, y, z);
+        backend.lineVertex(x1, y, z);
+        backend.lineVertex(x2, y, z);
     }
 
     public static void completeTexture(int x1, int y1, int x2, int y2, float z) {
@@ -213,6 +283,11 @@ public final class Render2D {
         return computeCenterX(left, right, textWidth);
     }
 
+    public static int getXForHorizontallyCenteredText(ITextRenderer textRenderer, TextStyle style, String text, int left, int right) {
+        int textWidth = textRenderer.calculateWidth(style, text);
+        return computeCenterX(left, right, textWidth);
+    }
+
     public static int getYForVerticallyCenteredText(int top, int bottom) {
         return getYForVerticallyCenteredText(TextRenderer.vanilla(), top, bottom);
     }
@@ -221,12 +296,17 @@ public final class Render2D {
         return computeCenterY(top, bottom, (int) textRenderer.getFontHeight());
     }
 
+    public static int getYForVerticallyCenteredText(TextStyle style, int top, int bottom) {
+        return computeCenterY(top, bottom, (int) style.getFontHeight());
+    }
+
     public static void renderVerticallyCenteredText(String text, int leftX, int top, int bottom, float z, int color) {
         int y = getYForVerticallyCenteredText(top, bottom);
-        GlStateManager.pushMatrix();
-        GlStateManager.translatef(0F, 0F, z + 0.1F);
-        fontRenderer().drawString(text, leftX, y, color);
-        GlStateManager.popMatrix();
+        QuadBatch.flush();
+        backend.pushMatrix();
+        backend.translate(0F, 0F, z + 0.1F);
+        backend.drawString(text, leftX, y, color);
+        backend.popMatrix();
     }
 
     public static void renderVerticallyCenteredText(ITextRenderer textRenderer, String text, int leftX, int top, int bottom, float z) {
@@ -234,12 +314,18 @@ public final class Render2D {
         textRenderer.renderText(text, leftX, y, z);
     }
 
+    public static void renderVerticallyCenteredText(ITextRenderer textRenderer, TextStyle style, String text, int leftX, int top, int bottom, float z) {
+        int y = getYForVerticallyCenteredText(style, top, bottom);
+        textRenderer.renderText(style, text, leftX, y, z);
+    }
+
     public static void renderHorizontallyCenteredText(String text, int left, int right, int topY, float z, int color) {
         int x = getXForHorizontallyCenteredText(text, left, right);
-        GlStateManager.pushMatrix();
-        GlStateManager.translatef(0F, 0F, z + 0.1F);
-        fontRenderer().drawString(text, x, topY, color);
-        GlStateManager.popMatrix();
+        QuadBatch.flush();
+        backend.pushMatrix();
+        backend.translate(0F, 0F, z + 0.1F);
+        backend.drawString(text, x, topY, color);
+        backend.popMatrix();
     }
 
     public static void renderHorizontallyCenteredText(ITextRenderer textRenderer, String text, int left, int right, int topY, float z) {
@@ -247,13 +333,19 @@ public final class Render2D {
         textRenderer.renderText(text, x, topY, z);
     }
 
+    public static void renderHorizontallyCenteredText(ITextRenderer textRenderer, TextStyle style, String text, int left, int right, int topY, float z) {
+        int x = getXForHorizontallyCenteredText(textRenderer, style, text, left, right);
+        textRenderer.renderText(style, text, x, topY, z);
+    }
+
     public static void renderCenteredText(String text, int top, int bottom, int left, int right, float z, int color) {
         int x = getXForHorizontallyCenteredText(text, left, right);
         int y = getYForVerticallyCenteredText(top, bottom);
-        GlStateManager.pushMatrix();
-        GlStateManager.translatef(0F, 0F, z + 0.1F);
-        fontRenderer().drawString(text, x, y, color);
-        GlStateManager.popMatrix();
+        QuadBatch.flush();
+        backend.pushMatrix();
+        backend.translate(0F, 0F, z + 0.1F);
+        backend.drawString(text, x, y, color);
+        backend.popMatrix();
     }
 
     public static void renderCenteredText(ITextRenderer textRenderer, String text, int top, int bottom, int left, int right, float z) {
@@ -262,29 +354,42 @@ public final class Render2D {
         textRenderer.renderText(text, x, y, z);
     }
 
+    public static void renderCenteredText(ITextRenderer textRenderer, TextStyle style, String text, int top, int bottom, int left, int right, float z) {
+        int x = getXForHorizontallyCenteredText(textRenderer, style, text, left, right);
+        int y = getYForVerticallyCenteredText(style, top, bottom);
+        textRenderer.renderText(style, text, x, y, z);
+    }
+
     public static void useGradientGLStates() {
-        GlStateManager.disableTexture();
-        GlStateManager.disableAlphaTest();
-        GlStateManager.enableBlend();
-        GlStateManager.shadeModel(GL_SMOOTH);
-        GlStateManager.blendFuncSeparate(SourceFactor.SRC_ALPHA, DestFactor.ONE_MINUS_SRC_ALPHA, SourceFactor.ONE, DestFactor.ZERO);
+        QuadBatch.changeStates(RenderStateTracker.BLEND | RenderStateTracker.SMOOTH_SHADING, RenderStateTracker.TEXTURE | RenderStateTracker.ALPHA_TEST);
     }
 
     public static void useBlendingGLStates() {
-        GlStateManager.disableTexture();
-        GlStateManager.disableAlphaTest();
-        GlStateManager.enableBlend();
-        GlStateManager.blendFuncSeparate(SourceFactor.SRC_ALPHA, DestFactor.ONE_MINUS_SRC_ALPHA, SourceFactor.ONE, DestFactor.ZERO);
+        QuadBatch.changeStates(RenderStateTracker.BLEND, RenderStateTracker.TEXTURE | RenderStateTracker.ALPHA_TEST);
     }
 
     public static void usePlainColorGLStates() {
-        GlStateManager.disableTexture();
-        GlStateManager.disableBlend();
+        QuadBatch.changeStates(0, RenderStateTracker.TEXTURE | RenderStateTracker.BLEND);
     }
 
     public static void useTextureGLStates() {
-        GlStateManager.enableTexture();
-        GlStateManager.disableBlend();
-        GlStateManager.color3f(1F, 1F, 1F);
+        QuadBatch.changeStates(RenderStateTracker.TEXTURE, RenderStateTracker.BLEND);
+        QuadBatch.color(0xffffffff);
+    }
+
+    public static void enableTexture() {
+        QuadBatch.changeStates(RenderStateTracker.TEXTURE, 0);
+    }
+
+    public static void disableTexture() {
+        QuadBatch.changeStates(0, RenderStateTracker.TEXTURE);
+    }
+
+    public static void enableAlphaTest() {
+        QuadBatch.changeStates(RenderStateTracker.ALPHA_TEST, 0);
+    }
+
+    public static void disableAlphaTest() {
+        QuadBatch.changeStates(0, RenderStateTracker.ALPHA_TEST);
     }
 }
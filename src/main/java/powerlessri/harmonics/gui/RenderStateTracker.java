@@ -0,0 +1,196 @@
+package powerlessri.harmonics.gui;
+
+import net.minecraft.util.ResourceLocation;
+
+import javax.annotation.Nullable;
+
+/**
+ * Tracks the GL states requested through {@link Render2D} while a {@link QuadBatch} frame is open, and the states that have actually been
+ * applied to the {@link IRenderBackend}. Requests only update the desired states; {@link #apply(boolean)} later submits the difference
+ * between the two, so back-to-back toggles such as {@code disableTexture(); ...; enableTexture(); disableTexture();} with no quads in
+ * between never reach the backend.
+ * <p>
+ * State changes are counted per frame: the number of backend calls the requests would have caused if applied immediately, and the number
+ * that were actually made. The numbers of the last completed frame are available through the getters.
+ */
+public final class RenderStateTracker {
+
+    private RenderStateTracker() {
+    }
+
+    static final int TEXTURE = 1;
+    static final int BLEND = 1 << 1;
+    static final int ALPHA_TEST = 1 << 2;
+    static final int SMOOTH_SHADING = 1 << 3;
+    private static final int[] STATES = {TEXTURE, BLEND, ALPHA_TEST, SMOOTH_SHADING};
+
+    // A state bit is either set in enabled, set in disabled, or unknown (set in neither)
+    private static int desiredEnabled = 0;
+    private static int desiredDisabled = 0;
+    private static int desiredColor = 0xffffffff;
+    private static ResourceLocation desiredTexture = null;
+
+    private static int appliedEnabled = 0;
+    private static int appliedDisabled = 0;
+    private static boolean colorApplied = false;
+    private static int appliedColor = 0;
+    private static ResourceLocation appliedTexture = null;
+
+    private static int requested = 0;
+    private static int applied = 0;
+    private static int lastFrameRequested = 0;
+    private static int lastFrameApplied = 0;
+
+    static void beginFrame() {
+        requested = 0;
+        applied = 0;
+        reset();
+    }
+
+    static void endFrame() {
+        lastFrameRequested = requested;
+        lastFrameApplied = applied;
+    }
+
+    /**
+     * Forget both desired and applied states, e.g. after states have been changed without going through the tracker.
+     */
+    static void reset() {
+        desiredEnabled = 0;
+        desiredDisabled = 0;
+        desiredColor = 0xffffffff;
+        desiredTexture = null;
+        invalidate();
+    }
+
+    /**
+     * Forget the applied states, so that the next {@link #apply(boolean)} submits every desired state. Must be called when code outside
+     * of the tracker's knowledge gets to change GL states.
+     */
+    static void invalidate() {
+        appliedEnabled = 0;
+        appliedDisabled = 0;
+        colorApplied = false;
+        appliedTexture = null;
+    }
+
+    static void request(int enable, int disable) {
+        requested += Integer.bitCount(enable | disable);
+        desiredEnabled = (desiredEnabled & ~disable) | enable;
+        desiredDisabled = (desiredDisabled & ~enable) | disable;
+    }
+
+    static void requestColor(int color) {
+        requested++;
+        desiredColor = color;
+    }
+
+    static void requestTexture(ResourceLocation texture) {
+        requested++;
+        desiredTexture = texture;
+    }
+
+    /**
+     * Submit the difference between desired and applied states to the backend.
+     *
+     * @param bindTexture Whether the desired texture should be bound as well.
+     */
+    static void apply(boolean bindTexture) {
+        IRenderBackend backend = Render2D.backend();
+        int enable = desiredEnabled & ~appliedEnabled;
+        int disable = desiredDisabled & ~appliedDisabled;
+        if ((enable | disable) != 0) {
+            for (int state : STATES) {
+                if ((enable & state) != 0) {
+                    setState(backend, state, true);
+                    applied++;
+                } else if ((disable & state) != 0) {
+                    setState(backend, state, false);
+                    applied++;
+                }
+            }
+            appliedEnabled = (appliedEnabled & ~disable) | enable;
+            appliedDisabled = (appliedDisabled & ~enable) | disable;
+        }
+        if (!colorApplied || appliedColor != desiredColor) {
+            backend.setColor(desiredColor);
+            applied++;
+            colorApplied = true;
+            appliedColor = desiredColor;
+        }
+        if (bindTexture && desiredTexture != null && !desiredTexture.equals(appliedTexture)) {
+            backend.bindTexture(desiredTexture);
+            applied++;
+            appliedTexture = desiredTexture;
+        }
+    }
+
+    /**
+     * Apply the given states immediately, without tracking. Used when no frame is open.
+     */
+    static void applyImmediately(int enable, int disable) {
+        IRenderBackend backend = Render2D.backend();
+        for (int state : STATES) {
+            if ((enable & state) != 0) {
+                setState(backend, state, true);
+            } else if ((disable & state) != 0) {
+                setState(backend, state, false);
+            }
+        }
+    }
+
+    private static void setState(IRenderBackend backend, int state, boolean value) {
+        switch (state) {
+            case TEXTURE:
+                backend.setTextureEnabled(value);
+                break;
+            case BLEND:
+                backend.setBlendEnabled(value);
+                break;
+            case ALPHA_TEST:
+                backend.setAlphaTestEnabled(value);
+                break;
+            case SMOOTH_SHADING:
+                backend.setSmoothShading(value);
+                break;
+        }
+    }
+
+    static int getDesiredEnabled() {
+        return desiredEnabled;
+    }
+
+    static int getDesiredDisabled() {
+        return desiredDisabled;
+    }
+
+    static int getDesiredColor() {
+        return desiredColor;
+    }
+
+    @Nullable
+    static ResourceLocation getDesiredTexture() {
+        return desiredTexture;
+    }
+
+    /**
+     * @return Number of state changes and texture binds requested during the last frame.
+     */
+    public static int getRequestedTransitions() {
+        return lastFrameRequested;
+    }
+
+    /**
+     * @return Number of state changes and texture binds that were submitted to the backend during the last frame.
+     */
+    public static int getAppliedTransitions() {
+        return lastFrameApplied;
+    }
+
+    /**
+     * @return Number of requested state changes and texture binds that never had to be submitted during the last frame.
+     */
+    public static int getAvoidedTransitions() {
+        return Math.max(0, lastFrameRequested - lastFrameApplied);
+    }
+}
@@ -1,93 +1,128 @@
 package powerlessri.harmonics.gui;
 
-import net.minecraft.client.MainWindow;
-import net.minecraft.client.Minecraft;
-import powerlessri.harmonics.HarmonicsCore;
+import com.google.common.base.Preconditions;
 
-import static org.lwjgl.opengl.GL11.*;
+import java.util.Arrays;
 
-// https://stackoverflow.com/questions/30254602/java-lwjgl-multiple-scissor-test
+/**
+ * Stack of clip boxes in GUI coordinates. Each pushed box is intersected with the one below it, and the result is applied as the GL
+ * scissor box. The boxes are stored in a primitive array, so pushing and popping does not allocate.
+ * <p>
+ * Containers should use {@link #isVisible(int, int, int, int)} to skip rendering children that would be clipped away entirely, which
+ * {@link powerlessri.harmonics.gui.widget.mixin.ContainerWidgetMixin#renderChildren(int, int, float)} does by default.
+ */
 public final class ScissorTest {
 
-    public static ScissorTest scaled(int x, int y, int width, int height) {
-        MainWindow mainWindow = Minecraft.getInstance().mainWindow;
-        double scale = mainWindow.getGuiScaleFactor();
-        return new ScissorTest((int) (x * scale), (int) (mainWindow.getHeight() - ((y + height) * scale)),
-                (int) (width * scale), (int) (height * scale));
+    private ScissorTest() {
     }
 
-    private static final int max = 100;
-    private static ScissorTest[] objects = new ScissorTest[max];
-    private static int lastObject = -1;
-
-    private int index;
-    private int left;
-    private int right;
-    private int top;
-
-    private int bottom;
-
-    public ScissorTest(int x, int y, int width, int height) {
-        lastObject++;
-        if (lastObject < max) {
-            index = lastObject;
-            objects[index] = this;
-
-            left = x;
-            right = x + width - 1;
-            top = y;
-            bottom = y + height - 1;
-
-            if (index > 0) {
-                ScissorTest parent = objects[index - 1];
-
-                if (left < parent.left) {
-                    left = parent.left;
-                }
-                if (right > parent.right) {
-                    right = parent.right;
-                }
-                if (top < parent.top) {
-                    top = parent.top;
-                }
-                if (bottom > parent.bottom) {
-                    bottom = parent.bottom;
-                }
-            }
-
-            resume();
+    // x1, y1, x2, y2 of each box, already intersected with the boxes below
+    private static int[] boxes = new int[16 * 4];
+    private static int depth = 0;
+    // Depth at which the boxes of the current render target start, see isolate()
+    private static int base = 0;
+    private static int[] savedBases = new int[8];
+    private static int savedBaseCount = 0;
+
+    /**
+     * Push a clip box, which will be intersected with the current one. Every push must be paired with a {@link #pop()}.
+     */
+    public static void push(int x, int y, int width, int height) {
+        // Pending quads must be drawn with the old scissor box
+        QuadBatch.flush();
+        if ((depth + 1) * 4 > boxes.length) {
+            boxes = Arrays.copyOf(boxes, boxes.length * 2);
+        }
+
+        int x1 = x;
+        int y1 = y;
+        int x2 = x + Math.max(width, 0);
+        int y2 = y + Math.max(height, 0);
+        if (depth > base) {
+            int parent = (depth - 1) * 4;
+            x1 = Math.max(x1, boxes[parent]);
+            y1 = Math.max(y1, boxes[parent + 1]);
+            x2 = Math.min(x2, boxes[parent + 2]);
+            y2 = Math.min(y2, boxes[parent + 3]);
+        }
+        int i = depth * 4;
+        boxes[i] = x1;
+        boxes[i + 1] = y1;
+        boxes[i + 2] = Math.max(x1, x2);
+        boxes[i + 3] = Math.max(y1, y2);
+        depth++;
+        apply();
+    }
+
+    /**
+     * Remove the clip box pushed last, and restore the one below it.
+     */
+    public static void pop() {
+        Preconditions.checkState(depth > base, "No scissor box to pop");
+        QuadBatch.flush();
+        depth--;
+        if (depth > base) {
+            apply();
         } else {
-            HarmonicsCore.logger.error("Scissor count limit reached: " + max);
+            Render2D.backend().disableScissor();
         }
     }
 
-    private void resume() {
-        scissor(left, top, right - left + 1, bottom - top + 1);
-        glEnable(GL_SCISSOR_TEST);
+    private static void apply() {
+        int i = (depth - 1) * 4;
+        Render2D.backend().enableScissor(boxes[i], boxes[i + 1], boxes[i + 2] - boxes[i], boxes[i + 3] - boxes[i + 1]);
+    }
+
+    public static boolean isActive() {
+        return depth > base;
     }
 
-    public void destroy() {
-        if (index < lastObject) {
-            HarmonicsCore.logger.error("There are scissors below this one");
+    /**
+     * @return {@code true} if the given rectangle intersects the current clip box, or if there is no clip box.
+     */
+    public static boolean isVisible(int x, int y, int width, int height) {
+        if (depth == base) {
+            return true;
         }
+        int i = (depth - 1) * 4;
+        return x < boxes[i + 2] && x + width > boxes[i] && y < boxes[i + 3] && y + height > boxes[i + 1];
+    }
 
-        glDisable(GL_SCISSOR_TEST);
+    public static int getClipLeft() {
+        return depth > base ? boxes[(depth - 1) * 4] : Integer.MIN_VALUE;
+    }
 
-        objects[index] = null;
-        lastObject--;
+    public static int getClipTop() {
+        return depth > base ? boxes[(depth - 1) * 4 + 1] : Integer.MIN_VALUE;
+    }
 
-        if (lastObject > -1) {
-            objects[lastObject].resume(); // Resuming previous scissor
-        }
+    public static int getClipRight() {
+        return depth > base ? boxes[(depth - 1) * 4 + 2] : Integer.MAX_VALUE;
     }
 
-    private static void scissor(int x, int y, int width, int height) {
-        if (width < 0) {
-            width = 0;
+    public static int getClipBottom() {
+        return depth > base ? boxes[(depth - 1) * 4 + 3] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Start a new, independent clip stack for rendering into an offscreen target. Boxes pushed before this call neither apply to nor
+     * constrain the boxes pushed afterwards, until {@link #restore()}.
+     */
+    static void isolate() {
+        if (savedBaseCount == savedBases.length) {
+            savedBases = Arrays.copyOf(savedBases, savedBases.length * 2);
         }
-        if (height < 0) {
-            height = 0;
+        savedBases[savedBaseCount++] = base;
+        base = depth;
+        Render2D.backend().disableScissor();
+    }
+
+    static void restore() {
+        Preconditions.checkState(savedBaseCount > 0);
+        Preconditions.checkState(depth == base, "Scissor boxes pushed inside a render target must be popped before it ends");
+        base = savedBases[--savedBaseCount];
+        if (depth > base) {
+            apply();
         }
-        glScissor(x, y, width, height);
     }
 }
@@ -0,0 +1,278 @@
+package powerlessri.harmonics.gui;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Editable text stored in a gap buffer, together with a Fenwick tree of glyph widths (in unscaled font pixels, see {@link
+ * TextMeasurements#getCharWidth(char)}) over the buffer slots.
+ * <p>
+ * Edits at the gap only touch the edited characters, and moving the gap costs the distance moved, so typing or deleting near the cursor
+ * does not depend on the length of the text. The width of any range and the index at a given width are found in {@code O(log n)}, which
+ * is what text fields need to position the cursor and pick the visible part of the text.
+ * <p>
+ * Slots inside the gap always have a width of 0 in the tree.
+ */
+public final class TextBuffer implements CharSequence {
+
+    private static final int MIN_CAPACITY = 16;
+    // Moving the gap further than this rebuilds the tree instead of updating it once per moved character
+    private static final int MAX_INCREMENTAL_MOVE = 64;
+
+    private char[] chars;
+    private int gapStart;
+    private int gapEnd;
+    // 1-based Fenwick tree over the slots of chars
+    private float[] tree;
+    private int measuredGeneration;
+
+    private String string;
+
+    public TextBuffer() {
+        this("");
+    }
+
+    public TextBuffer(String text) {
+        setText(text);
+    }
+
+    public void setText(String text) {
+        int capacity = Math.max(MIN_CAPACITY, text.length() * 2);
+        chars = new char[capacity];
+        text.getChars(0, text.length(), chars, 0);
+        gapStart = text.length();
+        gapEnd = capacity;
+        string = text;
+        rebuildTree();
+    }
+
+    /**
+     * Replace the characters in {@code [start, end)} with the given text.
+     */
+    public void replace(int start, int end, String replacement) {
+        Preconditions.checkPositionIndexes(start, end, length());
+        validate();
+        moveGap(start);
+        // Delete by growing the gap over the removed characters
+        for (int slot = gapEnd; slot < gapEnd + (end - start); slot++) {
+            update(slot, -slotWidth(slot));
+        }
+        gapEnd += end - start;
+
+        ensureGap(replacement.length());
+        for (int i = 0; i < replacement.length(); i++) {
+            char c = replacement.charAt(i);
+            chars[gapStart] = c;
+            update(gapStart, TextMeasurements.getCharWidth(c));
+            gapStart++;
+        }
+        string = null;
+    }
+
+    public void insert(int index, String text) {
+        replace(index, index, text);
+    }
+
+    public void delete(int start, int end) {
+        replace(start, end, "");
+    }
+
+    @Override
+    public int length() {
+        return chars.length - (gapEnd - gapStart);
+    }
+
+    @Override
+    public char charAt(int index) {
+        Preconditions.checkElementIndex(index, length());
+        return chars[toSlot(index)];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(start, end);
+    }
+
+    public String substring(int start, int end) {
+        Preconditions.checkPositionIndexes(start, end, length());
+        if (string != null) {
+            return string.substring(start, end);
+        }
+        StringBuilder builder = new StringBuilder(end - start);
+        if (start < gapStart) {
+            builder.append(chars, start, Math.min(end, gapStart) - start);
+        }
+        if (end > gapStart) {
+            int from = Math.max(start, gapStart);
+            builder.append(chars, toSlot(from), end - from);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return The whole text. The string is cached until the next edit.
+     */
+    @Override
+    public String toString() {
+        if (string == null) {
+            string = substring(0, length());
+        }
+        return string;
+    }
+
+    /**
+     * @return Width of the characters in {@code [0, index)}.
+     */
+    public float getPrefixWidth(int index) {
+        Preconditions.checkPositionIndex(index, length());
+        validate();
+        // Slots in the gap have no width, so the gap can be included for indices after it
+        return prefixSum(index <= gapStart ? index : index + (gapEnd - gapStart));
+    }
+
+    /**
+     * @return Width of the characters in {@code [start, end)}.
+     */
+    public float getWidth(int start, int end) {
+        return getPrefixWidth(end) - getPrefixWidth(start);
+    }
+
+    /**
+     * @return The largest index such that the characters before it are at most {@code width} wide.
+     */
+    public int getIndexAtWidth(float width) {
+        validate();
+        int slots = chars.length;
+        int position = 0;
+        float remaining = width;
+        for (int step = Integer.highestOneBit(slots); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= slots && tree[next] <= remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        // position is the number of slots that fit, convert it back to a text index
+        if (position <= gapStart) {
+            return position;
+        }
+        if (position < gapEnd) {
+            return gapStart;
+        }
+        return position - (gapEnd - gapStart);
+    }
+
+    /**
+     * @return The smallest index such that the characters before it are at least {@code width} wide, or the length of the text.
+     */
+    public int getIndexAfterWidth(float width) {
+        int index = getIndexAtWidth(width);
+        if (index < length() && getPrefixWidth(index) < width) {
+            index++;
+        }
+        return index;
+    }
+
+    private int toSlot(int index) {
+        return index < gapStart ? index : index + (gapEnd - gapStart);
+    }
+
+    private void moveGap(int index) {
+        if (index == gapStart) {
+            return;
+        }
+        boolean incremental = Math.abs(index - gapStart) <= MAX_INCREMENTAL_MOVE;
+        if (index < gapStart) {
+            // Characters in [index, gapStart) move to the end of the gap
+            int count = gapStart - index;
+            for (int i = count - 1; i >= 0; i--) {
+                int from = index + i;
+                int to = gapEnd - count + i;
+                chars[to] = chars[from];
+                if (incremental) {
+                    float width = slotWidth(from);
+                    update(from, -width);
+                    update(to, width);
+                }
+            }
+            gapStart = index;
+            gapEnd -= count;
+        } else {
+            // Characters after the gap move to its start
+            int count = index - gapStart;
+            for (int i = 0; i < count; i++) {
+                int from = gapEnd + i;
+                int to = gapStart + i;
+                chars[to] = chars[from];
+                if (incremental) {
+                    float width = slotWidth(from);
+                    update(from, -width);
+                    update(to, width);
+                }
+            }
+            gapStart += count;
+            gapEnd += count;
+        }
+        if (!incremental) {
+            rebuildTree();
+        }
+    }
+
+    private void ensureGap(int size) {
+        if (gapEnd - gapStart >= size) {
+            return;
+        }
+        int length = length();
+        int capacity = Math.max(MIN_CAPACITY, Math.max(chars.length * 2, (length + size) * 2));
+        char[] newChars = new char[capacity];
+        int tail = chars.length - gapEnd;
+        System.arraycopy(chars, 0, newChars, 0, gapStart);
+        System.arraycopy(chars, gapEnd, newChars, capacity - tail, tail);
+        chars = newChars;
+        gapEnd = capacity - tail;
+        rebuildTree();
+    }
+
+    private void validate() {
+        if (measuredGeneration != TextMeasurements.getGeneration()) {
+            rebuildTree();
+        }
+    }
+
+    private void rebuildTree() {
+        measuredGeneration = TextMeasurements.getGeneration();
+        int slots = chars.length;
+        tree = new float[slots + 1];
+        for (int slot = 0; slot < slots; slot++) {
+            if (slot < gapStart || slot >= gapEnd) {
+                tree[slot + 1] = TextMeasurements.getCharWidth(chars[slot]);
+            }
+        }
+        for (int i = 1; i <= slots; i++) {
+            int parent = i + (i & -i);
+            if (parent <= slots) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private float slotWidth(int slot) {
+        return TextMeasurements.getCharWidth(chars[slot]);
+    }
+
+    private void update(int slot, float delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return Sum of the widths of slots in {@code [0, slots)}.
+     */
+    private float prefixSum(int slots) {
+        float sum = 0F;
+        for (int i = slots; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
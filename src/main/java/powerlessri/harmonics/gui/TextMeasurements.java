@@ -0,0 +1,189 @@
+package powerlessri.harmonics.gui;
+
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.IReloadableResourceManager;
+import net.minecraftforge.resource.ISelectiveResourceReloadListener;
+import net.minecraftforge.resource.VanillaResourceType;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
+
+/**
+ * Shared cache of string widths, in unscaled font pixels as returned by {@link IRenderBackend#getStringWidth(String)}. All {@link
+ * ITextRenderer} implementations and widgets should measure text through here instead of the font renderer directly.
+ * <p>
+ * Widths of recently measured strings are kept in a bounded least-recently-used cache. Strings that miss the cache and contain no
+ * formatting codes are measured by summing glyph widths from per-glyph tables, which are filled lazily in pages of 256 characters.
+ * Strings with formatting codes are measured by the backend, since e.g. bold text is wider.
+ * <p>
+ * Font scale is not part of the key: {@link ITextRenderer} implementations scale the unscaled width themselves. The cache is invalidated
+ * on resource and language reloads (see {@link #registerReloadListener()}), when the render backend is replaced, and when the unicode
+ * font option changes. The option is only read by {@link #checkFontOptions()}, which is done once per frame by widget screens.
+ * <p>
+ * This cache is not thread safe and should only be used from the render thread.
+ */
+public final class TextMeasurements {
+
+    private TextMeasurements() {
+    }
+
+    public static final int MAX_ENTRIES = 4096;
+
+    private static final char FORMATTING_CODE = '\u00a7';
+
+    private static final Object2IntLinkedOpenHashMap<String> widths = new Object2IntLinkedOpenHashMap<>();
+    private static final float[][] glyphPages = new float[256][];
+
+    private static IRenderBackend measuredBackend;
+    private static boolean measuredUnicode;
+
+    private static int generation = 0;
+    private static int hits = 0;
+    private static int misses = 0;
+
+    static {
+        widths.defaultReturnValue(-1);
+    }
+
+    /**
+     * @return Width of the given string in unscaled font pixels.
+     */
+    public static int getStringWidth(String text) {
+        GuiMetrics.onTextMeasured();
+        checkValid();
+        int width = widths.getAndMoveToLast(text);
+        if (width != -1) {
+            hits++;
+            return width;
+        }
+
+        misses++;
+        width = text.indexOf(FORMATTING_CODE) == -1 ? sumGlyphWidths(text) : measuredBackend.getStringWidth(text);
+        widths.putAndMoveToLast(text, width);
+        if (widths.size() > MAX_ENTRIES) {
+            widths.removeFirstInt();
+        }
+        return width;
+    }
+
+    /**
+     * @return The longest prefix of the given string that is at most {@code width} unscaled font pixels wide.
+     */
+    public static String trimToWidth(String text, int width) {
+        GuiMetrics.onTextMeasured();
+        checkValid();
+        if (text.indexOf(FORMATTING_CODE) != -1) {
+            return measuredBackend.trimStringToWidth(text, width);
+        }
+        // Same as the vanilla font renderer: keep adding glyphs until the sum exceeds the width
+        float sum = 0F;
+        for (int i = 0; i < text.length(); i++) {
+            sum += glyphWidth(text.charAt(i));
+            if (sum > width) {
+                return text.substring(0, i);
+            }
+        }
+        return text;
+    }
+
+    public static float getCharWidth(char c) {
+        checkValid();
+        return glyphWidth(c);
+    }
+
+    private static float glyphWidth(char c) {
+        float[] page = glyphPages[c >>> 8];
+        if (page == null) {
+            page = new float[256];
+            int base = c & 0xff00;
+            for (int i = 0; i < 256; i++) {
+                page[i] = measuredBackend.getCharWidth((char) (base | i));
+            }
+            glyphPages[c >>> 8] = page;
+        }
+        return page[c & 0xff];
+    }
+
+    private static int sumGlyphWidths(String text) {
+        float sum = 0F;
+        for (int i = 0; i < text.length(); i++) {
+            sum += glyphWidth(text.charAt(i));
+        }
+        return (int) Math.ceil(sum);
+    }
+
+    private static void checkValid() {
+        IRenderBackend backend = Render2D.backend();
+        if (backend != measuredBackend) {
+            invalidate();
+            measuredBackend = backend;
+            measuredUnicode = backend.isUnicodeFont();
+        }
+    }
+
+    /**
+     * Invalidate the cache if the unicode font option of the backend has changed. The option can only be changed from the options screen,
+     * so checking it when a screen is initialized and at the start of its frames is enough.
+     */
+    public static void checkFontOptions() {
+        checkValid();
+        boolean unicode = measuredBackend.isUnicodeFont();
+        if (unicode != measuredUnicode) {
+            invalidate();
+            measuredUnicode = unicode;
+        }
+    }
+
+    /**
+     * Discard all cached string and glyph widths.
+     */
+    public static void invalidate() {
+        generation++;
+        widths.clear();
+        for (int i = 0; i < glyphPages.length; i++) {
+            glyphPages[i] = null;
+        }
+    }
+
+    public static void registerReloadListener() {
+        IReloadableResourceManager resourceManager = (IReloadableResourceManager) Minecraft.getInstance().getResourceManager();
+        resourceManager.addReloadListener((ISelectiveResourceReloadListener) (manager, predicate) -> {
+            // Fonts are reloaded together with textures
+            if (predicate.test(VanillaResourceType.TEXTURES) || predicate.test(VanillaResourceType.LANGUAGES)) {
+                invalidate();
+            }
+        });
+    }
+
+    /**
+     * @return A number that changes every time the cache is invalidated, for users that keep measurements of their own.
+     */
+    public static int getGeneration() {
+        checkValid();
+        return generation;
+    }
+
+    public static int getSize() {
+        return widths.size();
+    }
+
+    public static int getHits() {
+        return hits;
+    }
+
+    public static int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return Ratio of cache hits to all string measurements since the last {@link #resetStatistics()}, or 0 if nothing was measured.
+     */
+    public static float getHitRate() {
+        int total = hits + misses;
+        return total == 0 ? 0F : (float) hits / total;
+    }
+
+    public static void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+}
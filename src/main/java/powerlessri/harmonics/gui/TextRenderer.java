@@ -6,12 +6,34 @@ public abstract class TextRenderer {
     }
 
     private static final VanillaTextRenderer VANILLA_TEXT_RENDERER = new VanillaTextRenderer();
+    private static final GlyphTextRenderer GLYPH_TEXT_RENDERER = new GlyphTextRenderer();
 
     public static VanillaTextRenderer vanilla() {
         return VANILLA_TEXT_RENDERER;
     }
 
+    /**
+     * Only needed for code that uses the stateful methods of {@link ITextRenderer}. Otherwise, pass a {@link TextStyle} to the shared
+     * {@link #vanilla()} instead.
+     */
     public static VanillaTextRenderer newVanilla() {
         return new VanillaTextRenderer();
     }
+
+    /**
+     * @see GlyphTextRenderer
+     */
+    public static GlyphTextRenderer glyphs() {
+        return GLYPH_TEXT_RENDERER;
+    }
+
+    /**
+     * Only needed for code that uses the stateful methods of {@link ITextRenderer}. Otherwise, pass a {@link TextStyle} to the shared
+     * {@link #glyphs()} instead.
+     *
+     * @see GlyphTextRenderer
+     */
+    public static GlyphTextRenderer newGlyphs() {
+        return new GlyphTextRenderer();
+    }
 }
@@ -0,0 +1,155 @@
+package powerlessri.harmonics.gui;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Objects;
+
+/**
+ * Immutable description of how text is drawn: its color, its scale relative to the default font and its formatting. Styles are
+ * interned, so widgets with the same look share one instance, and styles can be compared by identity.
+ * <p>
+ * Styles are meant to be passed to the style-taking methods of {@link ITextRenderer}, which do not change the state of the renderer. This
+ * way, a single shared renderer such as {@link TextRenderer#glyphs()} can be used by all widgets.
+ */
+public final class TextStyle {
+
+    public static final int BOLD = 1;
+    public static final int ITALIC = 1 << 1;
+    public static final int UNDERLINE = 1 << 2;
+    public static final int STRIKE_THROUGH = 1 << 3;
+    public static final int OBFUSCATED = 1 << 4;
+
+    private static final char[] FORMATTING_CODES = {'l', 'o', 'n', 'm', 'k'};
+    private static final Interner<TextStyle> INTERNER = Interners.newWeakInterner();
+
+    public static final TextStyle DEFAULT = of(0xffffff);
+    public static final TextStyle BLACK = of(0x000000);
+
+    public static TextStyle of(int color) {
+        return of(color, 1F, 0);
+    }
+
+    public static TextStyle of(int color, float scale) {
+        return of(color, scale, 0);
+    }
+
+    public static TextStyle of(int color, float scale, int formatting) {
+        return INTERNER.intern(new TextStyle(color, scale, formatting));
+    }
+
+    private final int color;
+    private final float scale;
+    private final int formatting;
+    // Formatting codes put in front of strings to make the vanilla font renderer apply the formatting
+    private final String prefix;
+
+    private TextStyle(int color, float scale, int formatting) {
+        this.color = color;
+        this.scale = scale;
+        this.formatting = formatting;
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < FORMATTING_CODES.length; i++) {
+            if ((formatting & (1 << i)) != 0) {
+                prefix.append('\u00a7').append(FORMATTING_CODES[i]);
+            }
+        }
+        this.prefix = prefix.toString();
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    /**
+     * @return Scale of the text relative to the default font height of the render backend.
+     */
+    public float getScale() {
+        return scale;
+    }
+
+    public float getFontHeight() {
+        return scale * Render2D.backend().getFontHeight();
+    }
+
+    /**
+     * @return Combination of {@link #BOLD}, {@link #ITALIC}, {@link #UNDERLINE}, {@link #STRIKE_THROUGH} and {@link #OBFUSCATED}.
+     */
+    public int getFormatting() {
+        return formatting;
+    }
+
+    public boolean hasFormatting() {
+        return formatting != 0;
+    }
+
+    public boolean isBold() {
+        return (formatting & BOLD) != 0;
+    }
+
+    public boolean isItalic() {
+        return (formatting & ITALIC) != 0;
+    }
+
+    public boolean isUnderlined() {
+        return (formatting & UNDERLINE) != 0;
+    }
+
+    public boolean isStrikeThrough() {
+        return (formatting & STRIKE_THROUGH) != 0;
+    }
+
+    public TextStyle withColor(int color) {
+        return color == this.color ? this : of(color, scale, formatting);
+    }
+
+    public TextStyle withScale(float scale) {
+        return scale == this.scale ? this : of(color, scale, formatting);
+    }
+
+    public TextStyle withFontHeight(float fontHeight) {
+        return withScale(fontHeight / Render2D.backend().getFontHeight());
+    }
+
+    public TextStyle withFormatting(int formatting) {
+        return formatting == this.formatting ? this : of(color, scale, formatting);
+    }
+
+    public TextStyle withFormatting(int flag, boolean enabled) {
+        return withFormatting(enabled ? formatting | flag : formatting & ~flag);
+    }
+
+    /**
+     * @return The given text with the formatting codes of this style in front of it, as understood by the vanilla font renderer.
+     */
+    public String format(String text) {
+        return prefix.isEmpty() ? text : prefix + text;
+    }
+
+    /**
+     * @return Length of the formatting codes that {@link #format(String)} adds.
+     */
+    public int getPrefixLength() {
+        return prefix.length();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TextStyle that = (TextStyle) o;
+        return color == that.color &&
+                Float.compare(that.scale, scale) == 0 &&
+                formatting == that.formatting;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(color, scale, formatting);
+    }
+
+    @Override
+    public String toString() {
+        return "TextStyle{color=" + Integer.toHexString(color) + ", scale=" + scale + ", formatting=" + formatting + "}";
+    }
+}
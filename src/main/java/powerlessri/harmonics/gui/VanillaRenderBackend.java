@@ -0,0 +1,193 @@
+package powerlessri.harmonics.gui;
+
+import com.google.common.base.Preconditions;
+import com.mojang.blaze3d.platform.GLX;
+import com.mojang.blaze3d.platform.GlStateManager;
+import com.mojang.blaze3d.platform.GlStateManager.DestFactor;
+import com.mojang.blaze3d.platform.GlStateManager.SourceFactor;
+import net.minecraft.client.MainWindow;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.WorldVertexBufferUploader;
+import net.minecraft.util.ResourceLocation;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static org.lwjgl.opengl.GL11.*;
+
+public class VanillaRenderBackend implements IRenderBackend {
+
+    private final WorldVertexBufferUploader uploader = new WorldVertexBufferUploader();
+
+    // Targets that have begun but not ended yet, innermost last
+    private final Deque<VanillaRenderTarget> targets = new ArrayDeque<>();
+
+    VanillaRenderBackend() {
+    }
+
+    @Override
+    public void setTextureEnabled(boolean enabled) {
+        if (enabled) {
+            GlStateManager.enableTexture();
+        } else {
+            GlStateManager.disableTexture();
+        }
+    }
+
+    @Override
+    public void setBlendEnabled(boolean enabled) {
+        if (enabled) {
+            GlStateManager.enableBlend();
+            GlStateManager.blendFuncSeparate(SourceFactor.SRC_ALPHA, DestFactor.ONE_MINUS_SRC_ALPHA, SourceFactor.ONE, DestFactor.ZERO);
+        } else {
+            GlStateManager.disableBlend();
+        }
+    }
+
+    @Override
+    public void setAlphaTestEnabled(boolean enabled) {
+        if (enabled) {
+            GlStateManager.enableAlphaTest();
+        } else {
+            GlStateManager.disableAlphaTest();
+        }
+    }
+
+    @Override
+    public void setSmoothShading(boolean smooth) {
+        GlStateManager.shadeModel(smooth ? GL_SMOOTH : GL_FLAT);
+    }
+
+    @Override
+    public void setColor(int color) {
+        int alpha = (color >> 24) & 255;
+        int red = (color >> 16) & 255;
+        int green = (color >> 8) & 255;
+        int blue = color & 255;
+        GlStateManager.color4f(red / 255F, green / 255F, blue / 255F, alpha / 255F);
+    }
+
+    @Override
+    public void bindTexture(ResourceLocation texture) {
+        Minecraft.getInstance().getTextureManager().bindTexture(texture);
+    }
+
+    @Override
+    public void draw(BufferBuilder buffer) {
+        // This also resets the buffer
+        uploader.draw(buffer);
+    }
+
+    @Override
+    public void beginLines(float width) {
+        glLineWidth(width);
+        glBegin(GL_LINES);
+    }
+
+    @Override
+    public void lineVertex(float x, float y, float z) {
+        glVertex3f(x, y, z);
+    }
+
+    @Override
+    public void endLines() {
+        glEnd();
+    }
+
+    @Override
+    public void enableScissor(int x, int y, int width, int height) {
+        MainWindow mainWindow = Minecraft.getInstance().mainWindow;
+        double scale = mainWindow.getGuiScaleFactor();
+        VanillaRenderTarget target = targets.peekLast();
+        int framebufferHeight = mainWindow.getFramebufferHeight();
+        if (target != null) {
+            x -= target.getOriginX();
+            y -= target.getOriginY();
+            framebufferHeight = target.getFramebufferHeight();
+        }
+        // GL scissor boxes start from the bottom left corner
+        glScissor((int) (x * scale), (int) (framebufferHeight - (y + height) * scale), (int) (width * scale), (int) (height * scale));
+        glEnable(GL_SCISSOR_TEST);
+    }
+
+    @Override
+    public void disableScissor() {
+        glDisable(GL_SCISSOR_TEST);
+    }
+
+    @Nullable
+    @Override
+    public IRenderTarget createRenderTarget(int width, int height) {
+        if (!GLX.isUsingFBOs()) {
+            return null;
+        }
+        return new VanillaRenderTarget(this, width, height);
+    }
+
+    void pushTarget(VanillaRenderTarget target) {
+        targets.addLast(target);
+    }
+
+    void popTarget(VanillaRenderTarget target) {
+        Preconditions.checkState(targets.peekLast() == target, "Render targets must end in the reverse order they began");
+        targets.removeLast();
+        VanillaRenderTarget previous = targets.peekLast();
+        if (previous != null) {
+            previous.bind();
+        } else {
+            Minecraft.getInstance().getFramebuffer().bindFramebuffer(true);
+        }
+    }
+
+    @Override
+    public void pushMatrix() {
+        GlStateManager.pushMatrix();
+    }
+
+    @Override
+    public void popMatrix() {
+        GlStateManager.popMatrix();
+    }
+
+    @Override
+    public void translate(float x, float y, float z) {
+        GlStateManager.translatef(x, y, z);
+    }
+
+    @Override
+    public void scale(float x, float y, float z) {
+        GlStateManager.scalef(x, y, z);
+    }
+
+    @Override
+    public void drawString(String text, float x, float y, int color) {
+        Minecraft.getInstance().fontRenderer.drawString(text, x, y, color);
+    }
+
+    @Override
+    public int getStringWidth(String text) {
+        return Minecraft.getInstance().fontRenderer.getStringWidth(text);
+    }
+
+    @Override
+    public float getCharWidth(char c) {
+        return Minecraft.getInstance().fontRenderer.getCharWidth(c);
+    }
+
+    @Override
+    public String trimStringToWidth(String text, int width) {
+        return Minecraft.getInstance().fontRenderer.trimStringToWidth(text, width);
+    }
+
+    @Override
+    public boolean isUnicodeFont() {
+        return Minecraft.getInstance().gameSettings.forceUnicodeFont;
+    }
+
+    @Override
+    public int getFontHeight() {
+        return Minecraft.getInstance().fontRenderer.FONT_HEIGHT;
+    }
+}
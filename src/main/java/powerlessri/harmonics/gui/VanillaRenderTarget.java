@@ -0,0 +1,144 @@
+package powerlessri.harmonics.gui;
+
+import com.mojang.blaze3d.platform.GlStateManager;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.shader.Framebuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Render target backed by a {@link Framebuffer} with a depth buffer. The framebuffer has the size of the target in real pixels, so that
+ * the cached contents look exactly the same as if they were rendered directly.
+ */
+class VanillaRenderTarget implements IRenderTarget {
+
+    private final VanillaRenderBackend backend;
+    private Framebuffer framebuffer;
+    private int width;
+    private int height;
+    private double scale;
+
+    private int originX;
+    private int originY;
+
+    VanillaRenderTarget(VanillaRenderBackend backend, int width, int height) {
+        this.backend = backend;
+        this.width = width;
+        this.height = height;
+        allocate();
+    }
+
+    private void allocate() {
+        if (framebuffer != null) {
+            framebuffer.deleteFramebuffer();
+        }
+        scale = Minecraft.getInstance().mainWindow.getGuiScaleFactor();
+        int framebufferWidth = Math.max(1, (int) Math.ceil(width * scale));
+        int framebufferHeight = Math.max(1, (int) Math.ceil(height * scale));
+        framebuffer = new Framebuffer(framebufferWidth, framebufferHeight, true, Minecraft.IS_RUNNING_ON_MAC);
+        framebuffer.setFramebufferColor(0F, 0F, 0F, 0F);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        if (this.width != width || this.height != height) {
+            this.width = width;
+            this.height = height;
+            allocate();
+        }
+    }
+
+    @Override
+    public void begin(int originX, int originY) {
+        // GUI scale changed since the framebuffer was created
+        if (scale != Minecraft.getInstance().mainWindow.getGuiScaleFactor()) {
+            allocate();
+        }
+        this.originX = originX;
+        this.originY = originY;
+
+        backend.pushTarget(this);
+        bind();
+
+        GlStateManager.matrixMode(GL_PROJECTION);
+        GlStateManager.pushMatrix();
+        GlStateManager.loadIdentity();
+        GlStateManager.ortho(0D, framebuffer.framebufferWidth / scale, framebuffer.framebufferHeight / scale, 0D, 1000D, 3000D);
+        GlStateManager.matrixMode(GL_MODELVIEW);
+        GlStateManager.pushMatrix();
+        GlStateManager.loadIdentity();
+        GlStateManager.translatef(-originX, -originY, -2000F);
+    }
+
+    @Override
+    public void clear() {
+        GlStateManager.clearColor(0F, 0F, 0F, 0F);
+        GlStateManager.clearDepth(1D);
+        GlStateManager.clear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT, Minecraft.IS_RUNNING_ON_MAC);
+    }
+
+    /**
+     * Make this the current framebuffer again, e.g. after a nested target has ended.
+     */
+    void bind() {
+        framebuffer.bindFramebuffer(true);
+    }
+
+    int getOriginX() {
+        return originX;
+    }
+
+    int getOriginY() {
+        return originY;
+    }
+
+    int getFramebufferHeight() {
+        return framebuffer.framebufferHeight;
+    }
+
+    @Override
+    public void end() {
+        GlStateManager.matrixMode(GL_PROJECTION);
+        GlStateManager.popMatrix();
+        GlStateManager.matrixMode(GL_MODELVIEW);
+        GlStateManager.popMatrix();
+        backend.popTarget(this);
+    }
+
+    @Override
+    public void blit(int x, int y, float z) {
+        float x2 = x + (float) (framebuffer.framebufferWidth / scale);
+        float y2 = y + (float) (framebuffer.framebufferHeight / scale);
+
+        GlStateManager.enableTexture();
+        backend.setBlendEnabled(true);
+        GlStateManager.color4f(1F, 1F, 1F, 1F);
+        framebuffer.bindFramebufferTexture();
+        Tessellator tessellator = Tessellator.getInstance();
+        BufferBuilder buffer = tessellator.getBuffer();
+        buffer.begin(GL_QUADS, DefaultVertexFormats.POSITION_TEX);
+        // Framebuffer textures are stored bottom row first
+        PackedVertexWriter.texturedRect(buffer, x, y, x2, y2, z, 0F, 1F, 1F, 0F);
+        tessellator.draw();
+        framebuffer.unbindFramebufferTexture();
+        GlStateManager.disableBlend();
+    }
+
+    @Override
+    public void delete() {
+        framebuffer.deleteFramebuffer();
+    }
+}
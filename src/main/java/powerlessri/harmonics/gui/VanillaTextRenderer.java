@@ -1,104 +1,134 @@
 package powerlessri.harmonics.gui;
 
-import com.mojang.blaze3d.platform.GlStateManager;
-import net.minecraft.client.Minecraft;
-
 import java.util.List;
 
 public class VanillaTextRenderer implements ITextRenderer {
 
-    private float fontHeight = getDefaultFontHeight();
-    private float scaleFactor = 1F;
-    private int textColor = 0xffffff;
+    private TextStyle style = TextStyle.DEFAULT;
 
     VanillaTextRenderer() {
     }
 
     @Override
-    public void renderText(String text, int x, int y, float z) {
-        GlStateManager.pushMatrix();
-        GlStateManager.translated(x, y, z + 0.1F);
-        GlStateManager.scaled(scaleFactor, scaleFactor, 1F);
-        Minecraft.getInstance().fontRenderer.drawString(text, 0, 0, textColor);
-        GlStateManager.popMatrix();
+    public void renderText(TextStyle style, String text, int x, int y, float z) {
+        QuadBatch.flush();
+        IRenderBackend backend = Render2D.backend();
+        backend.pushMatrix();
+        backend.translate(x, y, z + 0.1F);
+        backend.scale(style.getScale(), style.getScale(), 1F);
+        backend.drawString(style.format(text), 0, 0, style.getColor());
+        backend.popMatrix();
     }
 
     @Override
-    public void renderLines(List<String> text, int x, int y, float z) {
-        GlStateManager.pushMatrix();
-        GlStateManager.translatef(x, y, z + 0.1F);
-        GlStateManager.scalef(scaleFactor, scaleFactor, 1F);
+    public void renderLines(TextStyle style, List<String> text, int x, int y, float z) {
+        QuadBatch.flush();
+        IRenderBackend backend = Render2D.backend();
+        backend.pushMatrix();
+        backend.translate(x, y, z + 0.1F);
+        backend.scale(style.getScale(), style.getScale(), 1F);
+        // Translation is applied before scaling, so the line height is in unscaled pixels
+        float lineHeight = backend.getFontHeight();
         for (String line : text) {
-            Minecraft.getInstance().fontRenderer.drawString(line, 0, 0, textColor);
-            GlStateManager.translatef(0F, fontHeight, 0F);
+            backend.drawString(style.format(line), 0, 0, style.getColor());
+            backend.translate(0F, lineHeight, 0F);
         }
-        GlStateManager.popMatrix();
+        backend.popMatrix();
     }
 
     @Override
-    public int calculateWidth(String text) {
-        return (int) (Minecraft.getInstance().fontRenderer.getStringWidth(text) * scaleFactor);
+    public int calculateWidth(TextStyle style, String text) {
+        return (int) (TextMeasurements.getStringWidth(style.format(text)) * style.getScale());
     }
 
     @Override
-    public String trimToWidth(String text, int width) {
-        return Minecraft.getInstance().fontRenderer.trimStringToWidth(text, (int) (width * getInverseScaleFactor()));
+    public String trimToWidth(TextStyle style, String text, int width) {
+        String trimmed = TextMeasurements.trimToWidth(style.format(text), (int) (width / style.getScale()));
+        return trimmed.substring(Math.min(style.getPrefixLength(), trimmed.length()));
     }
 
     @Override
-    public float getFontHeight() {
-        return fontHeight;
+    public void renderText(String text, int x, int y, float z) {
+        renderText(style, text, x, y, z);
     }
 
     @Override
-    public void setFontHeight(float fontHeight) {
-        this.fontHeight = fontHeight;
-        this.scaleFactor = fontHeight / getDefaultFontHeight();
+    public void renderLines(List<String> text, int x, int y, float z) {
+        renderLines(style, text, x, y, z);
     }
 
-    public float getScaleFactor() {
-        return scaleFactor;
+    @Override
+    public int calculateWidth(String text) {
+        return calculateWidth(style, text);
     }
 
-    public float getInverseScaleFactor() {
-        return 1F / scaleFactor;
+    @Override
+    public String trimToWidth(String text, int width) {
+        return trimToWidth(style, text, width);
     }
 
-    public void useDefaultFontHeight() {
-        setFontHeight(getDefaultFontHeight());
+    @Override
+    public TextStyle getTextStyle() {
+        return style;
     }
 
-    public float getDefaultFontHeight() {
-        return Minecraft.getInstance().fontRenderer.FONT_HEIGHT;
+    @Override
+    public void setTextStyle(TextStyle style) {
+        this.style = style;
     }
 
     @Override
-    public int getTextColor() {
-        return textColor;
+    public float getFontHeight() {
+        return style.getFontHeight();
     }
 
     @Override
-    public void setTextColor(int textColor) {
-        this.textColor = textColor;
+    public void setFontHeight(float fontHeight) {
+        style = style.withFontHeight(fontHeight);
     }
 
-    public void useDefaultTextColor() {
-        this.textColor = 0xffffff;
+    @Override
+    public int getTextColor() {
+        return style.getColor();
+    }
+
+    @Override
+    public void setTextColor(int textColor) {
+        style = style.withColor(textColor);
     }
 
-    // TODO
     @Override
     public void useItalics(boolean italics) {
-        throw new UnsupportedOperationException();
+        style = style.withFormatting(TextStyle.ITALIC, italics);
     }
 
     @Override
     public void useBold(boolean bold) {
-        throw new UnsupportedOperationException();
+        style = style.withFormatting(TextStyle.BOLD, bold);
     }
 
     @Override
     public void useStrikeThrough(boolean strikeThrough) {
-        throw new UnsupportedOperationException();
+        style = style.withFormatting(TextStyle.STRIKE_THROUGH, strikeThrough);
+    }
+
+    public float getScaleFactor() {
+        return style.getScale();
+    }
+
+    public float getInverseScaleFactor() {
+        return 1F / style.getScale();
+    }
+
+    public void useDefaultFontHeight() {
+        style = style.withScale(1F);
+    }
+
+    public float getDefaultFontHeight() {
+        return Render2D.backend().getFontHeight();
+    }
+
+    public void useDefaultTextColor() {
+        style = style.withColor(TextStyle.DEFAULT.getColor());
     }
 }
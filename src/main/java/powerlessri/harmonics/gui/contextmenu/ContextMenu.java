@@ -1,11 +1,11 @@
 package powerlessri.harmonics.gui.contextmenu;
 
 import com.google.common.collect.Iterables;
-import com.mojang.blaze3d.platform.GlStateManager;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.MouseHelper;
 import powerlessri.harmonics.Config;
 import powerlessri.harmonics.gui.Render2D;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.window.IPopupWindow;
@@ -47,6 +47,7 @@ public class ContextMenu implements IPopupWindow, WindowEventHandlerMixin, Windo
     }
 
     public void reflow() {
+        GuiMetrics.onReflow(this);
         int width = 0;
         int height = 0;
         int y = 0;
@@ -104,7 +105,7 @@ public class ContextMenu implements IPopupWindow, WindowEventHandlerMixin, Windo
     public void render(int mouseX, int mouseY, float particleTicks) {
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
 
-        GlStateManager.disableTexture();
+        disableTexture();
         beginColoredQuad();
         int x = getX();
         int y = getY();
@@ -113,7 +114,7 @@ public class ContextMenu implements IPopupWindow, WindowEventHandlerMixin, Windo
         int cy = getContentY();
         coloredRect(cx, cy, cx + getContentWidth(), cy + getContentHeight(), getZLevel(), 0xff3d3d3d);
         draw();
-        GlStateManager.enableTexture();
+        enableTexture();
 
         for (Section section : sections) {
             section.render(mouseX, mouseY, particleTicks);
@@ -1,6 +1,5 @@
 package powerlessri.harmonics.gui.contextmenu;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import net.minecraft.util.ResourceLocation;
 import powerlessri.harmonics.gui.Render2D;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
@@ -44,11 +43,11 @@ public class DefaultEntry extends AbstractWidget implements IEntry, LeafWidgetMi
         int y2 = getAbsoluteYBottom();
         if (isInside(mouseX, mouseY)) {
             IWindow parent = getWindow();
-            GlStateManager.disableTexture();
+            disableTexture();
             beginColoredQuad();
             coloredRect(x, y, parent.getContentX() + parent.getWidth() - parent.getBorderSize() * 2, y2, getZLevel(), 0xff3b86ff);
             draw();
-            GlStateManager.enableTexture();
+            enableTexture();
         }
 
         ResourceLocation icon = getIcon();
@@ -87,7 +86,7 @@ public class DefaultEntry extends AbstractWidget implements IEntry, LeafWidgetMi
     }
 
     protected int computeWidth() {
-        return MARGIN_SIDES + RENDERED_ICON_WIDTH + 2 + Render2D.fontRenderer().getStringWidth(getText()) + MARGIN_SIDES;
+        return MARGIN_SIDES + RENDERED_ICON_WIDTH + 2 + Render2D.textWidth(getText()) + MARGIN_SIDES;
     }
 
     protected int computeHeight() {
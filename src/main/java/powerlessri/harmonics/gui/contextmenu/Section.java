@@ -1,7 +1,8 @@
 package powerlessri.harmonics.gui.contextmenu;
 
 import com.google.common.base.Preconditions;
-import com.mojang.blaze3d.platform.GlStateManager;
+import powerlessri.harmonics.gui.Render2D;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
 import powerlessri.harmonics.gui.window.IWindow;
@@ -10,13 +11,12 @@ import java.awt.*;
 import java.util.List;
 import java.util.*;
 
-import static org.lwjgl.opengl.GL11.*;
 import static powerlessri.harmonics.gui.contextmenu.DefaultEntry.HALF_MARGIN_SIDES;
 import static powerlessri.harmonics.gui.contextmenu.DefaultEntry.MARGIN_SIDES;
 
 public class Section extends AbstractContainer<IEntry> {
 
-    private static final float LINE_COLOR = 125F / 256F;
+    private static final int LINE_COLOR = 0xff7d7d7d;
 
     private List<IEntry> entries = new ArrayList<>();
 
@@ -36,14 +36,12 @@ public class Section extends AbstractContainer<IEntry> {
         int bx = getAbsoluteX() + HALF_MARGIN_SIDES;
         int bx2 = getAbsoluteXRight() - HALF_MARGIN_SIDES;
         int by = getAbsoluteYBottom() + 1;
-        GlStateManager.disableTexture();
-        GlStateManager.color3f(LINE_COLOR, LINE_COLOR, LINE_COLOR);
-        glLineWidth(1F);
-        glBegin(GL_LINES);
-        glVertex3f(bx, by, getZLevel());
-        glVertex3f(bx2, by, getZLevel());
-        glEnd();
-        GlStateManager.enableTexture();
+        Render2D.disableTexture();
+        Render2D.color(LINE_COLOR);
+        Render2D.beginLines(1F);
+        Render2D.horizontalLine(bx, bx2, by, getZLevel());
+        Render2D.endLines();
+        Render2D.enableTexture();
     }
 
     public void attach(ContextMenu contextMenu) {
@@ -61,6 +59,7 @@ public class Section extends AbstractContainer<IEntry> {
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
         int width = 0;
         int height = 0;
         int y = 0;
@@ -0,0 +1,424 @@
+package powerlessri.harmonics.gui.debug;
+
+import com.google.common.base.MoreObjects;
+import powerlessri.harmonics.Config;
+import powerlessri.harmonics.gui.QuadBatch;
+import powerlessri.harmonics.gui.RenderStateTracker;
+import powerlessri.harmonics.gui.TextMeasurements;
+import powerlessri.harmonics.gui.screen.BackgroundGeometryCache;
+import powerlessri.harmonics.gui.widget.IWidget;
+import powerlessri.harmonics.gui.window.IWindow;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static powerlessri.harmonics.gui.Render2D.*;
+
+/**
+ * Per-frame counters of what a widget screen costs. Collection is enabled either through {@link #setEnabled(boolean)} or the {@code
+ * GuiMetricsOverlay} client config option, which also draws the counters of the last frame in the top right corner of the screen.
+ * <p>
+ * All hooks return immediately while collection is disabled. Counters of the last completed frame are available through {@link
+ * #getLastFrame()} and {@link #getLastFrame(IWindow)}. Events are counted towards the frame rendered after them.
+ * <p>
+ * Per-window draw calls and vertices are approximate, since quads batched by a window might only be submitted once the next window
+ * starts rendering.
+ */
+public final class GuiMetrics {
+
+    private GuiMetrics() {
+    }
+
+    public static final class Counters {
+
+        private int widgetsRendered;
+        private int widgetsCulled;
+        private int drawCalls;
+        private int vertices;
+        private int reflows;
+        private int eventsDispatched;
+        private int eventVisits;
+        private int maxEventDepth;
+        private int textMeasurements;
+        private int textCacheHits;
+        private int textCacheMisses;
+        private int backgroundCacheHits;
+        private int backgroundCacheMisses;
+        private int avoidedStateChanges;
+        private long redrawnArea;
+
+        private void reset() {
+            widgetsRendered = 0;
+            widgetsCulled = 0;
+            drawCalls = 0;
+            vertices = 0;
+            reflows = 0;
+            eventsDispatched = 0;
+            eventVisits = 0;
+            maxEventDepth = 0;
+            textMeasurements = 0;
+            textCacheHits = 0;
+            textCacheMisses = 0;
+            backgroundCacheHits = 0;
+            backgroundCacheMisses = 0;
+            avoidedStateChanges = 0;
+            redrawnArea = 0;
+        }
+
+        private void copyFrom(Counters other) {
+            widgetsRendered = other.widgetsRendered;
+            widgetsCulled = other.widgetsCulled;
+            drawCalls = other.drawCalls;
+            vertices = other.vertices;
+            reflows = other.reflows;
+            eventsDispatched = other.eventsDispatched;
+            eventVisits = other.eventVisits;
+            maxEventDepth = other.maxEventDepth;
+            textMeasurements = other.textMeasurements;
+            textCacheHits = other.textCacheHits;
+            textCacheMisses = other.textCacheMisses;
+            backgroundCacheHits = other.backgroundCacheHits;
+            backgroundCacheMisses = other.backgroundCacheMisses;
+            avoidedStateChanges = other.avoidedStateChanges;
+            redrawnArea = other.redrawnArea;
+        }
+
+        public int getWidgetsRendered() {
+            return widgetsRendered;
+        }
+
+        /**
+         * Number of widgets skipped because they were entirely outside of the clip box.
+         */
+        public int getWidgetsCulled() {
+            return widgetsCulled;
+        }
+
+        public int getDrawCalls() {
+            return drawCalls;
+        }
+
+        public int getVertices() {
+            return vertices;
+        }
+
+        public int getReflows() {
+            return reflows;
+        }
+
+        /**
+         * Number of input events received by the screen.
+         */
+        public int getEventsDispatched() {
+            return eventsDispatched;
+        }
+
+        /**
+         * Number of containers that input events have been propagated through.
+         */
+        public int getEventVisits() {
+            return eventVisits;
+        }
+
+        /**
+         * Deepest container (counting from the window) that an input event has been propagated through.
+         */
+        public int getMaxEventDepth() {
+            return maxEventDepth;
+        }
+
+        public int getTextMeasurements() {
+            return textMeasurements;
+        }
+
+        /**
+         * Only collected for the whole frame, see {@link TextMeasurements}.
+         */
+        public int getTextCacheHits() {
+            return textCacheHits;
+        }
+
+        /**
+         * Only collected for the whole frame, see {@link TextMeasurements}.
+         */
+        public int getTextCacheMisses() {
+            return textCacheMisses;
+        }
+
+        /**
+         * Only collected for the whole frame.
+         */
+        public int getBackgroundCacheHits() {
+            return backgroundCacheHits;
+        }
+
+        /**
+         * Only collected for the whole frame.
+         */
+        public int getBackgroundCacheMisses() {
+            return backgroundCacheMisses;
+        }
+
+        /**
+         * Only collected for the whole frame, see {@link RenderStateTracker#getAvoidedTransitions()}.
+         */
+        public int getAvoidedStateChanges() {
+            return avoidedStateChanges;
+        }
+
+        /**
+         * Only collected for the whole frame, see {@link powerlessri.harmonics.gui.screen.WidgetScreen#getLastRedrawnArea()}.
+         */
+        public long getRedrawnArea() {
+            return redrawnArea;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("widgetsRendered", widgetsRendered)
+                    .add("widgetsCulled", widgetsCulled)
+                    .add("drawCalls", drawCalls)
+                    .add("vertices", vertices)
+                    .add("reflows", reflows)
+                    .add("eventsDispatched", eventsDispatched)
+                    .add("eventVisits", eventVisits)
+                    .add("maxEventDepth", maxEventDepth)
+                    .add("textMeasurements", textMeasurements)
+                    .add("textCacheHits", textCacheHits)
+                    .add("textCacheMisses", textCacheMisses)
+                    .add("backgroundCacheHits", backgroundCacheHits)
+                    .add("backgroundCacheMisses", backgroundCacheMisses)
+                    .add("avoidedStateChanges", avoidedStateChanges)
+                    .add("redrawnArea", redrawnArea)
+                    .toString();
+        }
+    }
+
+    // Named so that its class can be the key of the listener in RenderEventDispatcher
+    private static final class MetricsListener implements IRenderEventListener {
+        @Override
+        public void onPreRender(IWidget widget, int mx, int my) {
+            current.widgetsRendered++;
+            Counters window = windowCounters(widget.getWindow());
+            if (window != null) {
+                window.widgetsRendered++;
+            }
+        }
+
+        @Override
+        public void onPreRender(IWindow window, int mx, int my) {
+            // Subtract the numbers before, so that the numbers after get added in onPostRender
+            Counters counters = windowCounters(window);
+            counters.drawCalls -= QuadBatch.getDrawCalls();
+            counters.vertices -= QuadBatch.getVertices();
+        }
+
+        @Override
+        public void onPostRender(IWidget widget, int mx, int my) {
+        }
+
+        @Override
+        public void onPostRender(IWindow window, int mx, int my) {
+            Counters counters = windowCounters(window);
+            counters.drawCalls += QuadBatch.getDrawCalls();
+            counters.vertices += QuadBatch.getVertices();
+        }
+    }
+
+    private static final MetricsListener LISTENER = new MetricsListener();
+
+    private static boolean requested = false;
+    private static boolean enabled = false;
+
+    private static final Counters current = new Counters();
+    private static final Counters last = new Counters();
+    private static Map<IWindow, Counters> currentWindows = new IdentityHashMap<>();
+    private static Map<IWindow, Counters> lastWindows = new IdentityHashMap<>();
+
+    private static int backgroundCacheHitsBefore;
+    private static int backgroundCacheMissesBefore;
+    private static int textCacheHitsBefore;
+    private static int textCacheMissesBefore;
+
+    /**
+     * Enable or disable collection regardless of the config option.
+     */
+    public static void setEnabled(boolean enabled) {
+        requested = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Called by {@link powerlessri.harmonics.gui.screen.WidgetScreen} before rendering anything.
+     */
+    public static void beginFrame() {
+        boolean wasEnabled = enabled;
+        enabled = requested || Config.CLIENT.guiMetricsOverlay.get();
+        if (enabled && !wasEnabled) {
+            RenderEventDispatcher.register(MetricsListener.class, LISTENER);
+            current.reset();
+            currentWindows.clear();
+        } else if (!enabled && wasEnabled) {
+            RenderEventDispatcher.unregister(MetricsListener.class);
+        }
+        backgroundCacheHitsBefore = BackgroundGeometryCache.getHits();
+        backgroundCacheMissesBefore = BackgroundGeometryCache.getMisses();
+        textCacheHitsBefore = TextMeasurements.getHits();
+        textCacheMissesBefore = TextMeasurements.getMisses();
+    }
+
+    /**
+     * Called by {@link powerlessri.harmonics.gui.screen.WidgetScreen} after the frame has been submitted.
+     */
+    public static void endFrame(long redrawnArea) {
+        if (!enabled) {
+            return;
+        }
+        current.drawCalls = QuadBatch.getDrawCalls();
+        current.vertices = QuadBatch.getVertices();
+        current.backgroundCacheHits = BackgroundGeometryCache.getHits() - backgroundCacheHitsBefore;
+        current.backgroundCacheMisses = BackgroundGeometryCache.getMisses() - backgroundCacheMissesBefore;
+        current.textCacheHits = TextMeasurements.getHits() - textCacheHitsBefore;
+        current.textCacheMisses = TextMeasurements.getMisses() - textCacheMissesBefore;
+        current.avoidedStateChanges = RenderStateTracker.getAvoidedTransitions();
+        current.redrawnArea = redrawnArea;
+        last.copyFrom(current);
+        current.reset();
+
+        // Swap so that the counter objects get reused
+        Map<IWindow, Counters> windows = lastWindows;
+        lastWindows = currentWindows;
+        currentWindows = windows;
+        for (Counters counters : currentWindows.values()) {
+            counters.reset();
+        }
+        // Drop windows that did not render in the last frame, e.g. closed popups
+        currentWindows.keySet().retainAll(lastWindows.keySet());
+    }
+
+    public static Counters getLastFrame() {
+        return last;
+    }
+
+    @Nullable
+    public static Counters getLastFrame(IWindow window) {
+        return lastWindows.get(window);
+    }
+
+    public static Map<IWindow, Counters> getLastFrameWindows() {
+        return Collections.unmodifiableMap(lastWindows);
+    }
+
+    private static Counters windowCounters(@Nullable IWindow window) {
+        if (window == null) {
+            return null;
+        }
+        return currentWindows.computeIfAbsent(window, w -> new Counters());
+    }
+
+    public static void onCulled(IWidget widget) {
+        if (!enabled) {
+            return;
+        }
+        current.widgetsCulled++;
+        Counters window = windowCounters(widget.getWindow());
+        if (window != null) {
+            window.widgetsCulled++;
+        }
+    }
+
+    public static void onReflow(IWidget container) {
+        if (!enabled) {
+            return;
+        }
+        current.reflows++;
+        Counters window = windowCounters(container.getWindow());
+        if (window != null) {
+            window.reflows++;
+        }
+    }
+
+    public static void onReflow(IWindow window) {
+        if (!enabled) {
+            return;
+        }
+        current.reflows++;
+        windowCounters(window).reflows++;
+    }
+
+    public static void onEventDispatched() {
+        if (!enabled) {
+            return;
+        }
+        current.eventsDispatched++;
+    }
+
+    /**
+     * Called when an input event is passed from the given container to its children.
+     */
+    public static void onEventPropagated(IWidget container) {
+        if (!enabled) {
+            return;
+        }
+        int depth = 1;
+        for (IWidget parent = container.getParent(); parent != null; parent = parent.getParent()) {
+            depth++;
+        }
+        current.eventVisits++;
+        current.maxEventDepth = Math.max(current.maxEventDepth, depth);
+        Counters window = windowCounters(container.getWindow());
+        if (window != null) {
+            window.eventVisits++;
+            window.maxEventDepth = Math.max(window.maxEventDepth, depth);
+        }
+    }
+
+    /**
+     * Called when an input event is passed from the given window to its children.
+     */
+    public static void onEventPropagated(IWindow window) {
+        if (!enabled) {
+            return;
+        }
+        current.eventVisits++;
+        windowCounters(window).eventVisits++;
+    }
+
+    public static void onTextMeasured() {
+        if (!enabled) {
+            return;
+        }
+        current.textMeasurements++;
+    }
+
+    /**
+     * Draw the counters of the last frame in the top right corner of the screen, if enabled in the config.
+     */
+    public static void renderOverlay() {
+        if (!enabled || !Config.CLIENT.guiMetricsOverlay.get()) {
+            return;
+        }
+        Counters c = last;
+        String[] lines = {
+                "Widgets: " + c.widgetsRendered + " rendered, " + c.widgetsCulled + " culled",
+                "Draw calls: " + c.drawCalls + " (" + c.vertices + " vertices)",
+                "State changes avoided: " + c.avoidedStateChanges,
+                "Redrawn area: " + c.redrawnArea,
+                "Reflows: " + c.reflows,
+                "Events: " + c.eventsDispatched + " (" + c.eventVisits + " visits, depth " + c.maxEventDepth + ")",
+                "Text measurements: " + c.textMeasurements + " (" + c.textCacheHits + " hits, " + c.textCacheMisses + " misses)",
+                "Background cache: " + c.backgroundCacheHits + " hits, " + c.backgroundCacheMisses + " misses",
+        };
+        int y = 1;
+        for (String line : lines) {
+            fontRenderer().drawStringWithShadow(line, windowWidth() - 1 - textWidth(line), y, 0xffffff);
+            y += fontHeight() + 1;
+        }
+    }
+}
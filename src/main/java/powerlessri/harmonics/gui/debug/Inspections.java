@@ -3,14 +3,12 @@ package powerlessri.harmonics.gui.debug;
 import com.mojang.blaze3d.platform.GlStateManager;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.renderer.BufferBuilder;
-import net.minecraft.client.renderer.Tessellator;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import powerlessri.harmonics.Config;
+import powerlessri.harmonics.gui.QuadBatch;
 import powerlessri.harmonics.gui.Render2D;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.window.IWindow;
 
-import static org.lwjgl.opengl.GL11.GL_QUADS;
 import static powerlessri.harmonics.gui.Render2D.*;
 
 public abstract class Inspections implements IRenderEventListener {
@@ -64,7 +62,7 @@ public abstract class Inspections implements IRenderEventListener {
         @Override
         public void string(String text) {
             fontRenderer().drawStringWithShadow(text, x, y, 0xffffff);
-            x += fontRenderer().getStringWidth(text);
+            x += textWidth(text);
         }
 
         @Override
@@ -91,6 +89,8 @@ public abstract class Inspections implements IRenderEventListener {
             return false;
         }
         if (widget.isInside(mx, my) && shouldRender(widget, mx, my)) {
+            // The highlight is drawn on top of everything rendered so far, and may draw text
+            QuadBatch.flush();
             renderBox(widget);
             if (Screen.hasControlDown()) {
                 renderOverlayInfo(widget);
@@ -106,6 +106,8 @@ public abstract class Inspections implements IRenderEventListener {
             return false;
         }
         if (window.isInside(mx, my) && shouldRender(window, mx, my)) {
+            // The highlight is drawn on top of everything rendered so far, and may draw text
+            QuadBatch.flush();
             renderBox(window);
             if (Screen.hasControlDown()) {
                 renderOverlayInfo(window);
@@ -140,6 +142,7 @@ public abstract class Inspections implements IRenderEventListener {
     }
 
     public void renderOverlayInfo(IWidget widget) {
+        QuadBatch.flush();
         GlStateManager.pushMatrix();
         GlStateManager.scalef(0.5F, 0.5F, 1F);
         DEFAULT_INFO_RENDERER.reset();
@@ -152,6 +155,7 @@ public abstract class Inspections implements IRenderEventListener {
     }
 
     public void renderOverlayInfo(IWindow window) {
+        QuadBatch.flush();
         GlStateManager.pushMatrix();
         GlStateManager.scalef(0.5F, 0.5F, 1.0F);
         DEFAULT_INFO_RENDERER.reset();
@@ -178,9 +182,8 @@ public abstract class Inspections implements IRenderEventListener {
         int iy2 = iy1 + height;
 
         useBlendingGLStates();
-        Tessellator tessellator = Tessellator.getInstance();
-        BufferBuilder buffer = tessellator.getBuffer();
-        buffer.begin(GL_QUADS, DefaultVertexFormats.POSITION_COLOR);
+        beginColoredQuad();
+        BufferBuilder buffer = buffer();
 
         // Can't just do two rectangles because they are transparent
 
@@ -193,7 +196,7 @@ public abstract class Inspections implements IRenderEventListener {
         quad(buffer, x1, y1, x1, y2, ix1, iy2, ix1, iy1, 0F, BORDER); // Left border
         coloredRect(ix1, iy1, ix2, iy2, CONTENTS);
 
-        tessellator.draw();
+        draw();
         useTextureGLStates();
     }
 }
@@ -1,38 +1,114 @@
 package powerlessri.harmonics.gui.debug;
 
+import com.google.common.collect.ForwardingMap;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.window.IWindow;
 
-import java.util.HashMap;
-import java.util.Map;
+import javax.annotation.Nullable;
+import java.util.*;
 
+/**
+ * Notifies the registered {@link IRenderEventListener}s around the rendering of every widget and window.
+ * <p>
+ * The hooks are called for every single widget in every frame, so they only iterate a snapshot array of the listeners, which is rebuilt
+ * when a listener gets registered or unregistered. With no listeners registered, a hook costs an empty loop.
+ */
 public final class RenderEventDispatcher {
 
     private RenderEventDispatcher() {
     }
 
-    public static final Map<Class<? extends IRenderEventListener>, IRenderEventListener> listeners = new HashMap<>();
+    private static final IRenderEventListener[] EMPTY = new IRenderEventListener[0];
+
+    private static final Map<Class<? extends IRenderEventListener>, IRenderEventListener> registered = new LinkedHashMap<>();
+    private static IRenderEventListener[] snapshot = EMPTY;
+
+    /**
+     * Writable view of the registered listeners, kept for code that registered listeners by putting them into this map. Writes go through
+     * {@link #register(Class, IRenderEventListener)} and {@link #unregister(Class)}, the key, value and entry views are read only.
+     *
+     * @deprecated Use {@link #register(Class, IRenderEventListener)}, {@link #unregister(Class)} and {@link #get(Class)} instead.
+     */
+    @Deprecated
+    public static final Map<Class<? extends IRenderEventListener>, IRenderEventListener> listeners = new ForwardingMap<Class<? extends IRenderEventListener>, IRenderEventListener>() {
+        @Override
+        protected Map<Class<? extends IRenderEventListener>, IRenderEventListener> delegate() {
+            return Collections.unmodifiableMap(registered);
+        }
+
+        @Override
+        public IRenderEventListener put(Class<? extends IRenderEventListener> key, IRenderEventListener value) {
+            IRenderEventListener old = registered.get(key);
+            register(key, value);
+            return old;
+        }
+
+        @Override
+        public void putAll(Map<? extends Class<? extends IRenderEventListener>, ? extends IRenderEventListener> map) {
+            map.forEach(this::put);
+        }
+
+        @Override
+        public IRenderEventListener remove(Object key) {
+            IRenderEventListener old = registered.get(key);
+            if (old != null) {
+                @SuppressWarnings("unchecked") Class<? extends IRenderEventListener> listenerKey = (Class<? extends IRenderEventListener>) key;
+                unregister(listenerKey);
+            }
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            registered.clear();
+            snapshot = EMPTY;
+        }
+    };
+
+    /**
+     * Register a listener under the given key, replacing the listener previously registered with the same key if there is one.
+     */
+    public static void register(Class<? extends IRenderEventListener> key, IRenderEventListener listener) {
+        if (registered.put(key, listener) != listener) {
+            snapshot = registered.values().toArray(EMPTY);
+        }
+    }
+
+    public static void unregister(Class<? extends IRenderEventListener> key) {
+        if (registered.remove(key) != null) {
+            snapshot = registered.values().toArray(EMPTY);
+        }
+    }
+
+    @Nullable
+    public static IRenderEventListener get(Class<? extends IRenderEventListener> key) {
+        return registered.get(key);
+    }
+
+    public static boolean hasListeners() {
+        return snapshot.length > 0;
+    }
 
     public static void onPreRender(IWidget widget, int mx, int my) {
-        for (IRenderEventListener listener : listeners.values()) {
+        for (IRenderEventListener listener : snapshot) {
             listener.onPreRender(widget, mx, my);
         }
     }
 
     public static void onPreRender(IWindow window, int mx, int my) {
-        for (IRenderEventListener listener : listeners.values()) {
+        for (IRenderEventListener listener : snapshot) {
             listener.onPreRender(window, mx, my);
         }
     }
 
     public static void onPostRender(IWidget widget, int mx, int my) {
-        for (IRenderEventListener listener : listeners.values()) {
+        for (IRenderEventListener listener : snapshot) {
             listener.onPostRender(widget, mx, my);
         }
     }
 
     public static void onPostRender(IWindow window, int mx, int my) {
-        for (IRenderEventListener listener : listeners.values()) {
+        for (IRenderEventListener listener : snapshot) {
             listener.onPostRender(window, mx, my);
         }
     }
@@ -0,0 +1,159 @@
+package powerlessri.harmonics.gui.layout;
+
+import java.util.Arrays;
+
+/**
+ * Prefix sums over the extents of a sequence of items, e.g. the heights of the children of a list, kept in a Fenwick tree. The total is
+ * O(1), appending, changing an extent and finding the start of an item or the item at an offset are O(log n). Removing the last item is
+ * O(1); inserting or removing any other item only rebuilds the part of the tree after it, in O(n - index).
+ */
+public final class ExtentIndex {
+
+    private int size = 0;
+    private int total = 0;
+    private int[] extents = new int[16];
+    // 1-based Fenwick tree over extents
+    private int[] tree = new int[17];
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Sum of all extents.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    public int get(int index) {
+        return extents[index];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > extents.length) {
+            int newLength = Math.max(capacity, extents.length * 2);
+            extents = Arrays.copyOf(extents, newLength);
+            tree = Arrays.copyOf(tree, newLength + 1);
+        }
+    }
+
+    public void add(int extent) {
+        ensureCapacity(size + 1);
+        extents[size] = extent;
+        size++;
+        // The new node covers (size - lowbit(size), size], which all but the new item are already summed up for
+        int lowest = size - (size & -size);
+        tree[size] = extent + getStart(size - 1) - getStart(lowest);
+        total += extent;
+    }
+
+    public void set(int index, int extent) {
+        int delta = extent - extents[index];
+        if (delta == 0) {
+            return;
+        }
+        extents[index] = extent;
+        total += delta;
+        for (int i = index + 1; i <= size; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    public void insert(int index, int extent) {
+        if (index == size) {
+            add(extent);
+            return;
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(extents, index, extents, index + 1, size - index);
+        extents[index] = extent;
+        size++;
+        total += extent;
+        rebuildFrom(index);
+    }
+
+    public void remove(int index) {
+        int extent = extents[index];
+        size--;
+        total -= extent;
+        // Nodes of the tree only cover items up to their own index, so removing the last item leaves all other nodes intact
+        if (index != size) {
+            System.arraycopy(extents, index + 1, extents, index, size - index);
+            rebuildFrom(index);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+        total = 0;
+    }
+
+    /**
+     * Replace all extents, in O(n).
+     */
+    public void setAll(int[] newExtents, int count) {
+        if (extents.length < count) {
+            extents = new int[count];
+            tree = new int[count + 1];
+        }
+        System.arraycopy(newExtents, 0, extents, 0, count);
+        size = count;
+        total = 0;
+        for (int i = 0; i < count; i++) {
+            total += extents[i];
+        }
+        rebuildFrom(0);
+    }
+
+    /**
+     * Rebuild the nodes of the tree that cover items at or after the given index, in O(n - index).
+     */
+    private void rebuildFrom(int index) {
+        for (int i = index + 1; i <= size; i++) {
+            tree[i] = extents[i - 1];
+        }
+        // Intact nodes that are summed up by getStart(index) are children of rebuilt nodes
+        for (int i = index; i > 0; i -= i & -i) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+        for (int i = index + 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * @return Sum of the extents of all items before the given index.
+     */
+    public int getStart(int index) {
+        int sum = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return Index of the item containing the given offset, i.e. the last item starting at or before it, clamped to [0, size). Returns 0
+     * when empty.
+     */
+    public int find(int offset) {
+        int index = 0;
+        int remaining = offset;
+        for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= size && tree[next] <= remaining) {
+                index = next;
+                remaining -= tree[next];
+            }
+        }
+        // index items have a total extent <= offset, so the item containing offset is the next one
+        return Math.max(0, Math.min(index, size - 1));
+    }
+}
@@ -1,5 +1,620 @@
 package powerlessri.harmonics.gui.layout;
 
-// TODO
+import com.google.common.base.Preconditions;
+import powerlessri.harmonics.gui.layout.properties.BoxSizing;
+import powerlessri.harmonics.gui.layout.properties.IFractionalLengthHandler;
+import powerlessri.harmonics.gui.layout.properties.Length;
+import powerlessri.harmonics.gui.widget.IWidget;
+import powerlessri.harmonics.gui.widget.mixin.ResizableWidgetMixin;
+
+import java.util.*;
+
+/**
+ * Layout widgets along a main axis, optionally wrapping them into multiple lines, and grow or shrink them to fill the available space.
+ * <p>
+ * See CSS Flexible Box Layout. This class is meant to replicate the mechanics of it, with these differences:
+ * <ul>
+ * <li>Widgets have no minimum content size, so shrinking stops at a size of 0.</li>
+ * <li>A flex basis of {@link Length#fr(int)} takes a share of the main size left by the other items, like fractions in {@link
+ * GridLayout}. Without a basis, the size the widget had before it was first layed out (or was last resized by something else) is used.</li>
+ * <li>{@link #alignContent(Justify)} does not support stretching lines.</li>
+ * </ul>
+ * Layout is done in one measure pass, which computes the sizes of all items and lines, and one arrange pass, which moves and resizes the
+ * widgets. Widgets are only moved or resized if their position or size actually changed, so containers whose size is unchanged are not
+ * reflowed again. If neither the container size, the widgets, their own sizes nor the properties of this layout have changed since the
+ * last {@link #reflow(IWidget, List)}, it does nothing.
+ */
 public class FlexboxLayout {
+
+    public enum Direction {
+        ROW(true, false),
+        ROW_REVERSE(true, true),
+        COLUMN(false, false),
+        COLUMN_REVERSE(false, true),
+        ;
+
+        public final boolean horizontal;
+        public final boolean reversed;
+
+        Direction(boolean horizontal, boolean reversed) {
+            this.horizontal = horizontal;
+            this.reversed = reversed;
+        }
+    }
+
+    public enum Wrap {
+        NO_WRAP,
+        WRAP,
+        WRAP_REVERSE,
+    }
+
+    /**
+     * Distribution of free space along an axis, see CSS {@code justify-content} and {@code align-content}.
+     */
+    public enum Justify {
+        START,
+        END,
+        CENTER,
+        SPACE_BETWEEN,
+        SPACE_AROUND,
+        SPACE_EVENLY,
+    }
+
+    /**
+     * Alignment of items within their line on the cross axis, see CSS {@code align-items} and {@code align-self}.
+     */
+    public enum Align {
+        START,
+        END,
+        CENTER,
+        STRETCH,
+    }
+
+    private static class Resolver implements IFractionalLengthHandler {
+
+        private int length;
+        private int denominator;
+
+        @Override
+        public int getDenominator() {
+            return denominator;
+        }
+
+        @Override
+        public int getTotalLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Flex properties of a single widget, see {@link #item(IWidget)}.
+     */
+    public static final class Item {
+
+        private float grow = 0F;
+        private float shrink = 1F;
+        private Length<Resolver> basis;
+        private Align alignSelf;
+
+        private final FlexboxLayout layout;
+
+        // Full size of the widget when it was not layed out by us
+        private int naturalWidth;
+        private int naturalHeight;
+        // Full size we gave the widget last time, or -1
+        private int assignedWidth = -1;
+        private int assignedHeight = -1;
+
+        // Measure cache: base main size for the given available main size
+        private int cachedAvailableMain = -1;
+        private float cachedBase;
+
+        // Results of the measure pass
+        private float base;
+        private float main;
+        private float cross;
+        private boolean frozen;
+
+        private Item(FlexboxLayout layout) {
+            this.layout = layout;
+        }
+
+        @SuppressWarnings("UnusedReturnValue")
+        public Item grow(float grow) {
+            Preconditions.checkArgument(grow >= 0F);
+            this.grow = grow;
+            return changed();
+        }
+
+        @SuppressWarnings("UnusedReturnValue")
+        public Item shrink(float shrink) {
+            Preconditions.checkArgument(shrink >= 0F);
+            this.shrink = shrink;
+            return changed();
+        }
+
+        /**
+         * @param basis Main size of the item before growing or shrinking, or {@code null} to use the size of the widget.
+         */
+        @SuppressWarnings("UnusedReturnValue")
+        public Item basis(Length<Resolver> basis) {
+            this.basis = basis;
+            return changed();
+        }
+
+        /**
+         * @param alignSelf Cross axis alignment of this item, or {@code null} to use {@link #alignItems(Align)} of the layout.
+         */
+        @SuppressWarnings("UnusedReturnValue")
+        public Item alignSelf(Align alignSelf) {
+            this.alignSelf = alignSelf;
+            return changed();
+        }
+
+        /**
+         * Shorthand for CSS {@code flex: <grow> <shrink> <basis>}.
+         */
+        @SuppressWarnings("UnusedReturnValue")
+        public Item flex(float grow, float shrink, Length<Resolver> basis) {
+            grow(grow);
+            shrink(shrink);
+            return basis(basis);
+        }
+
+        public float getGrow() {
+            return grow;
+        }
+
+        public float getShrink() {
+            return shrink;
+        }
+
+        public Length<Resolver> getBasis() {
+            return basis;
+        }
+
+        public Align getAlignSelf() {
+            return alignSelf;
+        }
+
+        private Item changed() {
+            cachedAvailableMain = -1;
+            layout.invalidate();
+            return this;
+        }
+    }
+
+    private static final class Line {
+
+        private int start;
+        private int end;
+        private float cross;
+        private float crossPosition;
+    }
+
+    private Direction direction = Direction.ROW;
+    private Wrap wrap = Wrap.NO_WRAP;
+    private Justify justifyContent = Justify.START;
+    private Align alignItems = Align.STRETCH;
+    private Justify alignContent = Justify.START;
+    private Length<?> gap = Length.px(0);
+
+    private final Map<IWidget, Item> items = new HashMap<>();
+    private final Resolver resolver = new Resolver();
+
+    // Scratch state of the last layout
+    private final List<IWidget> laidOut = new ArrayList<>();
+    private Item[] laidOutItems = new Item[0];
+    private final List<Line> lines = new ArrayList<>();
+    private int lineCount;
+
+    private boolean dirty = true;
+    private int lastWidth = -1;
+    private int lastHeight = -1;
+    private int contentWidth;
+    private int contentHeight;
+
+    @SuppressWarnings("UnusedReturnValue")
+    public FlexboxLayout direction(Direction direction) {
+        this.direction = direction;
+        // Cached base sizes are along the old main axis
+        for (Item item : items.values()) {
+            item.cachedAvailableMain = -1;
+        }
+        invalidate();
+        return this;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public FlexboxLayout wrap(Wrap wrap) {
+        this.wrap = wrap;
+        invalidate();
+        return this;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public FlexboxLayout justifyContent(Justify justifyContent) {
+        this.justifyContent = justifyContent;
+        invalidate();
+        return this;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public FlexboxLayout alignItems(Align alignItems) {
+        this.alignItems = alignItems;
+        invalidate();
+        return this;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public FlexboxLayout alignContent(Justify alignContent) {
+        this.alignContent = alignContent;
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Space between items in a line, and between lines.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public FlexboxLayout gap(Length<?> gap) {
+        Preconditions.checkArgument(gap.getInt() >= 0);
+        this.gap = gap;
+        invalidate();
+        return this;
+    }
+
+    /**
+     * @return Flex properties of the given widget, created with the CSS defaults if they don't exist yet.
+     */
+    public Item item(IWidget widget) {
+        return items.computeIfAbsent(widget, w -> new Item(this));
+    }
+
+    /**
+     * Forget the flex properties and cached measurements of a widget that is no longer layed out by this layout.
+     */
+    public void removeItem(IWidget widget) {
+        if (items.remove(widget) != null) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Force the next {@link #reflow(IWidget, List)} to do a full layout.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * @return Width needed to fit the items at their base size (or their grown size, if they had space to grow) without shrinking them,
+     * as of the last layout. This can be used to size the container to its contents.
+     */
+    public int getContentWidth() {
+        return contentWidth;
+    }
+
+    /**
+     * @see #getContentWidth()
+     */
+    public int getContentHeight() {
+        return contentHeight;
+    }
+
+    public void reflow(IWidget parent, List<? extends IWidget> widgets) {
+        int width = parent.getWidth();
+        int height = parent.getHeight();
+        if (!needsLayout(width, height, widgets)) {
+            return;
+        }
+        dirty = false;
+        lastWidth = width;
+        lastHeight = height;
+
+        measure(width, height);
+        arrange(width, height);
+    }
+
+    private boolean needsLayout(int width, int height, List<? extends IWidget> widgets) {
+        boolean changed = dirty || width != lastWidth || height != lastHeight;
+        int count = 0;
+        for (IWidget widget : widgets) {
+            if (!BoxSizing.shouldIncludeWidget(widget)) {
+                continue;
+            }
+            if (count >= laidOut.size() || laidOut.get(count) != widget) {
+                changed = true;
+            }
+            count++;
+        }
+        if (count != laidOut.size()) {
+            changed = true;
+        }
+        if (changed) {
+            laidOut.clear();
+            for (IWidget widget : widgets) {
+                if (BoxSizing.shouldIncludeWidget(widget)) {
+                    laidOut.add(widget);
+                }
+            }
+            if (laidOutItems.length < laidOut.size()) {
+                laidOutItems = new Item[laidOut.size()];
+            }
+        }
+        // Widgets that were resized by something else have a new natural size
+        for (int i = 0; i < laidOut.size(); i++) {
+            IWidget widget = laidOut.get(i);
+            Item item = item(widget);
+            laidOutItems[i] = item;
+            if (widget.getFullWidth() != item.assignedWidth || widget.getFullHeight() != item.assignedHeight) {
+                item.naturalWidth = widget.getFullWidth();
+                item.naturalHeight = widget.getFullHeight();
+                item.cachedAvailableMain = -1;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Measure pass
+
+    private void measure(int width, int height) {
+        int count = laidOut.size();
+        int availableMain = direction.horizontal ? width : height;
+        int availableCross = direction.horizontal ? height : width;
+        int gap = this.gap.getInt();
+
+        // Base sizes, fractions share what is left by the others
+        int fixedMain = Math.max(count - 1, 0) * gap;
+        int denominator = 0;
+        for (int i = 0; i < count; i++) {
+            Item item = laidOutItems[i];
+            if (item.basis instanceof Length.Fr) {
+                denominator += ((Length.Fr<Resolver>) item.basis).getNumerator();
+            } else {
+                fixedMain += (int) measureBase(item, availableMain);
+            }
+        }
+        resolver.length = Math.max(availableMain - fixedMain, 0);
+        resolver.denominator = denominator;
+        for (int i = 0; i < count; i++) {
+            Item item = laidOutItems[i];
+            if (item.basis instanceof Length.Fr) {
+                item.basis.resolve(resolver);
+                item.base = item.basis.get();
+            } else {
+                item.base = measureBase(item, availableMain);
+            }
+            item.cross = direction.horizontal ? item.naturalHeight : item.naturalWidth;
+        }
+
+        // Break into lines
+        lineCount = 0;
+        int start = 0;
+        while (start < count) {
+            int end = start + 1;
+            float used = laidOutItems[start].base;
+            if (wrap != Wrap.NO_WRAP) {
+                while (end < count && used + gap + laidOutItems[end].base <= availableMain) {
+                    used += gap + laidOutItems[end].base;
+                    end++;
+                }
+            } else {
+                end = count;
+            }
+            Line line = nextLine();
+            line.start = start;
+            line.end = end;
+            start = end;
+        }
+
+        // Flexible lengths and cross sizes of lines
+        float maxLineMain = 0F;
+        float totalCross = Math.max(lineCount - 1, 0) * gap;
+        for (int l = 0; l < lineCount; l++) {
+            Line line = lines.get(l);
+            maxLineMain = Math.max(maxLineMain, resolveFlexibleLengths(line, availableMain, gap));
+            float cross = 0F;
+            for (int i = line.start; i < line.end; i++) {
+                cross = Math.max(cross, laidOutItems[i].cross);
+            }
+            line.cross = cross;
+            totalCross += cross;
+        }
+        // A single line fills the container
+        if (wrap == Wrap.NO_WRAP && lineCount == 1) {
+            lines.get(0).cross = availableCross;
+        }
+
+        if (direction.horizontal) {
+            contentWidth = (int) Math.ceil(maxLineMain);
+            contentHeight = (int) Math.ceil(totalCross);
+        } else {
+            contentWidth = (int) Math.ceil(totalCross);
+            contentHeight = (int) Math.ceil(maxLineMain);
+        }
+    }
+
+    private float measureBase(Item item, int availableMain) {
+        if (item.cachedAvailableMain == availableMain) {
+            return item.cachedBase;
+        }
+        float base;
+        if (item.basis == null) {
+            base = direction.horizontal ? item.naturalWidth : item.naturalHeight;
+        } else {
+            item.basis.resolve(resolver);
+            base = item.basis.get();
+        }
+        item.cachedAvailableMain = availableMain;
+        item.cachedBase = base;
+        return base;
+    }
+
+    private Line nextLine() {
+        if (lineCount == lines.size()) {
+            lines.add(new Line());
+        }
+        return lines.get(lineCount++);
+    }
+
+    /**
+     * Grow or shrink the items of the line to fill the available main size.
+     *
+     * @return Main size of the line after growing, but before shrinking.
+     */
+    private float resolveFlexibleLengths(Line line, int availableMain, int gap) {
+        float used = (line.end - line.start - 1) * gap;
+        for (int i = line.start; i < line.end; i++) {
+            Item item = laidOutItems[i];
+            item.main = item.base;
+            item.frozen = false;
+            used += item.base;
+        }
+        float free = availableMain - used;
+        boolean growing = free > 0F;
+
+        // Items that would shrink below 0 are frozen at 0, and the rest is distributed again among the others
+        while (Math.abs(free) > 0.01F) {
+            float totalFactor = 0F;
+            for (int i = line.start; i < line.end; i++) {
+                Item item = laidOutItems[i];
+                if (!item.frozen) {
+                    totalFactor += growing ? item.grow : item.shrink * item.base;
+                }
+            }
+            if (totalFactor <= 0F) {
+                break;
+            }
+            float distributed = 0F;
+            boolean clamped = false;
+            for (int i = line.start; i < line.end; i++) {
+                Item item = laidOutItems[i];
+                if (item.frozen) {
+                    continue;
+                }
+                float factor = growing ? item.grow : item.shrink * item.base;
+                float size = item.main + free * factor / totalFactor;
+                if (size < 0F) {
+                    size = 0F;
+                    item.frozen = true;
+                    clamped = true;
+                }
+                distributed += size - item.main;
+                item.main = size;
+            }
+            free -= distributed;
+            if (!clamped) {
+                break;
+            }
+        }
+        return growing ? availableMain - Math.max(free, 0F) : used;
+    }
+
+    // Arrange pass
+
+    private void arrange(int width, int height) {
+        int availableMain = direction.horizontal ? width : height;
+        int availableCross = direction.horizontal ? height : width;
+        int gap = this.gap.getInt();
+
+        // Position of lines on the cross axis
+        float usedCross = Math.max(lineCount - 1, 0) * gap;
+        for (int l = 0; l < lineCount; l++) {
+            usedCross += lines.get(l).cross;
+        }
+        float[] crossSpacing = distribute(alignContent, availableCross - usedCross, lineCount);
+        float crossPosition = crossSpacing[0];
+        for (int l = 0; l < lineCount; l++) {
+            Line line = lines.get(wrap == Wrap.WRAP_REVERSE ? lineCount - 1 - l : l);
+            line.crossPosition = crossPosition;
+            crossPosition += line.cross + gap + crossSpacing[1];
+        }
+
+        for (int l = 0; l < lineCount; l++) {
+            Line line = lines.get(l);
+            float usedMain = (line.end - line.start - 1) * gap;
+            for (int i = line.start; i < line.end; i++) {
+                usedMain += laidOutItems[i].main;
+            }
+            float[] mainSpacing = distribute(justifyContent, availableMain - usedMain, line.end - line.start);
+            float mainPosition = mainSpacing[0];
+            for (int i = line.start; i < line.end; i++) {
+                Item item = laidOutItems[i];
+                Align align = item.alignSelf != null ? item.alignSelf : alignItems;
+                float cross = align == Align.STRETCH ? line.cross : item.cross;
+                float crossOffset;
+                switch (align) {
+                    case END:
+                        crossOffset = line.cross - cross;
+                        break;
+                    case CENTER:
+                        crossOffset = (line.cross - cross) / 2F;
+                        break;
+                    default:
+                        crossOffset = 0F;
+                        break;
+                }
+
+                // Round the edges instead of the sizes, so that adjacent items don't get gaps between them
+                int main1 = Math.round(mainPosition);
+                int main2 = Math.round(mainPosition + item.main);
+                if (direction.reversed) {
+                    int reversed1 = availableMain - main2;
+                    main2 = availableMain - main1;
+                    main1 = reversed1;
+                }
+                int cross1 = Math.round(line.crossPosition + crossOffset);
+                int cross2 = Math.round(line.crossPosition + crossOffset + cross);
+                if (direction.horizontal) {
+                    place(laidOut.get(i), item, main1, cross1, main2 - main1, cross2 - cross1);
+                } else {
+                    place(laidOut.get(i), item, cross1, main1, cross2 - cross1, main2 - main1);
+                }
+                mainPosition += item.main + gap + mainSpacing[1];
+            }
+        }
+    }
+
+    /**
+     * @return Offset before the first element, and extra space between elements.
+     */
+    private static float[] distribute(Justify justify, float free, int count) {
+        if (free <= 0F || count == 0) {
+            return new float[]{0F, 0F};
+        }
+        switch (justify) {
+            case END:
+                return new float[]{free, 0F};
+            case CENTER:
+                return new float[]{free / 2F, 0F};
+            case SPACE_BETWEEN:
+                return count == 1 ? new float[]{0F, 0F} : new float[]{0F, free / (count - 1)};
+            case SPACE_AROUND:
+                return new float[]{free / count / 2F, free / count};
+            case SPACE_EVENLY:
+                return new float[]{free / (count + 1), free / (count + 1)};
+            default:
+                return new float[]{0F, 0F};
+        }
+    }
+
+    private static void place(IWidget widget, Item item, int x, int y, int fullWidth, int fullHeight) {
+        if (widget.getX() != x || widget.getY() != y) {
+            widget.setLocation(x, y);
+        }
+        if (widget instanceof ResizableWidgetMixin) {
+            ResizableWidgetMixin resizable = (ResizableWidgetMixin) widget;
+            // Only resize when needed, so that containers which keep their size are not reflowed again
+            if (widget.getFullWidth() != fullWidth) {
+                resizable.setWidth(Math.max(fullWidth - resizable.getBorderLeft() - resizable.getBorderRight(), 0));
+            }
+            if (widget.getFullHeight() != fullHeight) {
+                resizable.setHeight(Math.max(fullHeight - resizable.getBorderTop() - resizable.getBorderBottom(), 0));
+            }
+        }
+        item.assignedWidth = widget.getFullWidth();
+        item.assignedHeight = widget.getFullHeight();
+    }
 }
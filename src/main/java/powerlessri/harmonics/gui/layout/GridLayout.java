@@ -9,9 +9,8 @@ import powerlessri.harmonics.gui.layout.properties.Length;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.widget.mixin.ResizableWidgetMixin;
 
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Layout widgets on a non-fixed dimension grid, where each row and column have their individual size. The widgets are layed on the grid so
@@ -43,14 +42,23 @@ public class GridLayout {
     private Length<Resolver>[] columns;
     private Length<Resolver>[] rows;
 
+    // Start position and size of each track, resolved against the parent size in lastWidth/lastHeight
     private int[] xPx;
     private int[] yPx;
+    private int[] widths;
+    private int[] heights;
+    private int lastWidth = -1;
+    private int lastHeight = -1;
+    private int lastGap = -1;
 
     /**
      * A map of where the child widgets should occupy. See CSS Grid's {@code grid-template-areas}. Each element is the ID (index) of the
      * child widget. Note that this array should be setup in [y][x], not [x][y].
      */
     private String[][] areas;
+    // Compiled from areas: the name of each area, and the grid rectangle it spans as [gx1, gy1, gx2, gy2] (inclusive) in areaSpans[i * 4]
+    private String[] areaNames = new String[0];
+    private int[] areaSpans = new int[0];
 
     @SuppressWarnings("UnusedReturnValue")
     public GridLayout gridGap(Length<?> gridGap) {
@@ -87,45 +95,43 @@ public class GridLayout {
         this.areas = new String[areas.length][];
         for (int i = 0; i < areas.length; i++) {
             this.areas[i] = StringUtils.split(areas[i], ' ');
+            Preconditions.checkArgument(this.areas[i].length <= columns.length, "Row %s has more cells than there are columns", i);
         }
+        compileAreas();
         return this;
     }
 
     // px/py stands for "Pixel-position x/y"
     // gx/gy stands for "Grid x/y"
+
+    /**
+     * Place each widget on the bounding rectangle of all cells with its name. Track sizes are only resolved again when the size of the
+     * parent, the tracks or the gap changed since the last call.
+     */
     public <T extends IWidget & ResizableWidgetMixin> void reflow(IWidget parent, Map<String, T> widgets) {
-        Set<T> initializationStats = new HashSet<>();
         reresolveLengths(parent);
-        for (int gy = 0; gy < areas.length; gy++) {
-            for (int gx = 0; gx < areas[gy].length; gx++) {
-                String cell = areas[gy][gx];
-                T widget = widgets.get(cell);
-                // This handles null check
-                if (!BoxSizing.shouldIncludeWidget(widget)) {
-                    continue;
-                }
-                if (!initializationStats.contains(widget)) {
-                    widget.setLocation(getPxAt(gx), getPyAt(gy));
-                    widget.setDimensions(getWidth(gx), getHeight(gy));
-                    initializationStats.add(widget);
-                    continue;
-                }
-
-                int px = getPxAt(gx);
-                int py = getPyAt(gy);
-                // Expand the first vertex towards top left
-                if (!widget.isInside(px, py)) {
-                    widget.setLocation(Math.min(widget.getX(), px), Math.min(widget.getY(), py));
-                }
-
-                int px2 = getPx2At(gx);
-                int py2 = getPy2At(gy);
-                // Expand the second vertex towards bottom right
-                if (!widget.isInside(px2, py2)) {
-                    widget.setDimensions(
-                            Math.max(widget.getFullWidth(), px2 - widget.getX()),
-                            Math.max(widget.getFullHeight(), py2 - widget.getY()));
-                }
+        for (int i = 0; i < areaNames.length; i++) {
+            T widget = widgets.get(areaNames[i]);
+            // This handles null check
+            if (!BoxSizing.shouldIncludeWidget(widget)) {
+                continue;
+            }
+            int gx1 = areaSpans[i * 4];
+            int gy1 = areaSpans[i * 4 + 1];
+            int gx2 = areaSpans[i * 4 + 2];
+            int gy2 = areaSpans[i * 4 + 3];
+            int px = getPxAt(gx1);
+            int py = getPyAt(gy1);
+            if (widget.getX() != px || widget.getY() != py) {
+                widget.setLocation(px, py);
+            }
+            int width = getPx2At(gx2) - px;
+            int height = getPy2At(gy2) - py;
+            if (widget.getWidth() != width) {
+                widget.setWidth(width);
+            }
+            if (widget.getHeight() != height) {
+                widget.setHeight(height);
             }
         }
     }
@@ -138,20 +144,12 @@ public class GridLayout {
         return yPx[gy];
     }
 
-    private int getWidth(int gx) {
-        return columns[gx].getInt();
-    }
-
-    private int getHeight(int gy) {
-        return rows[gy].getInt();
-    }
-
     private int getPx2At(int gx) {
-        return xPx[gx] + columns[gx].getInt();
+        return xPx[gx] + widths[gx];
     }
 
     private int getPy2At(int gy) {
-        return yPx[gy] + columns[gy].getInt();
+        return yPx[gy] + heights[gy];
     }
 
     public int getGridGap() {
@@ -169,6 +167,7 @@ public class GridLayout {
     public final void setGridGap(Length<?> gridGap) {
         Preconditions.checkArgument(gridGap.getInt() >= 0);
         this.gridGap = gridGap;
+        invalidateLengths();
     }
 
     @SafeVarargs
@@ -176,6 +175,8 @@ public class GridLayout {
         this.columns = columns;
         updateDenominator(widthResolver, columns);
         xPx = new int[columns.length];
+        widths = new int[columns.length];
+        invalidateLengths();
     }
 
     @SafeVarargs
@@ -183,10 +184,13 @@ public class GridLayout {
         this.rows = rows;
         updateDenominator(heightResolver, rows);
         yPx = new int[rows.length];
+        heights = new int[rows.length];
+        invalidateLengths();
     }
 
     @SafeVarargs
     private final void updateDenominator(Resolver resolver, Length<Resolver>... lengths) {
+        resolver.denominator = 0;
         for (Length<Resolver> length : lengths) {
             if (length instanceof Length.Fr) {
                 resolver.denominator += ((Length.Fr<Resolver>) length).getNumerator();
@@ -194,21 +198,50 @@ public class GridLayout {
         }
     }
 
+    private void invalidateLengths() {
+        lastWidth = -1;
+        lastHeight = -1;
+    }
+
     private void reresolveLengths(IWidget widget) {
-        widthResolver.length = widget.getWidth();
-        heightResolver.length = widget.getHeight();
-        buildPrefixSum(xPx, widthResolver, rows);
-        buildPrefixSum(yPx, heightResolver, columns);
+        int gap = gridGap.getInt();
+        if (widget.getWidth() == lastWidth && widget.getHeight() == lastHeight && gap == lastGap) {
+            return;
+        }
+        lastWidth = widget.getWidth();
+        lastHeight = widget.getHeight();
+        lastGap = gap;
+        widthResolver.length = Math.max(0, lastWidth - getHorizontalSumGaps() - resolveFixedLengths(widthResolver, columns));
+        heightResolver.length = Math.max(0, lastHeight - getVerticalSumGaps() - resolveFixedLengths(heightResolver, rows));
+        buildPrefixSum(xPx, widths, widthResolver, columns);
+        buildPrefixSum(yPx, heights, heightResolver, rows);
+    }
+
+    /**
+     * @return Total size of the tracks that are not fractional, which is subtracted from the space that the fractional tracks share.
+     */
+    @SafeVarargs
+    private final int resolveFixedLengths(Resolver resolver, Length<Resolver>... lengths) {
+        int sum = 0;
+        for (Length<Resolver> length : lengths) {
+            if (!(length instanceof Length.Fr)) {
+                length.resolve(resolver);
+                sum += length.getInt();
+            }
+        }
+        return sum;
     }
 
     @SafeVarargs
-    private final void buildPrefixSum(int[] px, Resolver resolver, Length<Resolver>... lengths) {
+    private final void buildPrefixSum(int[] px, int[] sizes, Resolver resolver, Length<Resolver>... lengths) {
+        int gap = gridGap.getInt();
         int len = 0;
         for (int i = 0; i < lengths.length; i++) {
             Length<Resolver> length = lengths[i];
             length.resolve(resolver);
             px[i] = len;
-            len += length.getInt() + gridGap.getInt();
+            sizes[i] = length.getInt();
+            len += sizes[i] + gap;
         }
     }
 
@@ -216,7 +249,34 @@ public class GridLayout {
         Preconditions.checkArgument(areas.length == rows.length * columns.length);
         this.areas = new String[rows.length][columns.length];
         for (int y = 0; y < rows.length; y++) {
-            System.arraycopy(areas, y * columns.length, this.areas[y], 0, rows.length);
+            System.arraycopy(areas, y * columns.length, this.areas[y], 0, columns.length);
+        }
+        compileAreas();
+    }
+
+    private void compileAreas() {
+        Map<String, int[]> spans = new LinkedHashMap<>();
+        for (int gy = 0; gy < areas.length; gy++) {
+            for (int gx = 0; gx < areas[gy].length; gx++) {
+                String cell = areas[gy][gx];
+                int[] span = spans.get(cell);
+                if (span == null) {
+                    spans.put(cell, new int[] {gx, gy, gx, gy});
+                } else {
+                    span[0] = Math.min(span[0], gx);
+                    span[1] = Math.min(span[1], gy);
+                    span[2] = Math.max(span[2], gx);
+                    span[3] = Math.max(span[3], gy);
+                }
+            }
+        }
+        areaNames = new String[spans.size()];
+        areaSpans = new int[spans.size() * 4];
+        int i = 0;
+        for (Map.Entry<String, int[]> entry : spans.entrySet()) {
+            areaNames[i] = entry.getKey();
+            System.arraycopy(entry.getValue(), 0, areaSpans, i * 4, 4);
+            i++;
         }
     }
 }
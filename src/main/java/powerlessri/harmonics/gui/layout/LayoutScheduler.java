@@ -0,0 +1,196 @@
+package powerlessri.harmonics.gui.layout;
+
+import powerlessri.harmonics.HarmonicsCore;
+import powerlessri.harmonics.gui.widget.AbstractWidget;
+import powerlessri.harmonics.gui.widget.IContainer;
+import powerlessri.harmonics.gui.widget.IWidget;
+import powerlessri.harmonics.gui.window.IWindow;
+
+import java.util.*;
+
+/**
+ * Deferred layout of containers. Instead of calling {@link IContainer#reflow()} every time something changes, containers are marked
+ * dirty with {@link IContainer#requestReflow()} or {@link IContainer#requestReflowIfResized()}, and {@link #flush(IWindow)} reflows each
+ * dirty container once, right before the next frame is rendered or the next mouse event is dispatched. Any number of changes within a
+ * frame, e.g. several scroll events or adding children one by one, only cause a single reflow.
+ * <p>
+ * Requests are kept per window, found through the root of the container's widget tree, so that a screen only lays out and drops the
+ * requests of its own windows. Requests of trees that are not in a window yet, e.g. while a screen is being built, are done by the next
+ * flush of any window.
+ * <p>
+ * Containers are reflowed from the outermost to the innermost, so that a container which resizes its children is done before the
+ * children lay out their own contents. Requests made by a container for itself while it is being reflowed are ignored. Requests of
+ * containers that are not attached to a parent or window are kept until the container is attached, and then done by the next flush.
+ * <p>
+ * The size of every container is remembered when it is reflowed by the scheduler, and {@link IContainer#requestReflowIfResized()} is
+ * skipped if the container still has that size. This is the only reuse of layout results: there is no separate measure pass and no
+ * cache of measurements by constraints. When a child is resized, its parent is notified through {@link
+ * IContainer#onChildResized(IWidget)}, and containers whose layout depends on the sizes of their children request a reflow there. Code
+ * that needs the result of a layout immediately, e.g. {@link powerlessri.harmonics.gui.window.Dialog} sizing itself to its contents, still
+ * calls {@link IContainer#reflow()} directly.
+ */
+public final class LayoutScheduler {
+
+    // Passes of a single flush, requests made during the last pass are left for the next frame
+    private static final int MAX_PASSES = 8;
+
+    private static final Map<IWindow, LayoutScheduler> schedulers = new WeakHashMap<>();
+    private static final LayoutScheduler detached = new LayoutScheduler();
+
+    private static final Map<IContainer<?>, Long> laidOutSizes = new WeakHashMap<>();
+    private static final Comparator<IContainer<?>> OUTERMOST_FIRST = Comparator.comparingInt(LayoutScheduler::getDepth);
+
+    private static IContainer<?> current;
+
+    // Dirty containers, mapped to whether they only need a reflow if their size changed
+    private final Map<IContainer<?>, Boolean> pending = new WeakHashMap<>();
+    private boolean flushing = false;
+
+    private LayoutScheduler() {
+    }
+
+    /**
+     * Mark the container as needing a reflow, because its contents changed.
+     */
+    public static void request(IContainer<?> container) {
+        if (container != current) {
+            of(container).pending.put(container, false);
+        }
+    }
+
+    /**
+     * Mark the container as needing a reflow, unless it has the same size as when it was last reflowed by this scheduler.
+     */
+    public static void requestIfResized(IContainer<?> container) {
+        if (container != current) {
+            of(container).pending.putIfAbsent(container, true);
+        }
+    }
+
+    /**
+     * @return {@code true} if the container has a pending request.
+     */
+    public static boolean isPending(IContainer<?> container) {
+        return of(container).pending.containsKey(container) || detached.pending.containsKey(container);
+    }
+
+    /**
+     * Reflow the given container now if it has a pending request, e.g. because its layout is about to be read.
+     */
+    public static void flush(IContainer<?> container) {
+        if (!container.isValid()) {
+            // Kept for when the container is attached
+            return;
+        }
+        Boolean onlyIfResized = of(container).pending.remove(container);
+        Boolean detachedOnlyIfResized = detached.pending.remove(container);
+        if (onlyIfResized != null || detachedOnlyIfResized != null) {
+            // A size-only request does not weaken a full one
+            reflow(container, onlyIfResized != Boolean.FALSE && detachedOnlyIfResized != Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Reflow all dirty containers of the window, and those that were not in a window when they were requested.
+     */
+    public static void flush(IWindow window) {
+        detached.flushPending();
+        LayoutScheduler scheduler = schedulers.get(window);
+        if (scheduler != null) {
+            scheduler.flushPending();
+        }
+    }
+
+    /**
+     * Drop all pending requests of the window, e.g. when the screen it belongs to is closed.
+     */
+    public static void clear(IWindow window) {
+        schedulers.remove(window);
+    }
+
+    private static LayoutScheduler of(IContainer<?> container) {
+        IWidget root = container;
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        IWindow window = root.getWindow();
+        if (window == null) {
+            return detached;
+        }
+        return schedulers.computeIfAbsent(window, w -> new LayoutScheduler());
+    }
+
+    private void flushPending() {
+        if (flushing) {
+            return;
+        }
+        flushing = true;
+        // Requests of containers that are not attached, put back after the passes so that they do not count as unsettled layout
+        Map<IContainer<?>, Boolean> unattached = new HashMap<>();
+        try {
+            for (int pass = 0; pass < MAX_PASSES && !pending.isEmpty(); pass++) {
+                List<IContainer<?>> batch = new ArrayList<>(pending.keySet());
+                batch.sort(OUTERMOST_FIRST);
+                for (IContainer<?> container : batch) {
+                    // Reflowing a container before might have done this one as well
+                    Boolean onlyIfResized = pending.remove(container);
+                    if (onlyIfResized == null) {
+                        continue;
+                    }
+                    if (container.isValid()) {
+                        reflow(container, onlyIfResized);
+                    } else {
+                        unattached.merge(container, onlyIfResized, Boolean::logicalAnd);
+                    }
+                }
+            }
+            if (!pending.isEmpty()) {
+                HarmonicsCore.logger.warn("Layout did not settle after {} passes, {} containers are left for the next frame",
+                        MAX_PASSES, pending.size());
+            }
+        } finally {
+            flushing = false;
+            // An unattached container is the root of its own tree without a window, so it belongs to the detached requests
+            unattached.forEach((container, onlyIfResized) -> detached.pending.merge(container, onlyIfResized, Boolean::logicalAnd));
+        }
+    }
+
+    private static void reflow(IContainer<?> container, boolean onlyIfResized) {
+        if (onlyIfResized && !isResized(container)) {
+            return;
+        }
+        IContainer<?> previous = current;
+        current = container;
+        // Report the moved children as one damaged area of the container
+        AbstractWidget widget = container instanceof AbstractWidget ? (AbstractWidget) container : null;
+        if (widget != null) {
+            widget.beginChildMoves();
+        }
+        try {
+            container.reflow();
+        } finally {
+            current = previous;
+            if (widget != null) {
+                widget.endChildMoves();
+            }
+        }
+        laidOutSizes.put(container, packSize(container));
+    }
+
+    private static boolean isResized(IContainer<?> container) {
+        Long laidOutSize = laidOutSizes.get(container);
+        return laidOutSize == null || laidOutSize != packSize(container);
+    }
+
+    private static long packSize(IWidget widget) {
+        return ((long) widget.getWidth() << 32) | (widget.getHeight() & 0xffffffffL);
+    }
+
+    private static int getDepth(IWidget widget) {
+        int depth = 0;
+        for (IWidget parent = widget.getParent(); parent != null; parent = parent.getParent()) {
+            depth++;
+        }
+        return depth;
+    }
+}
@@ -5,9 +5,10 @@ import powerlessri.harmonics.gui.layout.properties.BoxSizing;
 import powerlessri.harmonics.gui.widget.IWidget;
 
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
-import static powerlessri.harmonics.gui.Render2D.isInside;
+import java.util.function.IntUnaryOperator;
 
 public class StrictTableLayout {
 
@@ -61,74 +62,273 @@ public class StrictTableLayout {
 
         public abstract int computeNextY(int originalY, int height, int margin);
 
-    }
+        public boolean isVertical() {
+            return this == UP || this == DOWN;
+        }
 
-    /**
-     * Test whether the given rectangle is completely inside the region from {@code (0,0)} to {@code (mx,my)}. Completely inside means all
-     * four vertices are inside the given region.
-     */
-    private static boolean isCompletelyInside(int x, int y, int width, int height, int mx, int my) {
-        return isInside(x, y, mx, my) &&
-                isInside(x, y + height, mx, my) &&
-                isInside(x + width, y + height, mx, my) &&
-                isInside(x + width, y, mx, my);
+        /**
+         * @return {@code true} if this direction goes towards negative coordinates.
+         */
+        public boolean isReversed() {
+            return this == UP || this == LEFT;
+        }
     }
 
     public GrowDirection stackDirection;
     public GrowDirection overflowDirection;
     public int tableGap;
 
+    // Computed table, see compute()
+    private int itemCount;
+    private int itemsPerLine = 1;
+    private int lineCount;
+    // Uniform tables only store the size of a cell, other tables store prefix sums of slot (along stackDirection) and line sizes, gaps
+    // included, so that starts[k] is the offset of slot/line k and starts[k + 1] - tableGap its end
+    private boolean uniform = true;
+    private int uniformSlotSize;
+    private int uniformLineSize;
+    private int[] slotStarts = new int[1];
+    private int[] lineStarts = new int[1];
+
     public StrictTableLayout(GrowDirection stackDirection, GrowDirection overflowDirection, int tableGap) {
         this.stackDirection = stackDirection;
         this.overflowDirection = overflowDirection;
         this.tableGap = tableGap;
     }
 
+    /**
+     * Place the widgets in a table: widgets are stacked towards {@link #stackDirection} until the next one would not fit inside the bounds,
+     * after which a new line is started towards {@link #overflowDirection}. Widgets may have different sizes, each slot of a line is as
+     * large as the largest widget in it over all lines and each line is as large as its largest widget. Widgets excluded by {@link
+     * BoxSizing#shouldIncludeWidget(IWidget)} do not take up a slot, and are not counted by the index methods of this class.
+     */
     @SuppressWarnings("UnusedReturnValue")
     public <T extends IWidget> List<T> reflow(Dimension bounds, List<T> widgets) {
-        Preconditions.checkArgument(isWidgetDimensionsIdentical(widgets));
-
-        int nextX = 0;
-        int nextY = 0;
-        int headX = nextX;
-        int headY = nextY;
-
+        List<T> included = widgets;
         for (T widget : widgets) {
             if (!BoxSizing.shouldIncludeWidget(widget)) {
-                continue;
+                included = new ArrayList<>(widgets.size());
+                for (T w : widgets) {
+                    if (BoxSizing.shouldIncludeWidget(w)) {
+                        included.add(w);
+                    }
+                }
+                break;
             }
-
-            widget.setLocation(nextX, nextY);
-
-            int width = widget.getFullWidth();
-            int height = widget.getFullHeight();
-            nextX = stackDirection.computeNextX(nextX, width, tableGap);
-            nextY = stackDirection.computeNextY(nextY, height, tableGap);
-            if (!isCompletelyInside(nextX, nextY, width, height, bounds.width, bounds.height)) {
-                nextX = headX = overflowDirection.computeNextX(headX, width, tableGap);
-                nextY = headY = overflowDirection.computeNextY(headY, height, tableGap);
+        }
+        List<T> items = included;
+        compute(bounds, items.size(), i -> items.get(i).getFullWidth(), i -> items.get(i).getFullHeight());
+        for (int i = 0; i < items.size(); i++) {
+            T widget = items.get(i);
+            int x = getItemX(i);
+            int y = getItemY(i);
+            if (widget.getX() != x || widget.getY() != y) {
+                widget.setLocation(x, y);
             }
         }
         return widgets;
     }
 
     /**
-     * Test whether all widgets have the same dimension or not. Currently this layout implementation does not support widgets with different
-     * sizes.
+     * Compute the table for the given number of items without placing anything, so that positions can be queried with {@link #getItemX(int)}
+     * and {@link #getItemY(int)}, or {@link #getItemAt(int, int)}. This takes O(n) time, or O(1) with {@link #computeUniform(Dimension, int,
+     * int, int)} when all items have the same size.
+     *
+     * @param fullWidth  Full width of the item at the given index
+     * @param fullHeight Full height of the item at the given index
+     */
+    public void compute(Dimension bounds, int count, IntUnaryOperator fullWidth, IntUnaryOperator fullHeight) {
+        checkDirections();
+        boolean vertical = stackDirection.isVertical();
+        IntUnaryOperator mainSize = vertical ? fullHeight : fullWidth;
+        IntUnaryOperator crossSize = vertical ? fullWidth : fullHeight;
+
+        int maxMain = 0;
+        boolean identical = true;
+        int firstMain = count > 0 ? mainSize.applyAsInt(0) : 0;
+        int firstCross = count > 0 ? crossSize.applyAsInt(0) : 0;
+        for (int i = 0; i < count; i++) {
+            int main = mainSize.applyAsInt(i);
+            maxMain = Math.max(maxMain, main);
+            identical &= main == firstMain && crossSize.applyAsInt(i) == firstCross;
+        }
+        if (identical) {
+            computeUniform(bounds, count, count == 0 ? 0 : fullWidth.applyAsInt(0), count == 0 ? 0 : fullHeight.applyAsInt(0));
+            return;
+        }
+
+        uniform = false;
+        itemCount = count;
+        itemsPerLine = computeItemsPerLine(vertical ? bounds.height : bounds.width, maxMain);
+        lineCount = (count + itemsPerLine - 1) / itemsPerLine;
+        slotStarts = ensureCapacity(slotStarts, itemsPerLine + 1);
+        lineStarts = ensureCapacity(lineStarts, lineCount + 1);
+        Arrays.fill(slotStarts, 0, itemsPerLine + 1, 0);
+        Arrays.fill(lineStarts, 0, lineCount + 1, 0);
+
+        // Sizes first, stored one index ahead so that they can be turned into prefix sums in place
+        for (int i = 0; i < count; i++) {
+            int slot = i % itemsPerLine;
+            int line = i / itemsPerLine;
+            slotStarts[slot + 1] = Math.max(slotStarts[slot + 1], mainSize.applyAsInt(i));
+            lineStarts[line + 1] = Math.max(lineStarts[line + 1], crossSize.applyAsInt(i));
+        }
+        for (int k = 1; k <= itemsPerLine; k++) {
+            slotStarts[k] += slotStarts[k - 1] + tableGap;
+        }
+        for (int k = 1; k <= lineCount; k++) {
+            lineStarts[k] += lineStarts[k - 1] + tableGap;
+        }
+    }
+
+    /**
+     * Compute the table for the given number of items that all have the same full size in O(1).
      */
-    private boolean isWidgetDimensionsIdentical(List<? extends IWidget> widgets) {
-        if (widgets.isEmpty()) {
-            return true;
+    public void computeUniform(Dimension bounds, int count, int fullWidth, int fullHeight) {
+        checkDirections();
+        boolean vertical = stackDirection.isVertical();
+        uniform = true;
+        itemCount = count;
+        uniformSlotSize = vertical ? fullHeight : fullWidth;
+        uniformLineSize = vertical ? fullWidth : fullHeight;
+        itemsPerLine = computeItemsPerLine(vertical ? bounds.height : bounds.width, uniformSlotSize);
+        lineCount = (count + itemsPerLine - 1) / itemsPerLine;
+    }
+
+    private void checkDirections() {
+        Preconditions.checkState(stackDirection.isVertical() != overflowDirection.isVertical(),
+                "Stack and overflow directions must be perpendicular");
+    }
+
+    private int computeItemsPerLine(int bound, int size) {
+        // The next item has to be strictly inside the bounds, matching Render2D.isInside()
+        if (bound - size - 1 < 0 || size + tableGap <= 0) {
+            return 1;
         }
+        return (bound - size - 1) / (size + tableGap) + 1;
+    }
+
+    private static int[] ensureCapacity(int[] array, int length) {
+        return array.length >= length ? array : new int[Math.max(length, array.length * 2)];
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
 
-        IWidget first = widgets.get(0);
-        int commonWidth = first.getFullWidth();
-        int commonHeight = first.getFullHeight();
-        for (IWidget widget : widgets) {
-            if (commonWidth != widget.getFullWidth() || commonHeight != widget.getFullHeight()) {
-                return false;
+    public int getItemsPerLine() {
+        return itemsPerLine;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    private int getSlotStart(int slot) {
+        return uniform ? slot * (uniformSlotSize + tableGap) : slotStarts[slot];
+    }
+
+    private int getSlotSize(int slot) {
+        return uniform ? uniformSlotSize : slotStarts[slot + 1] - slotStarts[slot] - tableGap;
+    }
+
+    private int getLineStart(int line) {
+        return uniform ? line * (uniformLineSize + tableGap) : lineStarts[line];
+    }
+
+    private int getLineSize(int line) {
+        return uniform ? uniformLineSize : lineStarts[line + 1] - lineStarts[line] - tableGap;
+    }
+
+    // Position of a slot/line along its direction; reversed directions mirror the table around the end of the first slot/line
+    private int getSlotPosition(int slot) {
+        return stackDirection.isReversed() ? getSlotSize(0) - getSlotStart(slot) - getSlotSize(slot) : getSlotStart(slot);
+    }
+
+    private int getLinePosition(int line) {
+        return overflowDirection.isReversed() ? getLineSize(0) - getLineStart(line) - getLineSize(line) : getLineStart(line);
+    }
+
+    /**
+     * @return Relative x of the item with the given index, in O(1).
+     */
+    public int getItemX(int index) {
+        return stackDirection.isVertical() ? getLinePosition(index / itemsPerLine) : getSlotPosition(index % itemsPerLine);
+    }
+
+    /**
+     * @return Relative y of the item with the given index, in O(1).
+     */
+    public int getItemY(int index) {
+        return stackDirection.isVertical() ? getSlotPosition(index % itemsPerLine) : getLinePosition(index / itemsPerLine);
+    }
+
+    /**
+     * @return Index of the first item in the line containing the given coordinate along {@link #overflowDirection}, which is at most {@link
+     * #getItemCount()}. Together with the item count per line, this gives the range of items intersecting a viewport.
+     */
+    public int getFirstIndexOfLineAt(int position) {
+        if (itemCount == 0) {
+            return 0;
+        }
+        int q = overflowDirection.isReversed() ? getLineSize(0) - 1 - position : position;
+        int line = uniform ? floorDiv(q, uniformLineSize + tableGap) : findStart(lineStarts, lineCount, q);
+        return Math.min(Math.max(line, 0) * itemsPerLine, itemCount);
+    }
+
+    /**
+     * @return Index of the item whose cell contains the given relative position, or -1 if there is none (outside the table or in a gap). This
+     * takes O(log n) time, or O(1) for uniform tables.
+     */
+    public int getItemAt(int x, int y) {
+        boolean vertical = stackDirection.isVertical();
+        int slot = findSlot(vertical ? y : x);
+        int line = findLine(vertical ? x : y);
+        if (slot == -1 || line == -1) {
+            return -1;
+        }
+        int index = line * itemsPerLine + slot;
+        return index < itemCount ? index : -1;
+    }
+
+    private int findSlot(int position) {
+        int q = stackDirection.isReversed() ? getSlotSize(0) - 1 - position : position;
+        int slot = uniform ? floorDiv(q, uniformSlotSize + tableGap) : findStart(slotStarts, itemsPerLine, q);
+        if (slot < 0 || slot >= itemsPerLine || q - getSlotStart(slot) >= getSlotSize(slot)) {
+            return -1;
+        }
+        return slot;
+    }
+
+    private int findLine(int position) {
+        int q = overflowDirection.isReversed() ? getLineSize(0) - 1 - position : position;
+        int line = uniform ? floorDiv(q, uniformLineSize + tableGap) : findStart(lineStarts, lineCount, q);
+        if (line < 0 || line >= lineCount || q - getLineStart(line) >= getLineSize(line)) {
+            return -1;
+        }
+        return line;
+    }
+
+    private static int floorDiv(int q, int step) {
+        return step <= 0 ? 0 : Math.floorDiv(q, step);
+    }
+
+    /**
+     * @return Largest k in [0, count) with {@code starts[k] <= q}, or -1 if q is before the first start.
+     */
+    private static int findStart(int[] starts, int count, int q) {
+        int lo = 0;
+        int hi = count - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] <= q) {
+                result = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
             }
         }
-        return true;
+        return result;
     }
 }
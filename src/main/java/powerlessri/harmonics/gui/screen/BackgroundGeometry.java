@@ -0,0 +1,115 @@
+package powerlessri.harmonics.gui.screen;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.util.ResourceLocation;
+import powerlessri.harmonics.gui.ITexture;
+import powerlessri.harmonics.gui.PackedVertexWriter;
+import powerlessri.harmonics.gui.Render2D;
+
+import javax.annotation.Nullable;
+
+import static powerlessri.harmonics.gui.Render2D.*;
+
+/**
+ * Pre-computed quads of a background, relative to its top left corner. Texture coordinates are stored in the source texture's space so
+ * that they go through the {@link powerlessri.harmonics.gui.GuiTextureAtlas} remapping when drawn.
+ */
+final class BackgroundGeometry {
+
+    @Nullable
+    private final ResourceLocation texture;
+    // x1, y1, x2, y2 for each quad
+    private final int[] texturedPositions;
+    // u1, v1, u2, v2 for each quad
+    private final float[] texturedUVs;
+    // x1, y1, x2, y2, packed color for each quad
+    private final int[] coloredQuads;
+
+    private BackgroundGeometry(@Nullable ResourceLocation texture, int[] texturedPositions, float[] texturedUVs, int[] coloredQuads) {
+        this.texture = texture;
+        this.texturedPositions = texturedPositions;
+        this.texturedUVs = texturedUVs;
+        this.coloredQuads = coloredQuads;
+    }
+
+    public int getVertexCount() {
+        return (texturedPositions.length / 4 + coloredQuads.length / 5) * 4;
+    }
+
+    public void draw(int x, int y, float z) {
+        if (texture != null) {
+            useTextureGLStates();
+            bindTexture(texture);
+            beginTexturedQuad();
+            for (int i = 0; i < texturedPositions.length; i += 4) {
+                textureVertices(
+                        x + texturedPositions[i], y + texturedPositions[i + 1], x + texturedPositions[i + 2], y + texturedPositions[i + 3], z,
+                        texturedUVs[i], texturedUVs[i + 1], texturedUVs[i + 2], texturedUVs[i + 3]);
+            }
+            Render2D.draw();
+        }
+        if (coloredQuads.length > 0) {
+            disableTexture();
+            beginColoredQuad();
+            BufferBuilder buffer = buffer();
+            for (int i = 0; i < coloredQuads.length; i += 5) {
+                PackedVertexWriter.coloredRect(buffer, x + coloredQuads[i], y + coloredQuads[i + 1], x + coloredQuads[i + 2], y + coloredQuads[i + 3], z, coloredQuads[i + 4]);
+            }
+            Render2D.draw();
+            enableTexture();
+        }
+    }
+
+    public static final class Builder {
+
+        private ResourceLocation texture;
+        private final IntArrayList texturedPositions = new IntArrayList();
+        private final FloatArrayList texturedUVs = new FloatArrayList();
+        private final IntArrayList coloredQuads = new IntArrayList();
+
+        /**
+         * Add a quad showing the given texture portion. All textured quads of a background must come from the same texture.
+         */
+        @SuppressWarnings("UnusedReturnValue")
+        public Builder textured(ITexture portion, int x1, int y1, int x2, int y2) {
+            if (texture == null) {
+                texture = portion.getResourceLocation();
+            } else {
+                Preconditions.checkArgument(texture.equals(portion.getResourceLocation()));
+            }
+            float texWidth = portion.getTextureWidth();
+            float texHeight = portion.getTextureHeight();
+            texturedPositions.add(x1);
+            texturedPositions.add(y1);
+            texturedPositions.add(x2);
+            texturedPositions.add(y2);
+            texturedUVs.add(portion.getPortionX() / texWidth);
+            texturedUVs.add(portion.getPortionY() / texHeight);
+            texturedUVs.add((portion.getPortionX() + portion.getPortionWidth()) / texWidth);
+            texturedUVs.add((portion.getPortionY() + portion.getPortionHeight()) / texHeight);
+            return this;
+        }
+
+        @SuppressWarnings("UnusedReturnValue")
+        public Builder textured(ITexture portion, int x, int y) {
+            return textured(portion, x, y, x + portion.getPortionWidth(), y + portion.getPortionHeight());
+        }
+
+        @SuppressWarnings("UnusedReturnValue")
+        public Builder colored(int x1, int y1, int x2, int y2, int color) {
+            coloredQuads.add(x1);
+            coloredQuads.add(y1);
+            coloredQuads.add(x2);
+            coloredQuads.add(y2);
+            coloredQuads.add(PackedVertexWriter.packColor(color));
+            return this;
+        }
+
+        public BackgroundGeometry build() {
+            return new BackgroundGeometry(texture, texturedPositions.toIntArray(), texturedUVs.toFloatArray(), coloredQuads.toIntArray());
+        }
+    }
+}
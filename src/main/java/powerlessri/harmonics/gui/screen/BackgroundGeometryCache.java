@@ -0,0 +1,107 @@
+package powerlessri.harmonics.gui.screen;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+/**
+ * Cache of background geometry, keyed by style and size only. The geometry is stored relative to the background's top left corner and
+ * translated when drawn, so moving a background around (e.g. dragging a window) never rebuilds it.
+ * <p>
+ * The geometry is plain vertex data that gets written into the frame-wide {@link powerlessri.harmonics.gui.QuadBatch}, so there are no GL
+ * objects to be deleted upon eviction. Entries are evicted in least-recently-used order once the total vertex count exceeds
+ * {@link #MAX_VERTICES}.
+ * <p>
+ * This cache is not thread safe and should only be used from the render thread.
+ */
+public final class BackgroundGeometryCache {
+
+    private BackgroundGeometryCache() {
+    }
+
+    public enum Style {
+        FLAT {
+            @Override
+            BackgroundGeometry bake(int width, int height) {
+                return BackgroundRenderers.bakeFlatStyle(width, height);
+            }
+        },
+        VANILLA_4x4 {
+            @Override
+            BackgroundGeometry bake(int width, int height) {
+                return BackgroundRenderers.bakeVanillaStyle4x4(width, height);
+            }
+        },
+        VANILLA_3x3 {
+            @Override
+            BackgroundGeometry bake(int width, int height) {
+                return BackgroundRenderers.bakeVanillaStyle3x3(width, height);
+            }
+        };
+
+        abstract BackgroundGeometry bake(int width, int height);
+    }
+
+    public static final int MAX_VERTICES = 16384;
+
+    private static final Long2ObjectLinkedOpenHashMap<BackgroundGeometry> cache = new Long2ObjectLinkedOpenHashMap<>();
+    private static int totalVertices = 0;
+
+    private static int hits = 0;
+    private static int misses = 0;
+    private static int evictions = 0;
+
+    public static void draw(Style style, int x, int y, int width, int height, float z) {
+        get(style, width, height).draw(x, y, z);
+    }
+
+    static BackgroundGeometry get(Style style, int width, int height) {
+        long key = ((long) style.ordinal() << 48) | ((long) (width & 0xffffff) << 24) | (height & 0xffffff);
+        BackgroundGeometry geometry = cache.getAndMoveToLast(key);
+        if (geometry != null) {
+            hits++;
+            return geometry;
+        }
+
+        misses++;
+        geometry = style.bake(width, height);
+        cache.putAndMoveToLast(key, geometry);
+        totalVertices += geometry.getVertexCount();
+        // Always keep the entry that was just added
+        while (totalVertices > MAX_VERTICES && cache.size() > 1) {
+            BackgroundGeometry evicted = cache.removeFirst();
+            totalVertices -= evicted.getVertexCount();
+            evictions++;
+        }
+        return geometry;
+    }
+
+    public static void clear() {
+        cache.clear();
+        totalVertices = 0;
+    }
+
+    public static int getSize() {
+        return cache.size();
+    }
+
+    public static int getTotalVertices() {
+        return totalVertices;
+    }
+
+    public static int getHits() {
+        return hits;
+    }
+
+    public static int getMisses() {
+        return misses;
+    }
+
+    public static int getEvictions() {
+        return evictions;
+    }
+
+    public static void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+}
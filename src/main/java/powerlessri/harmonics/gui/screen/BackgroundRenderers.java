@@ -1,14 +1,12 @@
 package powerlessri.harmonics.gui.screen;
 
 import com.google.common.base.Preconditions;
-import com.mojang.blaze3d.platform.GlStateManager;
 import net.minecraft.util.ResourceLocation;
 import powerlessri.harmonics.HarmonicsCore;
+import powerlessri.harmonics.gui.GuiTextureAtlas;
 import powerlessri.harmonics.gui.ITexture;
 import powerlessri.harmonics.gui.Texture;
 
-import static powerlessri.harmonics.gui.Render2D.*;
-
 public final class BackgroundRenderers {
 
     private BackgroundRenderers() {
@@ -36,19 +34,15 @@ public final class BackgroundRenderers {
      */
     public static void drawFlatStyle(int x, int y, int width, int height, float z) {
         Preconditions.checkArgument(width >= 4 && height >= 4);
+        BackgroundGeometryCache.draw(BackgroundGeometryCache.Style.FLAT, x, y, width, height, z);
+    }
 
-        int x2 = x + width;
-        int y2 = y + height;
-
-        GlStateManager.disableTexture();
-        beginColoredQuad();
-        {
-            coloredRect(x, y, x2, y2, z, DARK_BORDER_COLOR);
-            coloredRect(x, y, x2 - 2, y2 - 2, z, LIGHT_BORDER_COLOR);
-            coloredRect(x + 2, y + 2, x2 - 2, y2 - 2, z, BACKGROUND_COLOR);
-        }
-        draw();
-        GlStateManager.enableTexture();
+    static BackgroundGeometry bakeFlatStyle(int width, int height) {
+        return new BackgroundGeometry.Builder()
+                .colored(0, 0, width, height, DARK_BORDER_COLOR)
+                .colored(0, 0, width - 2, height - 2, LIGHT_BORDER_COLOR)
+                .colored(2, 2, width - 2, height - 2, BACKGROUND_COLOR)
+                .build();
     }
 
     ///////////////////////////////////////////////////////////////////////////
@@ -59,6 +53,10 @@ public final class BackgroundRenderers {
     private static final int TEX_WIDTH = 256;
     private static final int TEX_HEIGHT = 256;
 
+    static {
+        GuiTextureAtlas.register(GENERIC_COMPONENTS);
+    }
+
     public static final ITexture TOP_LEFT_CORNER4x4 = Texture.portion(GENERIC_COMPONENTS, TEX_WIDTH, TEX_HEIGHT, 0, 0, 4, 4);
     public static final ITexture TOP_RIGHT_CORNER4x4 = TOP_LEFT_CORNER4x4.moveRight(1);
     public static final ITexture BOTTOM_LEFT_CORNER4x4 = TOP_LEFT_CORNER4x4.moveRight(2);
@@ -86,38 +84,13 @@ public final class BackgroundRenderers {
      */
     public static void drawVanillaStyle4x4(int x, int y, int width, int height, float z) {
         Preconditions.checkArgument(width >= 8 && height >= 8);
+        BackgroundGeometryCache.draw(BackgroundGeometryCache.Style.VANILLA_4x4, x, y, width, height, z);
+    }
 
-        int bodyWidth = width - 4 * 2;
-        int bodyHeight = height - 4 * 2;
-        int bodyX = x + 4;
-        int bodyY = y + 4;
-        int bodyXRight = bodyX + bodyWidth;
-        int bodyYBottom = bodyY + bodyHeight;
-        useTextureGLStates();
-        beginTexturedQuad();
-        bindTexture(GENERIC_COMPONENTS);
-        {
-            int cornerXRight = x + width - 4;
-            int cornerYBottom = y + height - 4;
-            TOP_LEFT_CORNER4x4.vertices(x, y, z);
-            TOP_RIGHT_CORNER4x4.vertices(cornerXRight, y, z);
-            BOTTOM_LEFT_CORNER4x4.vertices(x, cornerYBottom, z);
-            BOTTOM_RIGHT_CORNER4x4.vertices(cornerXRight, cornerYBottom, z);
-
-            if (bodyWidth > 0) {
-                TOP_EDGE4x4.vertices(bodyX, y, bodyXRight, y + 4, z);
-                BOTTOM_EDGE4x4.vertices(bodyX, bodyYBottom, bodyXRight, bodyYBottom + 4, z);
-            }
-            if (bodyHeight > 0) {
-                LEFT_EDGE4x4.vertices(x, bodyY, x + 4, bodyYBottom, z);
-                RIGHT_EDGE4x4.vertices(bodyXRight, bodyY, bodyXRight + 4, bodyYBottom, z);
-            }
-        }
-        draw();
-
-        if (bodyWidth > 0 && bodyHeight > 0) {
-            lightGrayRect(bodyX, bodyY, bodyWidth, bodyHeight, z);
-        }
+    static BackgroundGeometry bakeVanillaStyle4x4(int width, int height) {
+        return bakeVanillaStyle(width, height, 4,
+                TOP_LEFT_CORNER4x4, TOP_RIGHT_CORNER4x4, BOTTOM_LEFT_CORNER4x4, BOTTOM_RIGHT_CORNER4x4,
+                TOP_EDGE4x4, BOTTOM_EDGE4x4, LEFT_EDGE4x4, RIGHT_EDGE4x4);
     }
 
     public static final ITexture TOP_LEFT_CORNER3x3 = Texture.portion(GENERIC_COMPONENTS, TEX_WIDTH, TEX_HEIGHT, 0, 4, 3, 3);
@@ -135,45 +108,43 @@ public final class BackgroundRenderers {
      */
     public static void drawVanillaStyle3x3(int x, int y, int width, int height, float z) {
         Preconditions.checkArgument(width >= 6 && height >= 6);
+        BackgroundGeometryCache.draw(BackgroundGeometryCache.Style.VANILLA_3x3, x, y, width, height, z);
+    }
 
-        int bodyWidth = width - 3 * 2;
-        int bodyHeight = height - 3 * 2;
-        int bodyX = x + 3;
-        int bodyY = y + 3;
-        int bodyXRight = bodyX + bodyWidth;
-        int bodyYBottom = bodyY + bodyHeight;
-        useTextureGLStates();
-        beginTexturedQuad();
-        bindTexture(GENERIC_COMPONENTS);
-        {
-            int cornerXRight = x + width - 3;
-            int cornerYBottom = y + height - 3;
-            TOP_LEFT_CORNER3x3.vertices(x, y, z);
-            TOP_RIGHT_CORNER3x3.vertices(cornerXRight, y, z);
-            BOTTOM_LEFT_CORNER3x3.vertices(x, cornerYBottom, z);
-            BOTTOM_RIGHT_CORNER3x3.vertices(cornerXRight, cornerYBottom, z);
-
-            if (bodyWidth > 0) {
-                TOP_EDGE3x3.vertices(bodyX, y, bodyXRight, y + 3, z);
-                BOTTOM_EDGE3x3.vertices(bodyX, bodyYBottom, bodyXRight, bodyYBottom + 3, z);
-            }
-            if (bodyHeight > 0) {
-                LEFT_EDGE3x3.vertices(x, bodyY, x + 3, bodyYBottom, z);
-                RIGHT_EDGE3x3.vertices(bodyXRight, bodyY, bodyXRight + 3, bodyYBottom, z);
-            }
-        }
-        draw();
+    static BackgroundGeometry bakeVanillaStyle3x3(int width, int height) {
+        return bakeVanillaStyle(width, height, 3,
+                TOP_LEFT_CORNER3x3, TOP_RIGHT_CORNER3x3, BOTTOM_LEFT_CORNER3x3, BOTTOM_RIGHT_CORNER3x3,
+                TOP_EDGE3x3, BOTTOM_EDGE3x3, LEFT_EDGE3x3, RIGHT_EDGE3x3);
+    }
 
+    private static BackgroundGeometry bakeVanillaStyle(
+            int width, int height, int border,
+            ITexture topLeft, ITexture topRight, ITexture bottomLeft, ITexture bottomRight,
+            ITexture topEdge, ITexture bottomEdge, ITexture leftEdge, ITexture rightEdge
+    ) {
+        int bodyWidth = width - border * 2;
+        int bodyHeight = height - border * 2;
+        int bodyXRight = border + bodyWidth;
+        int bodyYBottom = border + bodyHeight;
+        int cornerXRight = width - border;
+        int cornerYBottom = height - border;
+
+        BackgroundGeometry.Builder builder = new BackgroundGeometry.Builder();
+        builder.textured(topLeft, 0, 0);
+        builder.textured(topRight, cornerXRight, 0);
+        builder.textured(bottomLeft, 0, cornerYBottom);
+        builder.textured(bottomRight, cornerXRight, cornerYBottom);
+        if (bodyWidth > 0) {
+            builder.textured(topEdge, border, 0, bodyXRight, border);
+            builder.textured(bottomEdge, border, bodyYBottom, bodyXRight, bodyYBottom + border);
+        }
+        if (bodyHeight > 0) {
+            builder.textured(leftEdge, 0, border, border, bodyYBottom);
+            builder.textured(rightEdge, bodyXRight, border, bodyXRight + border, bodyYBottom);
+        }
         if (bodyWidth > 0 && bodyHeight > 0) {
-            lightGrayRect(bodyX, bodyY, bodyWidth, bodyHeight, z);
+            builder.colored(border, border, bodyXRight, bodyYBottom, 0xffc6c6c6);
         }
-    }
-
-    private static void lightGrayRect(int bodyX, int bodyY, int bodyWidth, int bodyHeight, float z) {
-        GlStateManager.disableTexture();
-        beginColoredQuad();
-        coloredRect(bodyX, bodyY, bodyX + bodyWidth, bodyY + bodyHeight, z, 0xffc6c6c6);
-        draw();
-        GlStateManager.enableTexture();
+        return builder.build();
     }
 }
\ No newline at end of file
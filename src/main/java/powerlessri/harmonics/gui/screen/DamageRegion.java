@@ -0,0 +1,164 @@
+package powerlessri.harmonics.gui.screen;
+
+import java.util.Arrays;
+
+/**
+ * A small set of rectangles in GUI coordinates that need to be redrawn. Overlapping or touching rectangles are merged as they are added.
+ * Once there would be more than {@link #MAX_RECTANGLES} rectangles, the new one is merged into the existing rectangle that grows the
+ * least, so that the number of redraw passes stays bounded.
+ */
+final class DamageRegion {
+
+    public static final int MAX_RECTANGLES = 8;
+
+    // x1, y1, x2, y2 for each rectangle
+    private final int[] rectangles = new int[MAX_RECTANGLES * 4];
+    private int count = 0;
+
+    private int boundX2;
+    private int boundY2;
+
+    /**
+     * Set the area of the screen. Rectangles are clipped to it, and everything is damaged if it changed.
+     */
+    public void setBounds(int width, int height) {
+        if (boundX2 != width || boundY2 != height) {
+            boundX2 = width;
+            boundY2 = height;
+            addAll();
+        }
+    }
+
+    public void addAll() {
+        count = 0;
+        add(0, 0, boundX2, boundY2);
+    }
+
+    public void add(int x, int y, int width, int height) {
+        int x1 = Math.max(x, 0);
+        int y1 = Math.max(y, 0);
+        int x2 = Math.min(x + width, boundX2);
+        int y2 = Math.min(y + height, boundY2);
+        if (x1 >= x2 || y1 >= y2) {
+            return;
+        }
+
+        // Merge with everything the new rectangle touches, repeat since the union might touch more rectangles
+        boolean merged;
+        do {
+            merged = false;
+            for (int i = 0; i < count; i++) {
+                int j = i * 4;
+                if (x1 <= rectangles[j + 2] && rectangles[j] <= x2 && y1 <= rectangles[j + 3] && rectangles[j + 1] <= y2) {
+                    x1 = Math.min(x1, rectangles[j]);
+                    y1 = Math.min(y1, rectangles[j + 1]);
+                    x2 = Math.max(x2, rectangles[j + 2]);
+                    y2 = Math.max(y2, rectangles[j + 3]);
+                    remove(i);
+                    merged = true;
+                    break;
+                }
+            }
+        } while (merged);
+
+        if (count == MAX_RECTANGLES) {
+            int best = 0;
+            long bestGrowth = Long.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                int j = i * 4;
+                long area = (long) (rectangles[j + 2] - rectangles[j]) * (rectangles[j + 3] - rectangles[j + 1]);
+                long unionArea = (long) (Math.max(x2, rectangles[j + 2]) - Math.min(x1, rectangles[j])) *
+                        (Math.max(y2, rectangles[j + 3]) - Math.min(y1, rectangles[j + 1]));
+                if (unionArea - area < bestGrowth) {
+                    bestGrowth = unionArea - area;
+                    best = i;
+                }
+            }
+            int j = best * 4;
+            int ux1 = Math.min(x1, rectangles[j]);
+            int uy1 = Math.min(y1, rectangles[j + 1]);
+            int ux2 = Math.max(x2, rectangles[j + 2]);
+            int uy2 = Math.max(y2, rectangles[j + 3]);
+            remove(best);
+            // The union might touch other rectangles now
+            add(ux1, uy1, ux2 - ux1, uy2 - uy1);
+            return;
+        }
+
+        int j = count * 4;
+        rectangles[j] = x1;
+        rectangles[j + 1] = y1;
+        rectangles[j + 2] = x2;
+        rectangles[j + 3] = y2;
+        count++;
+    }
+
+    private void remove(int index) {
+        count--;
+        if (index != count) {
+            System.arraycopy(rectangles, count * 4, rectangles, index * 4, 4);
+        }
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Copy all rectangles into the given array as x, y, width, height, and then clear this region.
+     *
+     * @return Number of rectangles copied.
+     */
+    public int drainTo(int[] out) {
+        int copied = count;
+        for (int i = 0; i < copied; i++) {
+            int j = i * 4;
+            out[j] = getX(i);
+            out[j + 1] = getY(i);
+            out[j + 2] = getWidth(i);
+            out[j + 3] = getHeight(i);
+        }
+        count = 0;
+        return copied;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int index) {
+        return rectangles[index * 4];
+    }
+
+    public int getY(int index) {
+        return rectangles[index * 4 + 1];
+    }
+
+    public int getWidth(int index) {
+        return rectangles[index * 4 + 2] - rectangles[index * 4];
+    }
+
+    public int getHeight(int index) {
+        return rectangles[index * 4 + 3] - rectangles[index * 4 + 1];
+    }
+
+    /**
+     * @return Total area of all rectangles, in square GUI pixels.
+     */
+    public long getArea() {
+        long area = 0;
+        for (int i = 0; i < count; i++) {
+            area += (long) getWidth(i) * getHeight(i);
+        }
+        return area;
+    }
+
+    @Override
+    public String toString() {
+        return "DamageRegion" + Arrays.toString(Arrays.copyOf(rectangles, count * 4));
+    }
+}
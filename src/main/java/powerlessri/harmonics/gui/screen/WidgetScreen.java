@@ -1,17 +1,25 @@
 package powerlessri.harmonics.gui.screen;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
 import com.mojang.blaze3d.platform.GlStateManager;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.IGuiEventListener;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraftforge.fml.client.config.GuiUtils;
 import org.apache.commons.lang3.tuple.Triple;
+import powerlessri.harmonics.Config;
 import powerlessri.harmonics.HarmonicsCore;
 import powerlessri.harmonics.collections.CompositeCollection;
+import powerlessri.harmonics.gui.*;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.Inspections;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
+import powerlessri.harmonics.gui.layout.LayoutScheduler;
+import powerlessri.harmonics.gui.widget.IContainer;
+import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.window.IPopupWindow;
 import powerlessri.harmonics.gui.window.IWindow;
 
@@ -25,15 +33,27 @@ import static powerlessri.harmonics.gui.Render2D.*;
 public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     /**
-     * @throws ClassCastException If the current open screen is not a WidgetScreen
+     * @throws ClassCastException    If the current open screen is not a WidgetScreen
+     * @throws IllegalStateException If there is no client, e.g. when widgets are used headless
      */
     public static WidgetScreen assertActive() {
-        return (WidgetScreen) Minecraft.getInstance().currentScreen;
+        Minecraft minecraft = Minecraft.getInstance();
+        Preconditions.checkState(minecraft != null, "There is no client to have an open WidgetScreen");
+        return (WidgetScreen) minecraft.currentScreen;
     }
 
+    /**
+     * @return The current open screen if it is a WidgetScreen, or {@code null} if it is not or if there is no client at all. Use {@link
+     * #assertActive()} where a screen is required, so that headless code fails instead of skipping the work.
+     */
     @Nullable
     public static WidgetScreen activeNullable() {
-        Screen screen = Minecraft.getInstance().currentScreen;
+        Minecraft minecraft = Minecraft.getInstance();
+        // There is no client when widgets are used headless, e.g. in tests
+        if (minecraft == null) {
+            return null;
+        }
+        Screen screen = minecraft.currentScreen;
         if (screen instanceof WidgetScreen) {
             return (WidgetScreen) screen;
         }
@@ -55,6 +75,21 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
     private final Queue<Triple<List<String>, Integer, Integer>> tooltipRenderQueue = new ArrayDeque<>();
     private final Queue<Runnable> taskQueue = new ArrayDeque<>();
 
+    // Partial redraw states
+    private final DamageRegion damage = new DamageRegion();
+    // x, y, width, height of each rectangle being redrawn this frame
+    private final int[] redrawRectangles = new int[DamageRegion.MAX_RECTANGLES * 4];
+    private IRenderTarget screenTarget;
+    private IRenderBackend screenTargetBackend;
+    private final List<IWindow> lastWindows = new ArrayList<>();
+    private final IntArrayList lastWindowBounds = new IntArrayList();
+    private final IntArrayList windowBounds = new IntArrayList();
+    private List<IWidget> hoverPath = new ArrayList<>();
+    private List<IWidget> lastHoverPath = new ArrayList<>();
+    private int lastMouseX = Integer.MIN_VALUE;
+    private int lastMouseY = Integer.MIN_VALUE;
+    private long lastRedrawnArea = 0;
+
     protected WidgetScreen(ITextComponent title) {
         super(title);
         // Safe downwards erasure cast
@@ -68,7 +103,9 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
         primaryWindow = null;
         regularWindows.clear();
         popupWindows.clear();
-        RenderEventDispatcher.listeners.put(Inspections.class, inspectionHandler);
+        lastHoverPath.clear();
+        damage.addAll();
+        TextMeasurements.checkFontOptions();
     }
 
     @Override
@@ -106,9 +143,44 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
         // Dark transparent overlay
         renderBackground();
 
+        if (Config.CLIENT.inspectionsHighlighting.get()) {
+            RenderEventDispatcher.register(Inspections.class, inspectionHandler);
+        } else {
+            RenderEventDispatcher.unregister(Inspections.class);
+        }
+        GuiMetrics.beginFrame();
+        TextMeasurements.checkFontOptions();
+        // Deferred layout has to happen before damaged regions are collected, since moving widgets damages their areas
+        flushLayout();
         inspectionHandler.startCycle();
         GlStateManager.enableDepthTest();
         GlStateManager.enableAlphaTest();
+        if (GuiTextureAtlas.rebuildIfNeeded()) {
+            damage.addAll();
+        }
+        QuadBatch.beginFrame();
+        if (!Config.CLIENT.partialRedraw.get() || !renderDamaged(mouseX, mouseY, particleTicks)) {
+            renderWindows(mouseX, mouseY, particleTicks);
+            // The screen target will be stale when partial redraw gets used again
+            damage.addAll();
+            lastRedrawnArea = 0;
+        }
+        QuadBatch.endFrame();
+        GlStateManager.disableDepthTest();
+        inspectionHandler.endCycle();
+        GuiMetrics.endFrame(lastRedrawnArea);
+
+        // This should do nothing because we are not adding vanilla buttons
+        super.render(mouseX, mouseY, particleTicks);
+
+        while (!tooltipRenderQueue.isEmpty()) {
+            Triple<List<String>, Integer, Integer> entry = tooltipRenderQueue.remove();
+            GuiUtils.drawHoveringText(entry.getLeft(), entry.getMiddle(), entry.getRight(), windowWidth(), windowHeight(), Integer.MAX_VALUE, fontRenderer());
+        }
+        GuiMetrics.renderOverlay();
+    }
+
+    private void renderWindows(int mouseX, int mouseY, float particleTicks) {
         primaryWindow.render(mouseX, mouseY, particleTicks);
         for (IWindow window : regularWindows) {
             window.render(mouseX, mouseY, particleTicks);
@@ -118,18 +190,191 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
         float zOff = CONTEXT_MENU_Z - POPUP_WINDOW_Z;
         for (IPopupWindow window : popupWindows) {
             window.render(mouseX, mouseY, particleTicks);
+            QuadBatch.flush();
             GlStateManager.translatef(0F, 0F, zOff);
         }
         GlStateManager.popMatrix();
-        GlStateManager.disableDepthTest();
-        inspectionHandler.endCycle();
+    }
 
-        // This should do nothing because we are not adding vanilla buttons
-        super.render(mouseX, mouseY, particleTicks);
+    /**
+     * Redraw only the damaged parts of the windows into the persistent screen target, and then draw the target onto the screen.
+     *
+     * @return {@code false} if the render backend does not support offscreen rendering, and nothing has been done.
+     */
+    private boolean renderDamaged(int mouseX, int mouseY, float particleTicks) {
+        IRenderBackend backend = Render2D.backend();
+        if (screenTargetBackend != backend) {
+            deleteScreenTarget();
+            screenTarget = backend.createRenderTarget(width, height);
+            screenTargetBackend = backend;
+            damage.addAll();
+        } else if (screenTarget != null && (screenTarget.getWidth() != width || screenTarget.getHeight() != height)) {
+            screenTarget.resize(width, height);
+            damage.addAll();
+        }
+        if (screenTarget == null) {
+            return false;
+        }
 
-        while (!tooltipRenderQueue.isEmpty()) {
-            Triple<List<String>, Integer, Integer> entry = tooltipRenderQueue.remove();
-            GuiUtils.drawHoveringText(entry.getLeft(), entry.getMiddle(), entry.getRight(), windowWidth(), windowHeight(), Integer.MAX_VALUE, fontRenderer());
+        collectDamage(mouseX, mouseY);
+        lastRedrawnArea = damage.getArea();
+        // Take the rectangles out before redrawing, so that only damage reported while rendering carries over to the next frame
+        int count = damage.drainTo(redrawRectangles);
+        if (count > 0) {
+            Render2D.beginRenderTarget(screenTarget, 0, 0, false);
+            for (int i = 0; i < count; i++) {
+                int j = i * 4;
+                ScissorTest.push(redrawRectangles[j], redrawRectangles[j + 1], redrawRectangles[j + 2], redrawRectangles[j + 3]);
+                Render2D.clearRenderTarget(screenTarget);
+                renderWindows(mouseX, mouseY, particleTicks);
+                ScissorTest.pop();
+            }
+            Render2D.endRenderTarget(screenTarget);
+        }
+        Render2D.blitRenderTarget(screenTarget, 0, 0, 0F);
+        return true;
+    }
+
+    /**
+     * Add damage that widgets cannot report themselves: window changes, hover changes, focused widgets and the inspection overlay. The
+     * deepest widget under the mouse is always redrawn so that it can schedule tooltips.
+     */
+    private void collectDamage(int mouseX, int mouseY) {
+        damage.setBounds(width, height);
+        if (Config.CLIENT.inspectionsHighlighting.get()) {
+            damage.addAll();
+        }
+
+        windowBounds.clear();
+        windowBounds.add(primaryWindow.getX());
+        windowBounds.add(primaryWindow.getY());
+        windowBounds.add(primaryWindow.getWidth());
+        windowBounds.add(primaryWindow.getHeight());
+        for (IWindow window : windows) {
+            windowBounds.add(window.getX());
+            windowBounds.add(window.getY());
+            windowBounds.add(window.getWidth());
+            windowBounds.add(window.getHeight());
+        }
+        if (!windowBounds.equals(lastWindowBounds) || !Iterables.elementsEqual(windows, lastWindows)) {
+            damage.addAll();
+            lastWindowBounds.clear();
+            lastWindowBounds.addAll(windowBounds);
+            lastWindows.clear();
+            lastWindows.addAll(windows);
+        }
+
+        if (mouseX != lastMouseX || mouseY != lastMouseY) {
+            lastMouseX = mouseX;
+            lastMouseY = mouseY;
+            findHoverPath(mouseX, mouseY, hoverPath);
+            // Widgets that started or stopped being hovered
+            for (IWidget widget : hoverPath) {
+                if (!lastHoverPath.contains(widget)) {
+                    damage(widget);
+                }
+            }
+            for (IWidget widget : lastHoverPath) {
+                if (!hoverPath.contains(widget)) {
+                    damage(widget);
+                }
+            }
+            List<IWidget> swap = lastHoverPath;
+            lastHoverPath = hoverPath;
+            hoverPath = swap;
+        }
+        if (!lastHoverPath.isEmpty()) {
+            damage(lastHoverPath.get(lastHoverPath.size() - 1));
+        }
+
+        damageFocused(primaryWindow);
+        for (IWindow window : windows) {
+            damageFocused(window);
+        }
+    }
+
+    private void findHoverPath(int mouseX, int mouseY, List<IWidget> path) {
+        path.clear();
+        IWindow hovered = null;
+        for (IPopupWindow window : popupWindows) {
+            if (window.isInside(mouseX, mouseY)) {
+                hovered = window;
+                break;
+            }
+        }
+        for (int i = regularWindows.size() - 1; hovered == null && i >= 0; i--) {
+            IWindow window = regularWindows.get(i);
+            if (window.isInside(mouseX, mouseY)) {
+                hovered = window;
+            }
+        }
+        if (hovered == null && primaryWindow.isInside(mouseX, mouseY)) {
+            hovered = primaryWindow;
+        }
+        if (hovered != null) {
+            findHoverPath(hovered.getChildren(), mouseX, mouseY, path);
+        }
+    }
+
+    private static void findHoverPath(Collection<? extends IWidget> widgets, int mouseX, int mouseY, List<IWidget> path) {
+        for (IWidget widget : widgets) {
+            if (widget.isEnabled() && widget.isInside(mouseX, mouseY)) {
+                path.add(widget);
+                if (widget instanceof IContainer<?>) {
+                    findHoverPath(((IContainer<?>) widget).getChildren(), mouseX, mouseY, path);
+                }
+                return;
+            }
+        }
+    }
+
+    private void damageFocused(IWindow window) {
+        IWidget focused = window.getFocusedWidget();
+        if (focused != null) {
+            damage(focused);
+        }
+    }
+
+    private void damage(IWidget widget) {
+        damage.add(widget.getOuterAbsoluteX(), widget.getOuterAbsoluteY(), widget.getFullWidth(), widget.getFullHeight());
+    }
+
+    /**
+     * Mark the given area (in GUI coordinates) to be redrawn on the next frame. Has no effect if partial redraw is disabled.
+     */
+    public void damage(int x, int y, int width, int height) {
+        damage.add(x, y, width, height);
+    }
+
+    /**
+     * Mark the whole screen to be redrawn on the next frame.
+     */
+    public void damageAll() {
+        damage.addAll();
+    }
+
+    /**
+     * @return Area in square GUI pixels that was redrawn in the last frame. Always 0 if partial redraw is disabled or unsupported.
+     */
+    public long getLastRedrawnArea() {
+        return lastRedrawnArea;
+    }
+
+    private void deleteScreenTarget() {
+        if (screenTarget != null) {
+            screenTarget.delete();
+            screenTarget = null;
+        }
+        screenTargetBackend = null;
+    }
+
+    /**
+     * Lay out the containers of this screen's windows that requested it, so that rendering and hit tests see the current positions.
+     */
+    public void flushLayout() {
+        LayoutScheduler.flush(primaryWindow);
+        for (IWindow window : windows) {
+            LayoutScheduler.flush(window);
         }
     }
 
@@ -144,6 +389,8 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     @Override
     public boolean mouseClicked(double mouseX, double mouseY, int button) {
+        GuiMetrics.onEventDispatched();
+        flushLayout();
         boolean captured = false;
         IPopupWindow capturedWindow = null;
         passEvents:
@@ -175,6 +422,8 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     @Override
     public boolean mouseReleased(double mouseX, double mouseY, int button) {
+        GuiMetrics.onEventDispatched();
+        flushLayout();
         if (windows.stream().anyMatch(window -> window.mouseReleased(mouseX, mouseY, button))) {
             return true;
         } else {
@@ -184,6 +433,8 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     @Override
     public boolean mouseDragged(double mouseX, double mouseY, int button, double dragAmountX, double dragAmountY) {
+        GuiMetrics.onEventDispatched();
+        flushLayout();
         if (windows.stream().anyMatch(window -> window.mouseDragged(mouseX, mouseY, button, dragAmountX, dragAmountY))) {
             return true;
         } else {
@@ -193,6 +444,8 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     @Override
     public boolean mouseScrolled(double mouseX, double mouseY, double amountScrolled) {
+        GuiMetrics.onEventDispatched();
+        flushLayout();
         if (windows.stream().anyMatch(window -> window.mouseScrolled(mouseX, mouseY, amountScrolled))) {
             return true;
         } else {
@@ -202,6 +455,8 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     @Override
     public void mouseMoved(double mouseX, double mouseY) {
+        GuiMetrics.onEventDispatched();
+        flushLayout();
         for (IWindow window : windows) {
             window.mouseMoved(mouseX, mouseY);
         }
@@ -210,6 +465,7 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     @Override
     public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
+        GuiMetrics.onEventDispatched();
         if (windows.stream().anyMatch(window -> window.keyPressed(keyCode, scanCode, modifiers))) {
             return true;
         } else if (primaryWindow.keyPressed(keyCode, scanCode, modifiers)) {
@@ -229,6 +485,7 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     @Override
     public boolean keyReleased(int keyCode, int scanCode, int modifiers) {
+        GuiMetrics.onEventDispatched();
         if (windows.stream().anyMatch(window -> window.keyReleased(keyCode, scanCode, modifiers))) {
             return true;
         } else {
@@ -238,6 +495,7 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
 
     @Override
     public boolean charTyped(char charTyped, int keyCode) {
+        GuiMetrics.onEventDispatched();
         if (windows.stream().anyMatch(window -> window.charTyped(charTyped, keyCode))) {
             return true;
         } else {
@@ -249,8 +507,12 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
     public void removed() {
         for (IWindow window : windows) {
             window.onRemoved();
+            LayoutScheduler.clear(window);
         }
         primaryWindow.onRemoved();
+        LayoutScheduler.clear(primaryWindow);
+        deleteScreenTarget();
+        RenderEventDispatcher.unregister(Inspections.class);
     }
 
     @Override
@@ -267,6 +529,7 @@ public abstract class WidgetScreen extends Screen implements IGuiEventListener {
     public void removePopupWindow(IPopupWindow popup) {
         popupWindows.remove(popup);
         popup.onRemoved();
+        LayoutScheduler.clear(popup);
     }
 
     public void defer(Runnable task) {
@@ -29,6 +29,10 @@ public abstract class AbstractContainer<T extends IWidget> extends AbstractWidge
         }
     }
 
+    /**
+     * Notify the children that this container has moved. Not needed for {@link AbstractWidget}s, which resolve their absolute position
+     * lazily, but kept for children that track their position themselves.
+     */
     public void notifyChildrenForPositionChange() {
         // Prevent NPE when containers setting coordinates before child widgets get initialized
         if (getChildren() != null) {
@@ -38,36 +42,6 @@ public abstract class AbstractContainer<T extends IWidget> extends AbstractWidge
         }
     }
 
-    @Override
-    public void onParentPositionChanged() {
-        super.onParentPositionChanged();
-        notifyChildrenForPositionChange();
-    }
-
-    @Override
-    public void onRelativePositionChanged() {
-        super.onRelativePositionChanged();
-        notifyChildrenForPositionChange();
-    }
-
-    @Override
-    public void setLocation(int x, int y) {
-        super.setLocation(x, y);
-        notifyChildrenForPositionChange();
-    }
-
-    @Override
-    public void setX(int x) {
-        super.setX(x);
-        notifyChildrenForPositionChange();
-    }
-
-    @Override
-    public void setY(int y) {
-        super.setY(y);
-        notifyChildrenForPositionChange();
-    }
-
     public void adjustMinContent() {
         int rightmost = 0;
         int bottommost = 0;
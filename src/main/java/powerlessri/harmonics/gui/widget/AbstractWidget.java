@@ -6,6 +6,7 @@ import powerlessri.harmonics.gui.contextmenu.ContextMenuBuilder;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.Inspections;
 import powerlessri.harmonics.gui.layout.properties.*;
+import powerlessri.harmonics.gui.screen.WidgetScreen;
 import powerlessri.harmonics.gui.widget.mixin.ResizableWidgetMixin;
 import powerlessri.harmonics.gui.window.IWindow;
 
@@ -14,6 +15,39 @@ import java.awt.*;
 
 public abstract class AbstractWidget implements IWidget, Inspections.IInfoProvider, Inspections.IHighlightRenderer, ISizedBox, ResizableWidgetMixin {
 
+    /**
+     * Counter of position changes within one widget tree. When the root of a tree is attached to another widget, its epoch is forwarded to
+     * the epoch of the new parent's tree, so that widgets attached before that follow the merged tree without being visited.
+     */
+    private static final class PositionEpoch {
+
+        // Values are unique across all trees, so that a cached position never matches the epoch of a tree it was not computed in. A long does
+        // not wrap around within any session, so a stale value can never come back or reach the -1 of widgets that were never positioned
+        private static long nextValue = 0;
+
+        private long value = nextValue++;
+        private PositionEpoch merged;
+
+        private PositionEpoch resolve() {
+            PositionEpoch root = this;
+            while (root.merged != null) {
+                root = root.merged;
+            }
+            // Path compression
+            PositionEpoch epoch = this;
+            while (epoch != root) {
+                PositionEpoch next = epoch.merged;
+                epoch.merged = root;
+                epoch = next;
+            }
+            return root;
+        }
+
+        private void advance() {
+            value = nextValue++;
+        }
+    }
+
     private Point location;
     private Dimension dimensions;
     private Insets border = new Insets(0, 0, 0, 0);
@@ -23,9 +57,17 @@ public abstract class AbstractWidget implements IWidget, Inspections.IInfoProvid
     private IWindow window;
     private IWidget parent;
 
-    // Cached because this might reach all the up to the root node by recursion on getAbsoluteX/Y
+    // Advanced whenever a widget in this tree moves, which invalidates every cached absolute position in the tree at once
+    private PositionEpoch epoch = new PositionEpoch();
+
+    // Cached because this might reach all the up to the root node by recursion on getAbsoluteX/Y, valid while absEpoch is the epoch value
     private int absX;
     private int absY;
+    private long absEpoch = -1;
+
+    // Set while this widget lays out its children, see beginChildMoves()
+    private boolean batchingChildMoves = false;
+    private boolean childrenMoved = false;
 
     public AbstractWidget() {
         this.location = new Point();
@@ -37,6 +79,19 @@ public abstract class AbstractWidget implements IWidget, Inspections.IInfoProvid
         IWidget oldParent = parent;
         this.parent = newParent;
         this.window = newParent.getWindow();
+        if (newParent instanceof AbstractWidget) {
+            PositionEpoch parentEpoch = ((AbstractWidget) newParent).resolveEpoch();
+            if (oldParent == null) {
+                // Take along everything that has been attached to this widget so far
+                PositionEpoch ownEpoch = resolveEpoch();
+                if (ownEpoch != parentEpoch) {
+                    ownEpoch.merged = parentEpoch;
+                }
+            } else {
+                // Leave the old tree alone, containers reattach their children which then follow this widget
+                epoch = parentEpoch;
+            }
+        }
         onParentPositionChanged();
         onAttach(oldParent, newParent);
         if (oldParent == null) {
@@ -66,22 +121,122 @@ public abstract class AbstractWidget implements IWidget, Inspections.IInfoProvid
         onParentPositionChanged();
     }
 
+    /**
+     * Invalidate the cached absolute positions of all widgets in the tree of this widget. Each widget recomputes its position from its
+     * parent the next time it is read, so moving a widget costs the same no matter how many descendants it has.
+     */
+    public void invalidateAbsolutePositions() {
+        resolveEpoch().advance();
+    }
+
+    private PositionEpoch resolveEpoch() {
+        epoch = epoch.resolve();
+        return epoch;
+    }
+
     @Override
     public void onParentPositionChanged() {
         Preconditions.checkState(isValid());
-        updateAbsolutePosition();
+        invalidateAbsolutePositions();
     }
 
     @Override
     public void onRelativePositionChanged() {
-        if (isValid()) {
-            updateAbsolutePosition();
+        invalidateAbsolutePositions();
+        markDirty();
+    }
+
+    @Override
+    public void onDimensionChanged() {
+        markDirty();
+    }
+
+    /**
+     * Notify the ancestors of this widget that its appearance has changed, so that e.g. an enclosing {@link
+     * powerlessri.harmonics.gui.widget.panel.RenderBoundary} redraws its cached contents, and report the area of this widget as damaged to
+     * the active {@link WidgetScreen}. Widgets should call this whenever their looks change due to something other than the mouse
+     * position.
+     */
+    public void markDirty() {
+        if (!isValid()) {
+            return;
+        }
+        WidgetScreen screen = WidgetScreen.activeNullable();
+        if (screen != null) {
+            screen.damage(getOuterAbsoluteX(), getOuterAbsoluteY(), getFullWidth(), getFullHeight());
+        }
+        if (parent instanceof AbstractWidget) {
+            ((AbstractWidget) parent).onDescendantDirty(this);
+        }
+    }
+
+    /**
+     * Called when a widget somewhere below this one has been marked dirty. The default implementation passes the notification up.
+     */
+    protected void onDescendantDirty(IWidget widget) {
+        if (parent instanceof AbstractWidget) {
+            ((AbstractWidget) parent).onDescendantDirty(widget);
         }
     }
 
     private void updateAbsolutePosition() {
-        absX = getParentAbsXSafe() + getX() + getBorderLeft();
-        absY = getParentAbsYSafe() + getY() + getBorderTop();
+        long current = resolveEpoch().value;
+        // Invalid widgets have nothing to be positioned against, keep the last known position
+        if (absEpoch != current && isValid()) {
+            absX = getParentAbsXSafe() + getX() + getBorderLeft();
+            absY = getParentAbsYSafe() + getY() + getBorderTop();
+            absEpoch = current;
+        }
+    }
+
+    /**
+     * Called after this widget has been moved by the given offset relative to its parent. Instead of resolving the new position, the area
+     * this widget was last positioned at and the same area moved by the offset are damaged. If the parent is laying out its children, the
+     * parent is damaged once when it is done instead.
+     */
+    private void onMoved(int dx, int dy) {
+        invalidateAbsolutePositions();
+        if (!isValid()) {
+            return;
+        }
+        if (parent instanceof AbstractWidget && ((AbstractWidget) parent).batchingChildMoves) {
+            ((AbstractWidget) parent).childrenMoved = true;
+            return;
+        }
+        if (absEpoch == -1) {
+            // Never positioned before, so nothing has been drawn yet either
+            markDirty();
+            return;
+        }
+        WidgetScreen screen = WidgetScreen.activeNullable();
+        if (screen != null) {
+            int x = absX - border.left;
+            int y = absY - border.top;
+            screen.damage(x, y, getFullWidth(), getFullHeight());
+            screen.damage(x + dx, y + dy, getFullWidth(), getFullHeight());
+        }
+        if (parent instanceof AbstractWidget) {
+            ((AbstractWidget) parent).onDescendantDirty(this);
+        }
+    }
+
+    /**
+     * Start laying out the children of this widget. Until {@link #endChildMoves()}, moving direct children only records that they moved,
+     * and this widget is marked dirty once at the end, rather than every child damaging its areas and notifying all ancestors.
+     *
+     * @see powerlessri.harmonics.gui.layout.LayoutScheduler
+     */
+    public void beginChildMoves() {
+        batchingChildMoves = true;
+        childrenMoved = false;
+    }
+
+    public void endChildMoves() {
+        batchingChildMoves = false;
+        if (childrenMoved) {
+            childrenMoved = false;
+            markDirty();
+        }
     }
 
     private int getParentAbsXSafe() {
@@ -248,21 +403,24 @@ public abstract class AbstractWidget implements IWidget, Inspections.IInfoProvid
 
     @Override
     public void setLocation(int x, int y) {
-        getPosition().x = x;
-        getPosition().y = y;
-        onRelativePositionChanged();
+        Point position = getPosition();
+        int dx = x - position.x;
+        int dy = y - position.y;
+        if (dx != 0 || dy != 0) {
+            position.x = x;
+            position.y = y;
+            onMoved(dx, dy);
+        }
     }
 
     @Override
     public void setX(int x) {
-        getPosition().x = x;
-        onRelativePositionChanged();
+        setLocation(x, getY());
     }
 
     @Override
     public void setY(int y) {
-        getPosition().y = y;
-        onRelativePositionChanged();
+        setLocation(getX(), y);
     }
 
     @Override
@@ -303,40 +461,61 @@ public abstract class AbstractWidget implements IWidget, Inspections.IInfoProvid
 
     @Override
     public int getAbsoluteX() {
+        updateAbsolutePosition();
         return absX;
     }
 
     @Override
     public int getAbsoluteY() {
+        updateAbsolutePosition();
         return absY;
     }
 
     public int getAbsoluteXRight() {
+        updateAbsolutePosition();
         return absX + dimensions.width;
     }
 
     public int getAbsoluteYBottom() {
+        updateAbsolutePosition();
         return absY + dimensions.height;
     }
 
     @Override
     public int getOuterAbsoluteX() {
+        updateAbsolutePosition();
         return absX - border.left;
     }
 
     @Override
     public int getOuterAbsoluteY() {
+        updateAbsolutePosition();
         return absY - border.top;
     }
 
     public int getOuterAbsoluteXRight() {
+        updateAbsolutePosition();
         return absX + getFullWidth();
     }
 
     public int getOuterAbsoluteYBottom() {
+        updateAbsolutePosition();
         return absY + getFullHeight();
     }
 
+    @Override
+    public void setWidth(int width) {
+        // Damage the old area, the new area is damaged by onDimensionChanged()
+        markDirty();
+        ResizableWidgetMixin.super.setWidth(width);
+    }
+
+    @Override
+    public void setHeight(int height) {
+        markDirty();
+        ResizableWidgetMixin.super.setHeight(height);
+    }
+
     @Override
     public int getWidth() {
         return dimensions.width;
@@ -388,7 +567,10 @@ public abstract class AbstractWidget implements IWidget, Inspections.IInfoProvid
 
     @Override
     public void setEnabled(boolean enabled) {
-        this.enabled = enabled;
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            markDirty();
+        }
     }
 
     @Override
@@ -492,9 +674,7 @@ public abstract class AbstractWidget implements IWidget, Inspections.IInfoProvid
     }
 
     protected void onBorderChanged() {
-        if (isValid()) {
-            updateAbsolutePosition();
-        }
+        invalidateAbsolutePositions();
     }
 
     public final void createContextMenu(double x, double y) {
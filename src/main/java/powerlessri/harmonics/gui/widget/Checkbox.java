@@ -1,6 +1,5 @@
 package powerlessri.harmonics.gui.widget;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import it.unimi.dsi.fastutil.booleans.BooleanConsumer;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
@@ -38,8 +37,8 @@ public class Checkbox extends AbstractWidget implements LeafWidgetMixin {
                 ? (checked ? HOVERED_CHECKED : HOVERED_UNCHECKED)
                 : (checked ? CHECKED : UNCHECKED);
 
-        GlStateManager.disableAlphaTest();
-        GlStateManager.disableTexture();
+        disableAlphaTest();
+        disableTexture();
         beginColoredQuad();
         coloredRect(x1, y1, x2, y2, getZLevel(), borderColor);
         coloredRect(x1 + 1, y1 + 1, x2 - 1, y2 - 1, getZLevel(), contentColor);
@@ -56,11 +55,13 @@ public class Checkbox extends AbstractWidget implements LeafWidgetMixin {
 
     public void toggle() {
         checked = !checked;
+        markDirty();
         onStateChange.accept(checked);
     }
 
     public void setChecked(boolean checked) {
         this.checked = checked;
+        markDirty();
         onStateChange.accept(checked);
     }
 
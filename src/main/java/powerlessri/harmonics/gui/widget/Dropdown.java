@@ -1,6 +1,7 @@
 package powerlessri.harmonics.gui.widget;
 
 import com.google.common.collect.ImmutableList;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.layout.FlowLayout;
 import powerlessri.harmonics.gui.screen.BackgroundRenderers;
@@ -60,6 +61,7 @@ public class Dropdown<B extends IWidget, L extends B, P extends B> extends Abstr
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
         FlowLayout.vertical(children, 0, 0, getBorderBottom());
     }
 
@@ -1,5 +1,7 @@
 package powerlessri.harmonics.gui.widget;
 
+import powerlessri.harmonics.gui.layout.LayoutScheduler;
+
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -7,8 +9,36 @@ public interface IContainer<T extends IWidget> extends IWidget {
 
     Collection<T> getChildren();
 
+    /**
+     * Lay out the children immediately. Unless the result is needed right away, prefer {@link #requestReflow()}.
+     */
     void reflow();
 
+    /**
+     * Schedule a {@link #reflow()} before the next frame, because the contents of this container changed. Multiple requests before that are
+     * merged into one reflow.
+     *
+     * @see LayoutScheduler
+     */
+    default void requestReflow() {
+        LayoutScheduler.request(this);
+    }
+
+    /**
+     * Schedule a {@link #reflow()} before the next frame, unless this container still has the size it was last laid out with by the
+     * {@link LayoutScheduler}. This should be used when the children only depend on the size of the container.
+     */
+    default void requestReflowIfResized() {
+        LayoutScheduler.requestIfResized(this);
+    }
+
+    /**
+     * Called when the width or height of one of the children changed. Containers whose layout depends on the sizes of their children
+     * should {@link #requestReflow()} here; requests made while this container lays out its children are ignored.
+     */
+    default void onChildResized(IWidget child) {
+    }
+
     /**
      * Add the given children to the collection returned by {@link #getChildren()}. This should also immediately attach the widget to this
      * container widget.
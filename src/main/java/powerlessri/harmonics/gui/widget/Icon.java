@@ -30,6 +30,7 @@ public class Icon extends AbstractWidget implements LeafWidgetMixin, IStringSeri
 
     public void setTexture(ITexture texture) {
         this.texture = texture;
+        markDirty();
         this.setDimensions(texture.getPortionWidth(), texture.getPortionHeight());
     }
 
@@ -2,6 +2,7 @@ package powerlessri.harmonics.gui.widget;
 
 import net.minecraft.client.resources.I18n;
 import powerlessri.harmonics.gui.TextRenderer;
+import powerlessri.harmonics.gui.TextStyle;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.layout.properties.BoxSizing;
@@ -9,6 +10,7 @@ import powerlessri.harmonics.gui.layout.properties.Side;
 import powerlessri.harmonics.gui.widget.mixin.LeafWidgetMixin;
 
 import static powerlessri.harmonics.gui.Render2D.fontRenderer;
+import static powerlessri.harmonics.gui.Render2D.textWidth;
 
 public class Label extends AbstractWidget implements LeafWidgetMixin {
 
@@ -18,7 +20,7 @@ public class Label extends AbstractWidget implements LeafWidgetMixin {
 
     private BoxSizing boxSizing = BoxSizing.BORDER_BOX;
     private String text = "";
-    private int color;
+    private TextStyle style = TextStyle.BLACK;
 
     public Label(IWidget target) {
         this.target = target;
@@ -40,7 +42,8 @@ public class Label extends AbstractWidget implements LeafWidgetMixin {
     @SuppressWarnings("UnusedReturnValue")
     public Label text(String text) {
         this.text = text;
-        int width = fontRenderer().getStringWidth(text);
+        markDirty();
+        int width = textWidth(text);
         int height = fontRenderer().FONT_HEIGHT;
         setDimensions(width, height);
         updatePosition();
@@ -58,12 +61,13 @@ public class Label extends AbstractWidget implements LeafWidgetMixin {
     }
 
     public int getColor() {
-        return color;
+        return style.getColor();
     }
 
     @SuppressWarnings("UnusedReturnValue")
     public Label setColor(int color) {
-        this.color = color;
+        this.style = style.withColor(color);
+        markDirty();
         return this;
     }
 
@@ -105,8 +109,7 @@ public class Label extends AbstractWidget implements LeafWidgetMixin {
     @Override
     public void render(int mouseX, int mouseY, float particleTicks) {
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
-        TextRenderer.vanilla().setTextColor(color);
-        TextRenderer.vanilla().renderText(text, getAbsoluteX(), getAbsoluteY(), getZLevel());
+        TextRenderer.glyphs().renderText(style, text, getAbsoluteX(), getAbsoluteY(), getZLevel());
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
     }
 
@@ -114,7 +117,7 @@ public class Label extends AbstractWidget implements LeafWidgetMixin {
     public void provideInformation(ITextReceiver receiver) {
         super.provideInformation(receiver);
         receiver.line("Text=" + text);
-        receiver.line("Color=" + color);
+        receiver.line("Color=" + style.getColor());
         receiver.line("Side=" + side);
         receiver.line("Alignment=" + alignment);
     }
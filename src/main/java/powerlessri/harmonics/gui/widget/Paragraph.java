@@ -1,27 +1,49 @@
 package powerlessri.harmonics.gui.widget;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import net.minecraft.client.resources.I18n;
 import powerlessri.harmonics.gui.*;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.mixin.LeafWidgetMixin;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 public class Paragraph extends AbstractWidget implements LeafWidgetMixin {
 
-    private List<String> texts;
-    private List<String> textView;
+    private static final int FOLLOW_WIDTH = -1;
+
+    /**
+     * A text added with one of the {@code addLineSplit} methods, occupying {@code count} lines starting at {@code start}.
+     */
+    private static final class SplitText {
+
+        private final LineBreaker breaker;
+        private final int maxWidth;
+        private int start;
+        private int count;
+
+        private SplitText(LineBreaker breaker, int maxWidth) {
+            this.breaker = breaker;
+            this.maxWidth = maxWidth;
+        }
+    }
+
+    private final List<String> texts;
+    private final List<String> textView;
+    private final List<SplitText> splitTexts = new ArrayList<>();
+    private int splitWidth;
     private boolean fitContents = false;
 
-    private ITextRenderer textRenderer = TextRenderer.newVanilla();
+    private ITextRenderer textRenderer = TextRenderer.glyphs();
+    private TextStyle textStyle = TextStyle.BLACK;
 
     public Paragraph(int width, int height, List<String> texts) {
         this.setDimensions(width, height);
         this.setBorders(1);
-        this.texts = texts;
-        this.textView = Collections.unmodifiableList(texts);
+        // Split texts track their lines by index, so the lines are copied to keep them from being changed behind our back
+        this.texts = new ArrayList<>(texts);
+        this.textView = Collections.unmodifiableList(this.texts);
     }
 
     @Override
@@ -29,9 +51,8 @@ public class Paragraph extends AbstractWidget implements LeafWidgetMixin {
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
         int x = getAbsoluteX();
         int y = getAbsoluteY();
-        GlStateManager.enableTexture();
-        textRenderer.setTextColor(0x000000);
-        textRenderer.renderLines(textView, x, y, getZLevel());
+        Render2D.enableTexture();
+        textRenderer.renderLines(textStyle, textView, x, y, getZLevel());
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
     }
 
@@ -54,6 +75,7 @@ public class Paragraph extends AbstractWidget implements LeafWidgetMixin {
     public void addLine(String newLine) {
         texts.add(newLine);
         tryExpand(newLine);
+        markDirty();
     }
 
     public void addTranslatedLine(String translationKey) {
@@ -64,19 +86,58 @@ public class Paragraph extends AbstractWidget implements LeafWidgetMixin {
         addLine(I18n.format(translationKey, args));
     }
 
+    /**
+     * Add the text wrapped to the width of this paragraph. Unless this paragraph {@link #doesFitContents() fits its contents}, the text is
+     * wrapped again whenever the width changes.
+     */
     public void addLineSplit(String text) {
-        addLineSplit(getWidth(), text);
+        addSplitText(new SplitText(new LineBreaker(text), FOLLOW_WIDTH));
     }
 
     public void addLineSplit(int maxWidth, String text) {
-        int end = Render2D.fontRenderer().sizeStringToWidth(text, maxWidth);
-        if (end >= text.length()) {
-            addLine(text);
-        } else {
-            String trimmed = text.substring(0, end);
-            String after = text.substring(end).trim();
-            addLine(trimmed);
-            addLineSplit(maxWidth, after);
+        addSplitText(new SplitText(new LineBreaker(text), maxWidth));
+    }
+
+    private void addSplitText(SplitText splitText) {
+        List<String> lines = splitText.breaker.wrap(getSplitWidth(splitText));
+        splitText.start = texts.size();
+        splitText.count = lines.size();
+        splitTexts.add(splitText);
+        for (String line : lines) {
+            addLine(line);
+        }
+    }
+
+    private int getSplitWidth(SplitText splitText) {
+        return Math.max(0, splitText.maxWidth == FOLLOW_WIDTH ? getWidth() : splitText.maxWidth);
+    }
+
+    @Override
+    public void onDimensionChanged() {
+        super.onDimensionChanged();
+        if (!fitContents && getWidth() != splitWidth) {
+            splitWidth = getWidth();
+            rewrap();
+        }
+    }
+
+    /**
+     * Replace the lines of all texts that follow the width of this paragraph. Only the lines of the texts are touched, and each text is
+     * wrapped in linear time.
+     */
+    private void rewrap() {
+        int offset = 0;
+        for (SplitText splitText : splitTexts) {
+            splitText.start += offset;
+            if (splitText.maxWidth != FOLLOW_WIDTH) {
+                continue;
+            }
+            List<String> lines = splitText.breaker.wrap(getSplitWidth(splitText));
+            List<String> oldLines = texts.subList(splitText.start, splitText.start + splitText.count);
+            oldLines.clear();
+            oldLines.addAll(lines);
+            offset += lines.size() - splitText.count;
+            splitText.count = lines.size();
         }
     }
 
@@ -90,9 +151,9 @@ public class Paragraph extends AbstractWidget implements LeafWidgetMixin {
 
     private void tryExpand(String line) {
         if (fitContents) {
-            int w = textRenderer.calculateWidth(line);
+            int w = textRenderer.calculateWidth(textStyle, line);
             setWidth(Math.max(getWidth(), 1 + w + 1));
-            setHeight((int) (1 + (textRenderer.getFontHeight() + 2) * texts.size() + 1));
+            setHeight((int) (1 + (textStyle.getFontHeight() + 2) * texts.size() + 1));
         }
     }
 
@@ -105,4 +166,15 @@ public class Paragraph extends AbstractWidget implements LeafWidgetMixin {
         this.textRenderer = textRenderer;
         return this;
     }
+
+    public TextStyle getTextStyle() {
+        return textStyle;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public Paragraph setTextStyle(TextStyle textStyle) {
+        this.textStyle = textStyle;
+        markDirty();
+        return this;
+    }
 }
@@ -1,6 +1,5 @@
 package powerlessri.harmonics.gui.widget;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import powerlessri.harmonics.gui.*;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
@@ -32,7 +31,7 @@ public class RadioInput extends AbstractWidget implements IButton, IRadioInput,
     @Override
     public void render(int mouseX, int mouseY, float particleTicks) {
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
-        GlStateManager.color3f(1F, 1F, 1F);
+        Render2D.color(0xffffffff);
         ITexture texture = hovered
                 ? (checked ? HOVERED_CHECKED : HOVERED_UNCHECKED)
                 : (checked ? CHECKED : UNCHECKED);
@@ -91,6 +90,7 @@ public class RadioInput extends AbstractWidget implements IButton, IRadioInput,
     public void setChecked(boolean checked) {
         boolean oldValue = this.checked;
         this.checked = checked;
+        markDirty();
         onStateUpdate(oldValue);
         if (checked) {
             onCheck();
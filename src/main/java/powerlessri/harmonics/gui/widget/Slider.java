@@ -3,7 +3,6 @@
 
 package powerlessri.harmonics.gui.widget;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.util.math.MathHelper;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
@@ -80,6 +79,7 @@ public class Slider extends AbstractWidget implements LeafWidgetMixin {
 
     public void setValue(int value) {
         this.value = MathHelper.clamp(value, min, max);
+        markDirty();
         onValueChanged.accept(this.value);
     }
 
@@ -99,7 +99,7 @@ public class Slider extends AbstractWidget implements LeafWidgetMixin {
             return;
         }
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
-        GlStateManager.disableTexture();
+        disableTexture();
         beginColoredQuad();
 
         int x1 = getAbsoluteX();
@@ -126,8 +126,7 @@ public class Slider extends AbstractWidget implements LeafWidgetMixin {
 
             if (knobSize >= 8) {
                 color(MARKER_LINE_COLOR);
-                glLineWidth(LINE_WIDTH);
-                glBegin(GL_LINES);
+                beginLines(LINE_WIDTH);
                 int mx = left + knobSize / 2 - 1;
                 int my1 = y1 + 4;
                 int my2 = y2 - 4;
@@ -136,7 +135,7 @@ public class Slider extends AbstractWidget implements LeafWidgetMixin {
                     verticalLine(mx - 2, my1, my2, getZLevel());
                     verticalLine(mx + 2, my1, my2, getZLevel());
                 }
-                glEnd();
+                endLines();
             }
         } else {
             int top = y1 + 1 + offset;
@@ -145,8 +144,7 @@ public class Slider extends AbstractWidget implements LeafWidgetMixin {
 
             if (knobSize >= 8) {
                 color(MARKER_LINE_COLOR);
-                glLineWidth(LINE_WIDTH);
-                glBegin(GL_LINES);
+                beginLines(LINE_WIDTH);
                 int mx1 = x1 + 3;
                 int mx2 = x2 - 3;
                 int my = top + knobSize / 2 - 1;
@@ -154,11 +152,11 @@ public class Slider extends AbstractWidget implements LeafWidgetMixin {
                 if (knobSize >= 10) {
                     horizontalLine(mx1, mx2, my + 2, getZLevel());
                 }
-                glEnd();
+                endLines();
             }
         }
-        GlStateManager.color3f(1F, 1F, 1F);
-        GlStateManager.enableTexture();
+        color(0xffffffff);
+        enableTexture();
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
     }
 
@@ -217,6 +215,7 @@ public class Slider extends AbstractWidget implements LeafWidgetMixin {
     private void updateValue() {
         float factor = (float) offset / (getUsableBoundSize() - knobSize);
         value = (int) Utils.map(factor, 0F, 1F, min, max);
+        markDirty();
         onValueChanged.accept(value);
     }
 
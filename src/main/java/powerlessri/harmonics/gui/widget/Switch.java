@@ -91,6 +91,7 @@ public class Switch extends AbstractWidget implements LeafWidgetMixin {
         boolean oldActive = this.active;
         this.active = active;
         if (oldActive != active) {
+            markDirty();
             onStateChange.accept(active);
         }
     }
@@ -0,0 +1,1047 @@
+package powerlessri.harmonics.gui.widget;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.util.math.MathHelper;
+import powerlessri.harmonics.Config;
+import powerlessri.harmonics.gui.*;
+import powerlessri.harmonics.gui.debug.ITextReceiver;
+import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
+import powerlessri.harmonics.gui.layout.ExtentIndex;
+import powerlessri.harmonics.gui.widget.mixin.LeafWidgetMixin;
+import powerlessri.harmonics.gui.widget.panel.VerticalList;
+import powerlessri.harmonics.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.lwjgl.glfw.GLFW.*;
+import static powerlessri.harmonics.gui.Render2D.*;
+
+/**
+ * Editable multi-line text, with the same editing behavior as {@link TextField} and a scroll bar like {@link VerticalList}. When it is
+ * not editable, the text can still be scrolled, selected and copied.
+ * <p>
+ * Every line is stored in its own {@link TextBuffer}, together with the start indices of its visual rows, which are only computed again
+ * when the line is edited or the wrapping width changes. The number of rows of every line is kept in an {@link ExtentIndex}, so that
+ * mapping between lines and rows takes {@code O(log n)}. Edits within a line and appending lines update it in {@code O(log n)}, and
+ * splitting or joining lines elsewhere only shifts the lines after the edit. Only the rows that are currently visible are rendered, which
+ * makes this usable for tens of thousands of lines.
+ */
+public class TextArea extends AbstractWidget implements LeafWidgetMixin {
+
+    private static final int[] SINGLE_ROW = {0};
+
+    private static final class Line {
+
+        private final TextBuffer text;
+        // Start index of every visual row of this line
+        private int[] rowStarts = SINGLE_ROW;
+
+        private Line(String text) {
+            this.text = new TextBuffer(text);
+        }
+
+        private int getRowEnd(int row) {
+            return row + 1 < rowStarts.length ? rowStarts[row + 1] : text.length();
+        }
+
+        /**
+         * @return Index of the row that contains the given column. Columns at a row boundary belong to the later row.
+         */
+        private int getRowAt(int column) {
+            int low = 0;
+            int high = rowStarts.length - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (rowStarts[mid] <= column) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    private IBackgroundRenderer backgroundStyle = TextField.BackgroundStyle.BLACK_WHITE;
+    private ITextRenderer textRenderer = TextRenderer.glyphs();
+
+    private final List<Line> lines = new ArrayList<>();
+    // 1-based Fenwick tree over the number of rows of every line
+    // Number of rows of every line
+    private final ExtentIndex rowCounts = new ExtentIndex();
+    private boolean rowCountsDirty = true;
+    // Unscaled width the rows were computed for, or -1 if they have to be computed again
+    private int layoutWidth = -1;
+    private int layoutGeneration;
+    private boolean wordWrap = true;
+
+    private int cursorLine = 0;
+    private int cursorColumn = 0;
+    // One end of the selected region, selectionLine is -1 if nothing is selected
+    private int selectionLine = -1;
+    private int selectionColumn = -1;
+    // x position in unscaled pixels that moving the cursor up and down tries to keep
+    private float preferredX = -1F;
+
+    private float scrollDistance;
+    private float scrollX;
+    private boolean scrolling;
+    private boolean editable = true;
+
+    private TextStyle textStyle = TextStyle.of(0xffffffff);
+    private TextStyle textStyleUneditable = TextStyle.of(0xffcccccc);
+    private TextStyle textStyleDisabled = TextStyle.of(0xffa0a0a0);
+
+    public TextArea(int width, int height) {
+        this.setDimensions(width, height);
+        this.setBackgroundStyle(TextField.BackgroundStyle.BLACK_WHITE);
+        lines.add(new Line(""));
+    }
+
+    public boolean isEditable() {
+        return editable;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setEditable(boolean editable) {
+        this.editable = editable;
+        return this;
+    }
+
+    public boolean isWordWrap() {
+        return wordWrap;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setWordWrap(boolean wordWrap) {
+        this.wordWrap = wordWrap;
+        layoutWidth = -1;
+        scrollX = 0F;
+        return this;
+    }
+
+    public String getText() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                builder.append('\n');
+            }
+            builder.append(lines.get(i).text.toString());
+        }
+        return builder.toString();
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setText(String text) {
+        lines.clear();
+        for (String line : splitLines(text)) {
+            lines.add(new Line(line));
+        }
+        layoutWidth = -1;
+        cursorLine = 0;
+        cursorColumn = 0;
+        scrollDistance = 0F;
+        scrollX = 0F;
+        preferredX = -1F;
+        clearSelection();
+        markDirty();
+        return this;
+    }
+
+    public int getLineCount() {
+        return lines.size();
+    }
+
+    public String getLine(int line) {
+        return lines.get(line).text.toString();
+    }
+
+    /**
+     * Append a line to the end of the text. If the text is empty, the line replaces it instead.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea addLine(String line) {
+        int last = lines.size() - 1;
+        int lastLength = lines.get(last).text.length();
+        if (last == 0 && lastLength == 0) {
+            editText(0, 0, 0, 0, line);
+        } else {
+            editText(last, lastLength, last, lastLength, "\n" + line);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean onMouseClicked(double mouseX, double mouseY, int button) {
+        if (!isEnabled()) {
+            return false;
+        }
+        setFocused(true);
+        scrolling = button == GLFW_MOUSE_BUTTON_LEFT && isInsideBar(mouseX, mouseY);
+        if (!scrolling && button == GLFW_MOUSE_BUTTON_LEFT) {
+            if (Screen.hasShiftDown()) {
+                markSelection();
+            } else {
+                clearSelection();
+            }
+            moveCursorTo(mouseX, mouseY);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean onMouseReleased(double mouseX, double mouseY, int button) {
+        boolean ret = scrolling;
+        scrolling = false;
+        return ret;
+    }
+
+    @Override
+    public boolean onMouseDragged(double mouseX, double mouseY, int button, double deltaX, double deltaY) {
+        if (scrolling) {
+            int maxScroll = getHeight() - getBarHeight();
+            if (maxScroll > 0) {
+                scrollDistance += getMaxScroll() * (float) (deltaY / maxScroll);
+                applyScrollLimits();
+            }
+            return true;
+        }
+        if (button == GLFW_MOUSE_BUTTON_LEFT) {
+            markSelection();
+            moveCursorTo(mouseX, mouseY);
+            ensureVisible();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onMouseScrolled(double mouseX, double mouseY, double scroll) {
+        if (scroll != 0) {
+            scrollDistance += -scroll * Config.CLIENT.scrollSpeed.get();
+            applyScrollLimits();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean onKeyPressed(int keyCode, int scanCode, int modifiers) {
+        boolean ctrl = Screen.hasControlDown();
+        boolean alt = Screen.hasAltDown();
+        if (alt) {
+            return false;
+        }
+        boolean keepPreferredX = false;
+        if (ctrl) {
+            switch (keyCode) {
+                case GLFW_KEY_C: {
+                    copyText();
+                    break;
+                }
+                case GLFW_KEY_V: {
+                    if (editable) {
+                        pasteText();
+                    }
+                    break;
+                }
+                case GLFW_KEY_X: {
+                    if (editable) {
+                        cutText();
+                    }
+                    break;
+                }
+                case GLFW_KEY_A: {
+                    selectAll();
+                    break;
+                }
+                case GLFW_KEY_HOME: {
+                    updateSelection();
+                    setCursor(0, 0);
+                    break;
+                }
+                case GLFW_KEY_END: {
+                    updateSelection();
+                    int last = lines.size() - 1;
+                    setCursor(last, lines.get(last).text.length());
+                    break;
+                }
+                case GLFW_KEY_LEFT: {
+                    updateSelection();
+                    if (cursorColumn > 0) {
+                        cursorColumn = findNextWord(true);
+                    } else {
+                        moveCursorHorizontally(-1);
+                    }
+                    break;
+                }
+                case GLFW_KEY_RIGHT: {
+                    updateSelection();
+                    if (cursorColumn < lines.get(cursorLine).text.length()) {
+                        cursorColumn = findNextWord(false);
+                    } else {
+                        moveCursorHorizontally(1);
+                    }
+                    break;
+                }
+            }
+        } else {
+            switch (keyCode) {
+                case GLFW_KEY_ESCAPE: {
+                    setFocused(false);
+                    break;
+                }
+                case GLFW_KEY_TAB: {
+                    return false;
+                }
+                case GLFW_KEY_ENTER:
+                case GLFW_KEY_KP_ENTER: {
+                    if (editable) {
+                        replaceSelectedRegion("\n");
+                    }
+                    break;
+                }
+                case GLFW_KEY_UP: {
+                    updateSelection();
+                    moveCursorVertically(-1);
+                    keepPreferredX = true;
+                    break;
+                }
+                case GLFW_KEY_DOWN: {
+                    updateSelection();
+                    moveCursorVertically(1);
+                    keepPreferredX = true;
+                    break;
+                }
+                case GLFW_KEY_PAGE_UP: {
+                    updateSelection();
+                    moveCursorVertically(-getVisibleRows());
+                    keepPreferredX = true;
+                    break;
+                }
+                case GLFW_KEY_PAGE_DOWN: {
+                    updateSelection();
+                    moveCursorVertically(getVisibleRows());
+                    keepPreferredX = true;
+                    break;
+                }
+                case GLFW_KEY_HOME: {
+                    updateSelection();
+                    cursorColumn = 0;
+                    break;
+                }
+                case GLFW_KEY_END: {
+                    updateSelection();
+                    cursorColumn = lines.get(cursorLine).text.length();
+                    break;
+                }
+                case GLFW_KEY_LEFT: {
+                    updateSelection();
+                    moveCursorHorizontally(-1);
+                    break;
+                }
+                case GLFW_KEY_RIGHT: {
+                    updateSelection();
+                    moveCursorHorizontally(1);
+                    break;
+                }
+                case GLFW_KEY_BACKSPACE: {
+                    if (!editable) {
+                        break;
+                    }
+                    if (isRegionSelected()) {
+                        replaceSelectedRegion("");
+                    } else if (cursorColumn > 0) {
+                        if (editText(cursorLine, cursorColumn - 1, cursorLine, cursorColumn, "")) {
+                            cursorColumn--;
+                        }
+                    } else if (cursorLine > 0) {
+                        int previousLength = lines.get(cursorLine - 1).text.length();
+                        if (editText(cursorLine - 1, previousLength, cursorLine, 0, "")) {
+                            setCursor(cursorLine - 1, previousLength);
+                        }
+                    }
+                    break;
+                }
+                case GLFW_KEY_DELETE: {
+                    if (!editable) {
+                        break;
+                    }
+                    if (isRegionSelected()) {
+                        replaceSelectedRegion("");
+                    } else if (cursorColumn < lines.get(cursorLine).text.length()) {
+                        editText(cursorLine, cursorColumn, cursorLine, cursorColumn + 1, "");
+                    } else if (cursorLine + 1 < lines.size()) {
+                        editText(cursorLine, cursorColumn, cursorLine + 1, 0, "");
+                    }
+                    break;
+                }
+            }
+        }
+        if (!keepPreferredX) {
+            preferredX = -1F;
+        }
+        ensureVisible();
+        return true;
+    }
+
+    @Override
+    public boolean onCharTyped(char typedChar, int keyCode) {
+        // Char code of 0 will appear to be nothing
+        if (editable && (int) typedChar != 0) {
+            replaceSelectedRegion(String.valueOf(typedChar));
+            ensureVisible();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replace the text from {@code (startLine, startColumn)} to {@code (endLine, endColumn)}, exclusive, with the given text, which may
+     * contain line feeds. All insertions and removals go through this method, and it is meant to be overridden for validation purposes.
+     * The cursor is not moved.
+     *
+     * @return {@code false} if the edit was rejected
+     */
+    protected boolean editText(int startLine, int startColumn, int endLine, int endColumn, String replacement) {
+        Preconditions.checkArgument(startLine < endLine || (startLine == endLine && startColumn <= endColumn));
+        List<String> parts = splitLines(replacement);
+        Line first = lines.get(startLine);
+        if (startLine == endLine && parts.size() == 1) {
+            // Edits within a line only change the row count of that line
+            first.text.replace(startColumn, endColumn, replacement);
+            if (layoutWidth != -1) {
+                layoutLine(first);
+                if (!rowCountsDirty) {
+                    rowCounts.set(startLine, first.rowStarts.length);
+                }
+            }
+        } else {
+            Line last = lines.get(endLine);
+            String suffix = last.text.substring(endColumn, last.text.length());
+            first.text.replace(startColumn, first.text.length(), parts.size() == 1 ? parts.get(0) + suffix : parts.get(0));
+            lines.subList(startLine + 1, endLine + 1).clear();
+            List<Line> inserted = new ArrayList<>(parts.size() - 1);
+            for (int i = 1; i < parts.size(); i++) {
+                inserted.add(new Line(i == parts.size() - 1 ? parts.get(i) + suffix : parts.get(i)));
+            }
+            lines.addAll(startLine + 1, inserted);
+            if (layoutWidth != -1) {
+                layoutLine(first);
+                for (Line line : inserted) {
+                    layoutLine(line);
+                }
+                if (!rowCountsDirty) {
+                    updateRowCounts(startLine, endLine, inserted);
+                }
+            }
+        }
+        markDirty();
+        return true;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea replaceSelectedRegion(String replacement) {
+        int startLine = cursorLine;
+        int startColumn = cursorColumn;
+        int endLine = cursorLine;
+        int endColumn = cursorColumn;
+        if (isRegionSelected()) {
+            if (isSelectionBeforeCursor()) {
+                startLine = selectionLine;
+                startColumn = selectionColumn;
+            } else {
+                endLine = selectionLine;
+                endColumn = selectionColumn;
+            }
+        }
+        if (editText(startLine, startColumn, endLine, endColumn, replacement)) {
+            List<String> parts = splitLines(replacement);
+            String lastPart = parts.get(parts.size() - 1);
+            setCursor(startLine + parts.size() - 1, parts.size() == 1 ? startColumn + lastPart.length() : lastPart.length());
+        }
+        clearSelection();
+        return this;
+    }
+
+    private static List<String> splitLines(String text) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                result.add(text.substring(start, i));
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        result.add(text.substring(start));
+        return result;
+    }
+
+    private void copyText() {
+        if (isRegionSelected()) {
+            Render2D.minecraft().keyboardListener.setClipboardString(getSelectedText());
+        }
+    }
+
+    private void pasteText() {
+        replaceSelectedRegion(Render2D.minecraft().keyboardListener.getClipboardString());
+    }
+
+    private void cutText() {
+        if (isRegionSelected()) {
+            Render2D.minecraft().keyboardListener.setClipboardString(getSelectedText());
+            replaceSelectedRegion("");
+        }
+    }
+
+    public int getCursorLine() {
+        return cursorLine;
+    }
+
+    public int getCursorColumn() {
+        return cursorColumn;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setCursor(int line, int column) {
+        cursorLine = MathHelper.clamp(line, 0, lines.size() - 1);
+        cursorColumn = MathHelper.clamp(column, 0, lines.get(cursorLine).text.length());
+        return this;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea selectAll() {
+        selectionLine = 0;
+        selectionColumn = 0;
+        int last = lines.size() - 1;
+        setCursor(last, lines.get(last).text.length());
+        return this;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea clearSelection() {
+        selectionLine = -1;
+        selectionColumn = -1;
+        return this;
+    }
+
+    public boolean isRegionSelected() {
+        return selectionLine != -1;
+    }
+
+    private boolean isSelectionBeforeCursor() {
+        return selectionLine < cursorLine || (selectionLine == cursorLine && selectionColumn < cursorColumn);
+    }
+
+    public String getSelectedText() {
+        if (!isRegionSelected()) {
+            return "";
+        }
+        boolean before = isSelectionBeforeCursor();
+        int startLine = before ? selectionLine : cursorLine;
+        int startColumn = before ? selectionColumn : cursorColumn;
+        int endLine = before ? cursorLine : selectionLine;
+        int endColumn = before ? cursorColumn : selectionColumn;
+        if (startLine == endLine) {
+            return lines.get(startLine).text.substring(startColumn, endColumn);
+        }
+        TextBuffer first = lines.get(startLine).text;
+        StringBuilder builder = new StringBuilder(first.substring(startColumn, first.length()));
+        for (int i = startLine + 1; i < endLine; i++) {
+            builder.append('\n').append(lines.get(i).text.toString());
+        }
+        builder.append('\n').append(lines.get(endLine).text.substring(0, endColumn));
+        return builder.toString();
+    }
+
+    private void markSelection() {
+        if (!isRegionSelected()) {
+            selectionLine = cursorLine;
+            selectionColumn = cursorColumn;
+        }
+    }
+
+    private void updateSelection() {
+        if (Screen.hasShiftDown()) {
+            // Don't clear selection as long as shift is pressed
+            markSelection();
+        } else {
+            clearSelection();
+        }
+    }
+
+    private void moveCursorHorizontally(int direction) {
+        if (direction < 0) {
+            if (cursorColumn > 0) {
+                cursorColumn--;
+            } else if (cursorLine > 0) {
+                cursorLine--;
+                cursorColumn = lines.get(cursorLine).text.length();
+            }
+        } else {
+            if (cursorColumn < lines.get(cursorLine).text.length()) {
+                cursorColumn++;
+            } else if (cursorLine + 1 < lines.size()) {
+                cursorLine++;
+                cursorColumn = 0;
+            }
+        }
+    }
+
+    private void moveCursorVertically(int rows) {
+        updateLayout();
+        Line line = lines.get(cursorLine);
+        int rowInLine = line.getRowAt(cursorColumn);
+        if (preferredX < 0F) {
+            preferredX = line.text.getWidth(line.rowStarts[rowInLine], cursorColumn);
+        }
+        int row = MathHelper.clamp(getFirstRow(cursorLine) + rowInLine + rows, 0, rowCounts.getTotal() - 1);
+        moveCursorToRow(row, preferredX);
+    }
+
+    private void moveCursorTo(double mouseX, double mouseY) {
+        updateLayout();
+        int row = (int) ((mouseY - getTextTop() + scrollDistance) / getRowHeight());
+        float x = (float) (mouseX - getTextLeft() + scrollX) / getTextScale();
+        moveCursorToRow(MathHelper.clamp(row, 0, rowCounts.getTotal() - 1), x);
+    }
+
+    /**
+     * Put the cursor at the character boundary in the given row that is closest to the given x position in unscaled pixels.
+     */
+    private void moveCursorToRow(int row, float x) {
+        int lineIndex = getLineAtRow(row);
+        Line line = lines.get(lineIndex);
+        int rowInLine = row - getFirstRow(lineIndex);
+        int rowStart = line.rowStarts[rowInLine];
+        int rowEnd = line.getRowEnd(rowInLine);
+        float target = line.text.getPrefixWidth(rowStart) + Math.max(x, 0F);
+        int column = MathHelper.clamp(line.text.getIndexAtWidth(target), rowStart, rowEnd);
+        if (column < rowEnd && target - line.text.getPrefixWidth(column) > line.text.getWidth(column, column + 1) / 2F) {
+            column++;
+        }
+        // Staying at the end of a wrapped row would put the cursor on the next row
+        if (column == rowEnd && rowInLine + 1 < line.rowStarts.length) {
+            column = Math.max(rowStart, rowEnd - 1);
+        }
+        cursorLine = lineIndex;
+        cursorColumn = column;
+    }
+
+    /**
+     * Same as {@link TextField}, but within the line of the cursor.
+     */
+    private int findNextWord(boolean reversed) {
+        TextBuffer text = lines.get(cursorLine).text;
+        int change = reversed ? -1 : 1;
+        int i = cursorColumn;
+        char last = ' ';
+        while (true) {
+            i += change;
+            if (i < 0 || i >= text.length()) {
+                break;
+            }
+
+            char c = text.charAt(i);
+            if (c == ' ' && last != ' ') {
+                break;
+            }
+            last = c;
+        }
+
+        if (reversed) {
+            return i - change;
+        }
+        return i;
+    }
+
+    // Layout
+
+    /**
+     * Scale of the text renderer relative to the unscaled widths stored in the {@link TextBuffer}s.
+     */
+    private float getTextScale() {
+        return textStyle.getScale();
+    }
+
+    public int getRowHeight() {
+        return MathHelper.ceil(textStyle.getFontHeight());
+    }
+
+    private int getTextLeft() {
+        return getAbsoluteX() + 2;
+    }
+
+    private int getTextTop() {
+        return getAbsoluteY() + 2;
+    }
+
+    private int getTextWidth() {
+        return Utils.lowerBound(getWidth() - 4 - getBarWidth(), 0);
+    }
+
+    private int getTextHeight() {
+        return Utils.lowerBound(getHeight() - 4, 0);
+    }
+
+    private int getVisibleRows() {
+        return Utils.lowerBound(getTextHeight() / getRowHeight(), 1);
+    }
+
+    private void updateLayout() {
+        int width = wordWrap ? Utils.lowerBound((int) (getTextWidth() / getTextScale()), 1) : Integer.MAX_VALUE;
+        if (width != layoutWidth || layoutGeneration != TextMeasurements.getGeneration()) {
+            layoutWidth = width;
+            layoutGeneration = TextMeasurements.getGeneration();
+            for (Line line : lines) {
+                layoutLine(line);
+            }
+            rowCountsDirty = true;
+        }
+        if (rowCountsDirty) {
+            rebuildRowCounts();
+        }
+    }
+
+    /**
+     * Break the line into rows no wider than {@link #layoutWidth}, preferring to break after the last space that fits, like {@link
+     * LineBreaker}. Unlike there, spaces are kept at the end of rows, so that every character of the line belongs to a row.
+     */
+    private void layoutLine(Line line) {
+        TextBuffer text = line.text;
+        int length = text.length();
+        if (!wordWrap || text.getPrefixWidth(length) <= layoutWidth) {
+            line.rowStarts = SINGLE_ROW;
+            return;
+        }
+        IntArrayList starts = new IntArrayList();
+        starts.add(0);
+        int start = 0;
+        while (true) {
+            int end = text.getIndexAtWidth(text.getPrefixWidth(start) + layoutWidth);
+            if (end >= length) {
+                break;
+            }
+            int cut = Math.max(end, start + 1);
+            for (int i = end; i > start; i--) {
+                if (text.charAt(i) == ' ') {
+                    cut = i + 1;
+                    break;
+                }
+            }
+            starts.add(cut);
+            start = cut;
+        }
+        line.rowStarts = starts.toIntArray();
+    }
+
+    private void rebuildRowCounts() {
+        int size = lines.size();
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            counts[i] = lines.get(i).rowStarts.length;
+        }
+        rowCounts.setAll(counts, size);
+        rowCountsDirty = false;
+    }
+
+    /**
+     * Update the row counts after the lines {@code (startLine, endLine]} have been replaced by the inserted lines. Appending lines, e.g.
+     * with {@link #addLine(String)} or enter at the end, costs {@code O(log n)} per line. Elsewhere, inserting or removing one line
+     * shifts the row counts after it, and larger splices rebuild them all before the next layout.
+     */
+    private void updateRowCounts(int startLine, int endLine, List<Line> inserted) {
+        rowCounts.set(startLine, lines.get(startLine).rowStarts.length);
+        int removed = endLine - startLine;
+        boolean atEnd = startLine + inserted.size() == lines.size() - 1;
+        if (!atEnd && removed + inserted.size() > 1) {
+            rowCountsDirty = true;
+            return;
+        }
+        // Remove from the back, so that removals at the end stay cheap
+        for (int i = endLine; i > startLine; i--) {
+            rowCounts.remove(i);
+        }
+        for (int i = 0; i < inserted.size(); i++) {
+            rowCounts.insert(startLine + 1 + i, inserted.get(i).rowStarts.length);
+        }
+    }
+
+    /**
+     * @return Index of the first row of the given line.
+     */
+    private int getFirstRow(int line) {
+        return rowCounts.getStart(line);
+    }
+
+    /**
+     * @return Index of the line that contains the given row.
+     */
+    private int getLineAtRow(int row) {
+        return rowCounts.find(row);
+    }
+
+    // Scrolling
+
+    private int getContentHeight() {
+        return rowCounts.getTotal() * getRowHeight();
+    }
+
+    public int getMaxScroll() {
+        return Utils.lowerBound(getContentHeight() - getTextHeight(), 0);
+    }
+
+    private void applyScrollLimits() {
+        updateLayout();
+        scrollDistance = MathHelper.clamp(scrollDistance, 0F, getMaxScroll());
+    }
+
+    public float getScrollDistance() {
+        return scrollDistance;
+    }
+
+    public void setScrollDistance(float scrollDistance) {
+        this.scrollDistance = scrollDistance;
+        applyScrollLimits();
+    }
+
+    /**
+     * Scroll so that the cursor is visible.
+     */
+    public void ensureVisible() {
+        updateLayout();
+        Line line = lines.get(cursorLine);
+        int rowInLine = line.getRowAt(cursorColumn);
+        int cursorTop = (getFirstRow(cursorLine) + rowInLine) * getRowHeight();
+        int cursorBottom = cursorTop + getRowHeight();
+        if (cursorTop < scrollDistance) {
+            scrollDistance = cursorTop;
+        } else if (cursorBottom > scrollDistance + getTextHeight()) {
+            scrollDistance = cursorBottom - getTextHeight();
+        }
+        applyScrollLimits();
+
+        if (!wordWrap) {
+            float cursorX = line.text.getPrefixWidth(cursorColumn) * getTextScale();
+            int textWidth = getTextWidth();
+            if (cursorX < scrollX) {
+                scrollX = Math.max(0F, cursorX - textWidth / 3F);
+            } else if (cursorX + 1 > scrollX + textWidth) {
+                scrollX = cursorX + 1 - textWidth;
+            }
+        }
+    }
+
+    private boolean isInsideBar(double mouseX, double mouseY) {
+        int barLeft = getAbsoluteXRight() - getBarWidth();
+        return getMaxScroll() > 0 && mouseX >= barLeft && mouseX < getAbsoluteXRight()
+                && mouseY >= getAbsoluteY() && mouseY < getAbsoluteYBottom();
+    }
+
+    public int getBarWidth() {
+        return 6;
+    }
+
+    public int getBarHeight() {
+        int height = getHeight();
+        return MathHelper.clamp((height * height) / Utils.lowerBound(getContentHeight(), 1), VerticalList.MIN_BAR_HEIGHT, height);
+    }
+
+    // Rendering
+
+    @Override
+    public void render(int mouseX, int mouseY, float particleTicks) {
+        RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
+        updateLayout();
+        applyScrollLimits();
+
+        int x = getAbsoluteX();
+        int y = getAbsoluteY();
+        int x2 = getAbsoluteXRight();
+        int y2 = getAbsoluteYBottom();
+        backgroundStyle.render(x, y, x2, y2, getZLevel(), isInside(mouseX, mouseY), isFocused());
+
+        int textLeft = getTextLeft();
+        int textTop = getTextTop();
+        int textWidth = getTextWidth();
+        int textHeight = getTextHeight();
+        int rowHeight = getRowHeight();
+        float scale = getTextScale();
+
+        ScissorTest.push(textLeft, textTop, textWidth, textHeight);
+        int firstRow = (int) (scrollDistance / rowHeight);
+        int lastRow = Math.min(rowCounts.getTotal() - 1, (int) ((scrollDistance + textHeight) / rowHeight));
+        if (firstRow <= lastRow) {
+            int lineIndex = getLineAtRow(firstRow);
+            int rowInLine = firstRow - getFirstRow(lineIndex);
+            int rowY = textTop + firstRow * rowHeight - (int) scrollDistance;
+            TextStyle style = !isEnabled() ? textStyleDisabled : editable ? textStyle : textStyleUneditable;
+            for (int row = firstRow; row <= lastRow; row++) {
+                Line line = lines.get(lineIndex);
+                renderRow(lineIndex, line, rowInLine, style, textLeft, rowY, textWidth, scale);
+                rowY += rowHeight;
+                if (++rowInLine >= line.rowStarts.length) {
+                    lineIndex++;
+                    rowInLine = 0;
+                }
+            }
+        }
+        ScissorTest.pop();
+
+        if (getMaxScroll() > 0) {
+            int barLeft = x2 - getBarWidth();
+            int barTop = y + (int) (scrollDistance * (getHeight() - getBarHeight()) / getMaxScroll());
+            int barBottom = barTop + getBarHeight();
+            disableTexture();
+            beginColoredQuad();
+            coloredRect(barLeft, y, x2, y2, getZLevel(), 0xff000000);
+            coloredRect(barLeft, barTop, x2, barBottom, getZLevel(), 0xff808080);
+            coloredRect(barLeft, barTop, x2 - 1, barBottom - 1, getZLevel(), 0xffc0c0c0);
+            draw();
+            enableTexture();
+        }
+
+        RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
+    }
+
+    private void renderRow(int lineIndex, Line line, int rowInLine, TextStyle style, int textLeft, int rowY, int textWidth, float scale) {
+        TextBuffer text = line.text;
+        int rowStart = line.rowStarts[rowInLine];
+        int rowEnd = line.getRowEnd(rowInLine);
+        float rowX = text.getPrefixWidth(rowStart) * scale;
+        // Without word wrapping, only draw the part of the row that is scrolled into view
+        int drawStart = rowStart;
+        int drawEnd = rowEnd;
+        if (!wordWrap) {
+            drawStart = MathHelper.clamp(text.getIndexAtWidth(scrollX / scale), rowStart, rowEnd);
+            drawEnd = MathHelper.clamp(text.getIndexAfterWidth((scrollX + textWidth) / scale), drawStart, rowEnd);
+        }
+        int drawX = textLeft + (int) (text.getPrefixWidth(drawStart) * scale - (wordWrap ? rowX : scrollX));
+
+        if (isRegionSelected() && isEnabled()) {
+            boolean before = isSelectionBeforeCursor();
+            int startLine = before ? selectionLine : cursorLine;
+            int startColumn = before ? selectionColumn : cursorColumn;
+            int endLine = before ? cursorLine : selectionLine;
+            int endColumn = before ? cursorColumn : selectionColumn;
+            if (lineIndex >= startLine && lineIndex <= endLine) {
+                int from = MathHelper.clamp(lineIndex == startLine ? startColumn : rowStart, rowStart, rowEnd);
+                int to = MathHelper.clamp(lineIndex == endLine ? endColumn : rowEnd, rowStart, rowEnd);
+                int selectionX1 = drawX + (int) (text.getWidth(drawStart, Math.max(from, drawStart)) * scale);
+                int selectionX2 = drawX + (int) (text.getWidth(drawStart, Math.max(to, drawStart)) * scale);
+                // Selected line breaks are shown as a bit of extra selection after the line
+                if (lineIndex < endLine && to == text.length()) {
+                    selectionX2 += 3;
+                }
+                if (selectionX2 > selectionX1) {
+                    disableTexture();
+                    beginColoredQuad();
+                    coloredRect(selectionX1, rowY, selectionX2, rowY + getRowHeight(), getZLevel(), 0xff3c93f2);
+                    draw();
+                    enableTexture();
+                }
+            }
+        }
+
+        if (drawEnd > drawStart) {
+            textRenderer.renderText(style, text.substring(drawStart, drawEnd), drawX, rowY, getZLevel());
+        }
+
+        if (isFocused() && lineIndex == cursorLine && line.getRowAt(cursorColumn) == rowInLine) {
+            int cx = drawX + (int) ((text.getPrefixWidth(cursorColumn) - text.getPrefixWidth(drawStart)) * scale);
+            disableTexture();
+            beginColoredQuad();
+            coloredRect(cx, rowY, cx + 1, rowY + getRowHeight(), getZLevel(), getCursorColor());
+            draw();
+            enableTexture();
+        }
+    }
+
+    public int getCursorColor() {
+        if (backgroundStyle instanceof TextField.BackgroundStyle) {
+            return ((TextField.BackgroundStyle) backgroundStyle).cursorColor;
+        }
+        return 0xff000000;
+    }
+
+    public IBackgroundRenderer getBackgroundStyle() {
+        return backgroundStyle;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setBackgroundStyle(IBackgroundRenderer backgroundStyle) {
+        this.backgroundStyle = backgroundStyle;
+        return this;
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setBackgroundStyle(TextField.BackgroundStyle backgroundStyle) {
+        this.backgroundStyle = backgroundStyle;
+        this.setTextColor(backgroundStyle.textColor, backgroundStyle.textColorUneditable);
+        return this;
+    }
+
+    public ITextRenderer getTextRenderer() {
+        return textRenderer;
+    }
+
+    /**
+     * Set the renderer used to draw the text. By default, this is the shared {@link TextRenderer#glyphs()}, which draws with the style of
+     * this widget, see {@link #setTextStyle(TextStyle)}.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setTextRenderer(ITextRenderer textRenderer) {
+        this.textRenderer = textRenderer;
+        return this;
+    }
+
+    public TextStyle getTextStyle() {
+        return textStyle;
+    }
+
+    /**
+     * Set the style of the text. The colors for uneditable and disabled text are kept, but use the scale and formatting of the given style.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setTextStyle(TextStyle textStyle) {
+        this.textStyle = textStyle;
+        this.textStyleUneditable = textStyle.withColor(textStyleUneditable.getColor());
+        this.textStyleDisabled = textStyle.withColor(textStyleDisabled.getColor());
+        layoutWidth = -1;
+        return this;
+    }
+
+    public int getTextColor() {
+        return textStyle.getColor();
+    }
+
+    public int getTextColorUneditable() {
+        return textStyleUneditable.getColor();
+    }
+
+    @SuppressWarnings("UnusedReturnValue")
+    public TextArea setTextColor(int textColor, int textColorUneditable) {
+        this.textStyle = textStyle.withColor(textColor);
+        this.textStyleUneditable = textStyle.withColor(textColorUneditable);
+        return this;
+    }
+
+    @Override
+    public void provideInformation(ITextReceiver receiver) {
+        super.provideInformation(receiver);
+        receiver.line("Editable=" + editable);
+        receiver.line("WordWrap=" + wordWrap);
+        receiver.line("Lines=" + lines.size());
+        receiver.line("Rows=" + rowCounts.getTotal());
+        receiver.line("Cursor=" + cursorLine + ":" + cursorColumn);
+        receiver.line("Selection=" + (isRegionSelected() ? selectionLine + ":" + selectionColumn : "none"));
+        receiver.line("Offset=" + scrollDistance);
+    }
+}
@@ -32,28 +32,28 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
                 int color = focused ? 0xffeeeeee
                         : hovered ? 0xffdadada
                         : 0xffc6c6c6;
-                GlStateManager.disableTexture();
+                disableTexture();
                 beginColoredQuad();
                 thickBeveledBox(x1, y1, x2, y2, z, 1, 0xff2b2b2b, 0xffffffff, color);
                 draw();
-                GlStateManager.enableTexture();
+                enableTexture();
             }
         },
         BLACK_WHITE(0xffffffff, 0xffcccccc, 0xffffffff) {
             @Override
             public void render(int x1, int y1, int x2, int y2, float z, boolean hovered, boolean focused) {
-                GlStateManager.disableTexture();
+                disableTexture();
                 beginColoredQuad();
                 coloredRect(x1, y1, x2, y2, z, 0xffd0d0d0);
                 coloredRect(x1 + 1, y1 + 1, x2 - 1, y2 - 1, z, 0xff000000);
                 draw();
-                GlStateManager.enableTexture();
+                enableTexture();
             }
         },
         RED_OUTLINE(0xffffffff, 0xffcccccc, 0xffffffff) {
             @Override
             public void render(int x1, int y1, int x2, int y2, float z, boolean hovered, boolean focused) {
-                GlStateManager.disableTexture();
+                disableTexture();
                 beginColoredQuad();
                 if (focused) {
                     coloredRect(x1, y1, x2, y2, z, 0xffcf191f);
@@ -63,7 +63,7 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
                     coloredRect(x1 + 1, y1 + 1, x2 - 1, y2 - 1, z, 0xff1c1c1c);
                 }
                 draw();
-                GlStateManager.enableTexture();
+                enableTexture();
             }
         };
 
@@ -79,9 +79,9 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
     }
 
     private IBackgroundRenderer backgroundStyle = BackgroundStyle.BLACK_WHITE;
-    private ITextRenderer textRenderer = TextRenderer.newVanilla();
+    private ITextRenderer textRenderer = TextRenderer.glyphs();
 
-    private String text = "";
+    private final TextBuffer text = new TextBuffer();
     private int cursor = 0;
     /**
      * Index of the first character that will be drawn.
@@ -93,8 +93,9 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
     private int selection = -1;
     private boolean editable = true;
 
-    private int textColor = 0xff000000;
-    private int textColorUneditable = 0xff333333;
+    private TextStyle textStyle = TextStyle.of(0xff000000);
+    private TextStyle textStyleUneditable = TextStyle.of(0xff333333);
+    private TextStyle textStyleDisabled = TextStyle.of(0xffa0a0a0);
 
     public TextField(int width, int height) {
         this.setDimensions(width, height);
@@ -116,7 +117,7 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
     }
 
     public String getText() {
-        return text;
+        return text.toString();
     }
 
     @SuppressWarnings("UnusedReturnValue")
@@ -220,7 +221,7 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
                 case GLFW_KEY_BACKSPACE: {
                     if (isRegionSelected()) {
                         replaceSelectedRegion("");
-                    } else if (!text.isEmpty() && cursor > 0) {
+                    } else if (text.length() > 0 && cursor > 0) {
                         if (removeTextAt(cursor - 1, cursor)) {
                             cursor--;
                         }
@@ -267,7 +268,7 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
 
     @SuppressWarnings("UnusedReturnValue")
     public boolean insertTextAt(int index, String in) {
-        return updateText(text.substring(0, index) + in + text.substring(index));
+        return editText(index, index, in);
     }
 
     @SuppressWarnings("UnusedReturnValue")
@@ -289,7 +290,7 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
      */
     @SuppressWarnings("UnusedReturnValue")
     public boolean removeTextAt(int start, int end) {
-        return updateText(text.substring(0, start) + text.substring(end));
+        return editText(start, end, "");
     }
 
     /**
@@ -297,7 +298,19 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
      */
     @SuppressWarnings("UnusedReturnValue")
     protected boolean updateText(String text) {
-        this.text = text;
+        this.text.setText(text);
+        markDirty();
+        return true;
+    }
+
+    /**
+     * Replace the text in range of {@code [start, end)}. All insertions and removals go through this method, which edits the text in place
+     * without rebuilding it. Subclasses that override {@link #updateText(String)} for validation should also override this method to
+     * validate the resulting text, see {@link ValueField}.
+     */
+    protected boolean editText(int start, int end, String replacement) {
+        text.replace(start, end, replacement);
+        markDirty();
         return true;
     }
 
@@ -381,7 +394,7 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
     @SuppressWarnings("UnusedReturnValue")
     public TextField replaceSelectedRegion(String replacement) {
         int selectionStart = getSelectionStart();
-        if (updateText(text.substring(0, selectionStart) + replacement + text.substring(getSelectionEnd()))) {
+        if (editText(selectionStart, getSelectionEnd(), replacement)) {
             cursor = selectionStart + replacement.length();
         }
         clearSelection();
@@ -403,14 +416,23 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
         return (getDimensions().height - Render2D.fontRenderer().FONT_HEIGHT) / 2;
     }
 
+    /**
+     * Scale of the text renderer relative to the unscaled widths stored in the {@link TextBuffer}.
+     */
+    private float getTextScale() {
+        return textStyle.getScale();
+    }
+
     private void ensureVisible() {
+        startOffset = Math.min(startOffset, text.length());
         if (cursor < startOffset) {
             startOffset = cursor;
         } else {
-            int w = textRenderer.calculateWidth(text.substring(startOffset, cursor));
-            while (w > getDimensions().width - 12) {
-                startOffset++;
-                w = textRenderer.calculateWidth(text.substring(startOffset, cursor));
+            // Leftmost start offset that still keeps the cursor visible
+            float cursorX = text.getPrefixWidth(cursor);
+            float availableWidth = (getDimensions().width - 12) / getTextScale();
+            if (cursorX - text.getPrefixWidth(startOffset) > availableWidth) {
+                startOffset = Math.min(cursor, text.getIndexAfterWidth(cursorX - availableWidth));
             }
         }
     }
@@ -427,44 +449,43 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
 
         backgroundStyle.render(x, y, x2, y2, getZLevel(), isInside(mouseX, mouseY), isFocused());
 
-        String renderedText = textRenderer.trimToWidth(text.substring(startOffset), getWidth() - 4);
+        float scale = getTextScale();
+        float startX = text.getPrefixWidth(startOffset);
+        int renderedEnd = Math.max(startOffset, text.getIndexAtWidth(startX + (getWidth() - 4) / scale));
+        String renderedText = text.substring(startOffset, renderedEnd);
         int textX = x + 2;
         int textY = y + calculateVerticalOffset();
         if (isEnabled()) {
-            textRenderer.setTextColor(isEditable() ? textColor : textColorUneditable);
-            textRenderer.renderText(renderedText, textX, textY, getZLevel());
+            textRenderer.renderText(isEditable() ? textStyle : textStyleUneditable, renderedText, textX, textY, getZLevel());
 
             if (isRegionSelected()) {
                 int selectionStart = getSelectionStart();
                 int selectionEnd = getSelectionEnd();
                 int renderedStart = MathHelper.clamp(selectionStart - startOffset, 0, renderedText.length());
-                int renderedEnd = MathHelper.clamp(selectionEnd - startOffset, 0, renderedText.length());
+                int renderedSelectionEnd = MathHelper.clamp(selectionEnd - startOffset, 0, renderedText.length());
 
-                String renderedSelection = renderedText.substring(renderedStart, renderedEnd);
-                String renderedPreSelection = renderedText.substring(0, renderedStart);
-                int selectionX = textX + textRenderer.calculateWidth(renderedPreSelection);
-                int selectionWidth = textRenderer.calculateWidth(renderedSelection);
+                int selectionX = textX + (int) (text.getWidth(startOffset, startOffset + renderedStart) * scale);
+                int selectionWidth = (int) (text.getWidth(startOffset + renderedStart, startOffset + renderedSelectionEnd) * scale);
 
-                GlStateManager.disableTexture();
+                disableTexture();
                 GlStateManager.logicOp(LogicOp.OR_REVERSE);
                 beginColoredQuad();
-                coloredRect(selectionX, textY, selectionX + selectionWidth, textY + (int) textRenderer.getFontHeight(), getZLevel(), 0xff3c93f2);
+                coloredRect(selectionX, textY, selectionX + selectionWidth, textY + (int) textStyle.getFontHeight(), getZLevel(), 0xff3c93f2);
                 draw();
-                GlStateManager.enableTexture();
+                enableTexture();
             }
         } else {
-            textRenderer.setTextColor(0xffa0a0a0);
-            textRenderer.renderText(renderedText, textX, textY, getZLevel());
+            textRenderer.renderText(textStyleDisabled, renderedText, textX, textY, getZLevel());
         }
 
         if (isFocused()) {
-            int w = textRenderer.calculateWidth(text.substring(startOffset, cursor));
+            int w = (int) (text.getWidth(startOffset, cursor) * scale);
             int cx = x + 2 + w;
-            GlStateManager.disableTexture();
+            disableTexture();
             beginColoredQuad();
             coloredRect(cx, y + 2, cx + 1, y2 - 3, getZLevel(), getCursorColor());
             draw();
-            GlStateManager.enableTexture();
+            enableTexture();
         }
 
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
@@ -527,24 +548,43 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
         return textRenderer;
     }
 
+    /**
+     * Set the renderer used to draw the text. By default, this is the shared {@link TextRenderer#glyphs()}, which draws with the style of
+     * this widget, see {@link #setTextStyle(TextStyle)}.
+     */
     @SuppressWarnings("UnusedReturnValue")
     public TextField setTextRenderer(ITextRenderer textRenderer) {
         this.textRenderer = textRenderer;
         return this;
     }
 
+    public TextStyle getTextStyle() {
+        return textStyle;
+    }
+
+    /**
+     * Set the style of the text. The colors for uneditable and disabled text are kept, but use the scale and formatting of the given style.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public TextField setTextStyle(TextStyle textStyle) {
+        this.textStyle = textStyle;
+        this.textStyleUneditable = textStyle.withColor(textStyleUneditable.getColor());
+        this.textStyleDisabled = textStyle.withColor(textStyleDisabled.getColor());
+        return this;
+    }
+
     public int getTextColor() {
-        return textColor;
+        return textStyle.getColor();
     }
 
     public int getTextColorUneditable() {
-        return textColorUneditable;
+        return textStyleUneditable.getColor();
     }
 
     @SuppressWarnings("UnusedReturnValue")
     public TextField setTextColor(int textColor, int textColorUneditable) {
-        this.textColor = textColor;
-        this.textColorUneditable = textColorUneditable;
+        this.textStyle = textStyle.withColor(textColor);
+        this.textStyleUneditable = textStyle.withColor(textColorUneditable);
         return this;
     }
 
@@ -559,7 +599,7 @@ public class TextField extends AbstractWidget implements LeafWidgetMixin {
     public void provideInformation(ITextReceiver receiver) {
         super.provideInformation(receiver);
         receiver.line("Editable=" + editable);
-        receiver.line("Text=" + text);
+        receiver.line("Text=" + getText());
         receiver.line("StartOffset=" + startOffset);
         receiver.line("Cursor=" + cursor);
         receiver.line("SelectionStart=" + getSelectionStart());
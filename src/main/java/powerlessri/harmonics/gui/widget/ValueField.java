@@ -116,6 +116,13 @@ public abstract class ValueField<V> extends TextField {
     @Override
     protected abstract boolean updateText(String text);
 
+    @Override
+    protected boolean editText(int start, int end, String replacement) {
+        // Values can only be validated as a whole
+        String text = getText();
+        return updateText(text.substring(0, start) + replacement + text.substring(end));
+    }
+
     protected final void setInternalText(String text) {
         super.updateText(text);
     }
@@ -1,7 +1,7 @@
 package powerlessri.harmonics.gui.widget.button;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import powerlessri.harmonics.gui.ITexture;
+import powerlessri.harmonics.gui.Render2D;
 import powerlessri.harmonics.gui.Texture;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
@@ -18,7 +18,7 @@ public abstract class AbstractIconButton extends AbstractWidget implements IButt
     @Override
     public void render(int mouseX, int mouseY, float particleTicks) {
         preRenderEvent(mouseX, mouseY);
-        GlStateManager.color3f(1F, 1F, 1F);
+        Render2D.color(0xffffffff);
         ITexture tex = isDisabled() ? getTextureDisabled()
                 : isClicked() ? getTextureClicked()
                 : isHovered() ? getTextureHovered()
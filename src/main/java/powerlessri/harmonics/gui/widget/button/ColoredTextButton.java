@@ -120,7 +120,7 @@ public class ColoredTextButton extends AbstractWidget implements IButton, LeafWi
     }
 
     public void expandToTextWidth() {
-        setWidth(Math.max(getFullWidth(), 4 + fontRenderer().getStringWidth(text) + 4));
+        setWidth(Math.max(getFullWidth(), 4 + textWidth(text) + 4));
     }
 
     public String getText() {
@@ -129,11 +129,12 @@ public class ColoredTextButton extends AbstractWidget implements IButton, LeafWi
 
     public void setText(String text) {
         this.text = text;
-        setDimensions(fontRenderer().getStringWidth(text), 3 + fontHeight() + 2);
+        setDimensions(textWidth(text), 3 + fontHeight() + 2);
     }
 
     public void setTextRaw(String text) {
         this.text = text;
+        markDirty();
     }
 
     public void translate(String translationKey) {
@@ -42,7 +42,10 @@ public class TextButton extends AbstractWidget implements IButton, LeafWidgetMix
     private boolean hovered;
     private boolean clicked;
 
-    private ITextRenderer textRenderer = TextRenderer.newVanilla();
+    private ITextRenderer textRenderer = TextRenderer.glyphs();
+    private TextStyle textStyle = TextStyle.of(TEXT_COLOR);
+    // textStyle with the color of getTextColor(), updated when the color changes
+    private TextStyle renderedTextStyle = textStyle;
 
     public TextButton(String text) {
         this.text = text;
@@ -57,6 +60,7 @@ public class TextButton extends AbstractWidget implements IButton, LeafWidgetMix
     @SuppressWarnings("UnusedReturnValue")
     public TextButton setText(String text) {
         this.text = text;
+        markDirty();
         return this;
     }
 
@@ -67,7 +71,7 @@ public class TextButton extends AbstractWidget implements IButton, LeafWidgetMix
 
     @SuppressWarnings("UnusedReturnValue")
     public TextButton fitTextWidth(int sideMargin) {
-        int textWidth = textRenderer.calculateWidth(text);
+        int textWidth = textRenderer.calculateWidth(textStyle, text);
         setWidth(textWidth + sideMargin * 2);
         return this;
     }
@@ -116,8 +120,11 @@ public class TextButton extends AbstractWidget implements IButton, LeafWidgetMix
         draw();
         useTextureGLStates();
 
-        textRenderer.setTextColor(getTextColor());
-        Render2D.renderCenteredText(textRenderer, text, y, y2, x, x2, getZLevel());
+        int textColor = getTextColor();
+        if (renderedTextStyle.getColor() != textColor) {
+            renderedTextStyle = textStyle.withColor(textColor);
+        }
+        Render2D.renderCenteredText(textRenderer, renderedTextStyle, text, y, y2, x, x2, getZLevel());
 
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
     }
@@ -186,4 +193,19 @@ public class TextButton extends AbstractWidget implements IButton, LeafWidgetMix
     public ITextRenderer getTextRenderer() {
         return textRenderer;
     }
+
+    public TextStyle getTextStyle() {
+        return textStyle;
+    }
+
+    /**
+     * Set the scale and formatting of the text. The color is always the one returned by {@link #getTextColor()}.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public TextButton setTextStyle(TextStyle textStyle) {
+        this.textStyle = textStyle;
+        this.renderedTextStyle = textStyle.withColor(getTextColor());
+        markDirty();
+        return this;
+    }
 }
\ No newline at end of file
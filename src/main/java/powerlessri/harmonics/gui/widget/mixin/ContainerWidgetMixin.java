@@ -1,18 +1,28 @@
 package powerlessri.harmonics.gui.widget.mixin;
 
+import powerlessri.harmonics.gui.ScissorTest;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.widget.IContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
 
 public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
 
+    /**
+     * Render all children that are not entirely outside of the current {@link ScissorTest} clip box.
+     */
     default void renderChildren(int mouseX, int mouseY, float particleTicks) {
         for (T child : getChildren()) {
-            child.render(mouseX, mouseY, particleTicks);
+            if (ScissorTest.isVisible(child.getOuterAbsoluteX(), child.getOuterAbsoluteY(), child.getFullWidth(), child.getFullHeight())) {
+                child.render(mouseX, mouseY, particleTicks);
+            } else {
+                GuiMetrics.onCulled(child);
+            }
         }
     }
 
     @Override
     default boolean mouseClicked(double mouseX, double mouseY, int button) {
+        GuiMetrics.onEventPropagated(this);
         for (T child : getChildren()) {
             if (child.mouseClicked(mouseX, mouseY, button)) {
                 return true;
@@ -23,6 +33,7 @@ public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
 
     @Override
     default boolean mouseReleased(double mouseX, double mouseY, int button) {
+        GuiMetrics.onEventPropagated(this);
         for (T child : getChildren()) {
             if (child.mouseReleased(mouseX, mouseY, button)) {
                 return true;
@@ -33,6 +44,7 @@ public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
 
     @Override
     default boolean mouseDragged(double mouseX, double mouseY, int button, double deltaX, double deltaY) {
+        GuiMetrics.onEventPropagated(this);
         for (T child : getChildren()) {
             if (child.mouseDragged(mouseX, mouseY, button, deltaX, deltaY)) {
                 return true;
@@ -43,6 +55,7 @@ public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
 
     @Override
     default boolean mouseScrolled(double mouseX, double mouseY, double scroll) {
+        GuiMetrics.onEventPropagated(this);
         for (T child : getChildren()) {
             if (child.mouseScrolled(mouseX, mouseY, scroll)) {
                 return true;
@@ -53,6 +66,7 @@ public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
 
     @Override
     default boolean keyPressed(int keyCode, int scanCode, int modifiers) {
+        GuiMetrics.onEventPropagated(this);
         for (T child : getChildren()) {
             if (child.keyPressed(keyCode, scanCode, modifiers)) {
                 return true;
@@ -63,6 +77,7 @@ public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
 
     @Override
     default boolean keyReleased(int keyCode, int scanCode, int modifiers) {
+        GuiMetrics.onEventPropagated(this);
         for (T child : getChildren()) {
             if (child.keyReleased(keyCode, scanCode, modifiers)) {
                 return true;
@@ -73,6 +88,7 @@ public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
 
     @Override
     default boolean charTyped(char charTyped, int keyCode) {
+        GuiMetrics.onEventPropagated(this);
         for (T child : getChildren()) {
             if (child.charTyped(charTyped, keyCode)) {
                 return true;
@@ -83,6 +99,7 @@ public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
 
     @Override
     default void mouseMoved(double mouseX, double mouseY) {
+        GuiMetrics.onEventPropagated(this);
         for (T child : getChildren()) {
             child.mouseMoved(mouseX, mouseY);
         }
@@ -94,4 +111,11 @@ public interface ContainerWidgetMixin<T extends IWidget> extends IContainer<T> {
             child.update(particleTicks);
         }
     }
+
+    @Override
+    default void onRemoved() {
+        for (T child : getChildren()) {
+            child.onRemoved();
+        }
+    }
 }
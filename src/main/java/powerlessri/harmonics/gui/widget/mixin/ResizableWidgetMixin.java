@@ -1,5 +1,6 @@
 package powerlessri.harmonics.gui.widget.mixin;
 
+import powerlessri.harmonics.gui.widget.IContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
 
 import java.awt.*;
@@ -16,13 +17,21 @@ public interface ResizableWidgetMixin extends IWidget {
     }
 
     default void setWidth(int width) {
+        boolean changed = getDimensions().width != width;
         getDimensions().width = width;
         onDimensionChanged();
+        if (changed && getParent() instanceof IContainer) {
+            ((IContainer<?>) getParent()).onChildResized(this);
+        }
     }
 
     default void setHeight(int height) {
+        boolean changed = getDimensions().height != height;
         getDimensions().height = height;
         onDimensionChanged();
+        if (changed && getParent() instanceof IContainer) {
+            ((IContainer<?>) getParent()).onChildResized(this);
+        }
     }
 
     default int getBorderTop() {
@@ -1,6 +1,5 @@
 package powerlessri.harmonics.gui.widget.navigation;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import powerlessri.harmonics.gui.Render2D;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.screen.WidgetScreen;
@@ -44,7 +43,7 @@ public class DockedWindow extends AbstractWidget implements LeafWidgetMixin {
 
     private void setName(String name) {
         this.name = name;
-        this.setWidth(getSideMargin() + fontRenderer().getStringWidth(name) + getSideMargin());
+        this.setWidth(getSideMargin() + textWidth(name) + getSideMargin());
     }
 
     public void restore() {
@@ -59,11 +58,11 @@ public class DockedWindow extends AbstractWidget implements LeafWidgetMixin {
     @Override
     public void render(int mouseX, int mouseY, float particleTicks) {
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
-        GlStateManager.disableTexture();
+        disableTexture();
         beginColoredQuad();
         thickBeveledBox(getAbsoluteX(), getAbsoluteY(), getAbsoluteXRight(), getAbsoluteYBottom(), getZLevel(), 1, TOP_LEFT_COLOR, BOTTOM_RIGHT_COLOR, FILL_COLOR);
         draw();
-        GlStateManager.enableTexture();
+        enableTexture();
         Render2D.renderCenteredText(name, getAbsoluteY(), getAbsoluteYBottom(), getAbsoluteX(), getAbsoluteXRight(), getZLevel(), getTextColor());
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
     }
@@ -1,7 +1,7 @@
 package powerlessri.harmonics.gui.widget.navigation;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import powerlessri.harmonics.gui.*;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.layout.FlowLayout;
@@ -50,7 +50,7 @@ public class NavigationBar extends AbstractContainer<IWidget> {
         bar.title.text(window.getTitle());
 
         bar.render = b -> {
-            GlStateManager.disableTexture();
+            disableTexture();
             beginColoredQuad();
             int x1 = b.getOuterAbsoluteX() - 1;
             int x2 = b.getOuterAbsoluteXRight() + 1;
@@ -60,7 +60,7 @@ public class NavigationBar extends AbstractContainer<IWidget> {
             coloredRect(x1, innerY, x2, outerY, z, 0xff797979);
             coloredRect(x1, innerY, x2, outerY - b.getBorderBottom() / 2, z, 0xffffffff);
             draw();
-            GlStateManager.enableTexture();
+            enableTexture();
         };
 
         bar.reflow();
@@ -177,11 +177,13 @@ public class NavigationBar extends AbstractContainer<IWidget> {
 
     @Override
     public void onDimensionChanged() {
-        reflow();
+        super.onDimensionChanged();
+        requestReflowIfResized();
     }
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
         // Do not change widget size, since size change will cause reflow
         FlowLayout.reverseHorizontal(children, getXRight(), 0, 2);
         if (isValid()) {
@@ -22,7 +22,7 @@ public class FilteredList<T extends IWidget & IStringSerializable> extends Abstr
             // Safe erasure downcast
             @SuppressWarnings("unchecked") List<IWidget> widgets = (List<IWidget>) (List<? extends IWidget>) searchResult;
             wrappingList.setContentList(widgets);
-            wrappingList.reflow();
+            wrappingList.requestReflow();
         };
 
         return Pair.of(wrappingList, textField);
@@ -1,6 +1,7 @@
 package powerlessri.harmonics.gui.widget.panel;
 
 import com.google.common.collect.ImmutableList;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
@@ -17,6 +18,7 @@ public class GridPanel<T extends IWidget> extends AbstractContainer<T> {
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
     }
 
     @Override
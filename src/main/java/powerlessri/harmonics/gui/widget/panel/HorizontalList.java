@@ -1,12 +1,14 @@
 package powerlessri.harmonics.gui.widget.panel;
 
 import com.google.common.base.Preconditions;
-import com.mojang.blaze3d.platform.GlStateManager;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.minecraft.util.math.MathHelper;
 import powerlessri.harmonics.Config;
 import powerlessri.harmonics.gui.ScissorTest;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
+import powerlessri.harmonics.gui.layout.ExtentIndex;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.widget.mixin.ResizableWidgetMixin;
@@ -28,9 +30,14 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
     private final List<T> elements;
     private int marginMiddle = 0;
 
+    // Full width plus margin of every child, so that scroll metrics and the visible range do not need to visit all children
+    private final ExtentIndex extents = new ExtentIndex();
+    private final Reference2IntOpenHashMap<IWidget> childIndices = new Reference2IntOpenHashMap<>();
+
     public HorizontalList(int width, int height) {
         this.setDimensions(width, height);
         this.elements = new ArrayList<>();
+        this.childIndices.defaultReturnValue(-1);
     }
 
     @Override
@@ -79,7 +86,7 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
             double moved = deltaX / maxScroll;
             scrollDistance += getMaxScroll() * moved;
             applyScrollLimits();
-            reflow();
+            requestReflow();
             return true;
         }
         return false;
@@ -93,7 +100,7 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
         if (isInside(mouseX, mouseY) && scroll != 0) {
             scrollDistance += -scroll * getScrollAmount();
             applyScrollLimits();
-            reflow();
+            requestReflow();
             return true;
         }
         return false;
@@ -110,12 +117,10 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
         int width = getWidth();
         int height = getHeight();
 
-        ScissorTest test = ScissorTest.scaled(left, top, width, height);
-        for (T child : getChildren()) {
-            child.render(mouseX, mouseY, partialTicks);
-        }
+        ScissorTest.push(left, top, width, height);
+        renderChildren(mouseX, mouseY, partialTicks);
         drawOverlay();
-        test.destroy();
+        ScissorTest.pop();
 
         int extraWidth = getBarExtraWidth();
         if (extraWidth > 0) {
@@ -126,13 +131,13 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
             int barLeft = getAbsBarLeft();
             int barRight = barLeft + barWidth;
 
-            GlStateManager.disableTexture();
+            disableTexture();
             beginColoredQuad();
             coloredRect(left, barTop, right, barBottom, getZLevel(), getShadowColor());
             coloredRect(barLeft, barTop, barRight, barBottom, getZLevel(), getBarBorderColor());
             coloredRect(barLeft, barTop, barRight - 1, barBottom - 1, getZLevel(), getBarBodyColor());
             draw();
-            GlStateManager.enableTexture();
+            enableTexture();
         }
 
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
@@ -163,6 +168,7 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
         int offset = (int) -scrollDistance;
         int x = 0;
         for (T child : getChildren()) {
@@ -174,33 +180,105 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
     @Override
     public HorizontalList<T> addChildren(T widget) {
         Preconditions.checkState(isValid());
+        ensureIndexed();
         elements.add(widget);
         widget.attach(this);
+        indexChild(widget);
         return this;
     }
 
     @Override
     public HorizontalList<T> addChildren(Collection<T> widgets) {
         Preconditions.checkState(isValid());
+        ensureIndexed();
         elements.addAll(widgets);
         for (T widget : widgets) {
             widget.attach(this);
+            indexChild(widget);
         }
         return this;
     }
 
     public void removeChildren(T widget) {
-        elements.remove(widget);
+        if (elements.remove(widget)) {
+            reindexChildren();
+        }
         widget.onRemoved();
     }
 
     protected int getContentWidth() {
-        int contentWidth = 0;
+        ensureIndexed();
+        // Remove last unnecessary border
+        return extents.getTotal() - getMarginMiddle();
+    }
+
+    private void indexChild(IWidget child) {
+        childIndices.put(child, extents.size());
+        extents.add(child.getFullWidth() + getMarginMiddle());
+    }
+
+    private void reindexChildren() {
+        extents.clear();
+        childIndices.clear();
         for (T child : elements) {
-            contentWidth += child.getFullWidth() + getMarginMiddle();
+            indexChild(child);
+        }
+    }
+
+    /**
+     * Rebuild the index if children have been added or removed by modifying {@link #getChildren()} directly.
+     */
+    private void ensureIndexed() {
+        if (extents.size() != elements.size()) {
+            reindexChildren();
+        }
+    }
+
+    @Override
+    protected void onDescendantDirty(IWidget widget) {
+        super.onDescendantDirty(widget);
+        if (widget.getParent() == this) {
+            int index = childIndices.getInt(widget);
+            int extent = widget.getFullWidth() + getMarginMiddle();
+            if (index != -1 && index < extents.size() && extents.get(index) != extent) {
+                extents.set(index, extent);
+                // Children after the resized one have to move
+                requestReflow();
+            }
+        }
+    }
+
+    /**
+     * @return Index of the first child that is at least partially visible, found by binary search, or 0 if there are no children.
+     */
+    public int getFirstVisibleIndex() {
+        ensureIndexed();
+        return extents.find((int) scrollDistance);
+    }
+
+    /**
+     * @return Index of the last child that is at least partially visible, found by binary search, or -1 if there are no children.
+     */
+    public int getLastVisibleIndex() {
+        ensureIndexed();
+        if (extents.size() == 0) {
+            return -1;
+        }
+        return extents.find((int) scrollDistance + getWidth() - 1);
+    }
+
+    @Override
+    public void renderChildren(int mouseX, int mouseY, float particleTicks) {
+        int first = getFirstVisibleIndex();
+        int last = getLastVisibleIndex();
+        for (int i = first; i <= last; i++) {
+            T child = elements.get(i);
+            if (ScissorTest.isVisible(child.getOuterAbsoluteX(), child.getOuterAbsoluteY(), child.getFullWidth(), child.getFullHeight())) {
+                child.render(mouseX, mouseY, particleTicks);
+            } else {
+                GuiMetrics.onCulled(child);
+            }
         }
-        // Remove last unnecessary border
-        return contentWidth - getMarginMiddle();
     }
 
     public int getScrollAmount() {
@@ -213,6 +291,7 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
 
     public void setMarginMiddle(@Nonnegative int marginMiddle) {
         this.marginMiddle = Utils.lowerBound(marginMiddle, 0);
+        reindexChildren();
     }
 
     public int getMaxScroll() {
@@ -261,7 +340,7 @@ public class HorizontalList<T extends IWidget> extends AbstractContainer<T> impl
     public void setScrollDistance(float scrollDistance) {
         this.scrollDistance = scrollDistance;
         applyScrollLimits();
-        reflow();
+        requestReflow();
     }
 
     @Override
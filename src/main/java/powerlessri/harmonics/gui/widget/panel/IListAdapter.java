@@ -0,0 +1,33 @@
+package powerlessri.harmonics.gui.widget.panel;
+
+import powerlessri.harmonics.gui.widget.IWidget;
+
+/**
+ * Data source of a virtualized list or grid. Instead of holding a widget for every item, the container only keeps widgets for the items in
+ * or near its viewport, and reuses them for other items as it scrolls.
+ *
+ * @see VerticalList#setAdapter(IListAdapter, int)
+ * @see WrappingList#setAdapter(IListAdapter)
+ * @see powerlessri.harmonics.gui.widget.slot.ItemSlotPanel#ItemSlotPanel(int, int, int, IListAdapter)
+ * @see ViewRecycler
+ */
+public interface IListAdapter<T extends IWidget> {
+
+    int getItemCount();
+
+    /**
+     * Create a new widget that can display any item. This is only called when there are not enough recycled widgets.
+     */
+    T createView();
+
+    /**
+     * Make the widget display the item with the given index. The widget might have displayed any other item before.
+     */
+    void bindView(T view, int index);
+
+    /**
+     * Called when a widget is no longer displaying an item and is put back into the pool, e.g. to drop references to the item.
+     */
+    default void recycleView(T view) {
+    }
+}
@@ -1,6 +1,7 @@
 package powerlessri.harmonics.gui.widget.panel;
 
 import com.google.common.base.Preconditions;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
@@ -29,7 +30,9 @@ public class Panel<T extends IWidget> extends AbstractContainer<T> implements Re
         Preconditions.checkState(isValid());
         children.add(widget);
         widget.attach(this);
-        reflow();
+        if (!paused) {
+            requestReflow();
+        }
         return this;
     }
 
@@ -40,7 +43,9 @@ public class Panel<T extends IWidget> extends AbstractContainer<T> implements Re
         for (T widget : widgets) {
             widget.attach(this);
         }
-        reflow();
+        if (!paused) {
+            requestReflow();
+        }
         return this;
     }
 
@@ -56,13 +61,18 @@ public class Panel<T extends IWidget> extends AbstractContainer<T> implements Re
         return this;
     }
 
+    @Override
+    public void onChildResized(IWidget child) {
+        if (!paused) {
+            requestReflow();
+        }
+    }
+
     @Override
     public void render(int mouseX, int mouseY, float particleTicks) {
         if (isEnabled()) {
             RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
-            for (T child : children) {
-                child.render(mouseX, mouseY, particleTicks);
-            }
+            renderChildren(mouseX, mouseY, particleTicks);
             RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
         }
     }
@@ -80,7 +90,7 @@ public class Panel<T extends IWidget> extends AbstractContainer<T> implements Re
     @SuppressWarnings("UnusedReturnValue")
     public Panel<T> unpause() {
         paused = false;
-        reflow();
+        requestReflow();
         return this;
     }
 
@@ -96,6 +106,7 @@ public class Panel<T extends IWidget> extends AbstractContainer<T> implements Re
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
         layout.accept(children);
     }
 
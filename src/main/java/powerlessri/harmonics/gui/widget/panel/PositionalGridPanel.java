@@ -1,5 +1,6 @@
 package powerlessri.harmonics.gui.widget.panel;
 
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
@@ -36,6 +37,7 @@ public class PositionalGridPanel<T extends IWidget> extends AbstractContainer<T>
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
     }
 
     @Override
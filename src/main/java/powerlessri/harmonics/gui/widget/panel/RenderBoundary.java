@@ -0,0 +1,171 @@
+package powerlessri.harmonics.gui.widget.panel;
+
+import powerlessri.harmonics.gui.IRenderBackend;
+import powerlessri.harmonics.gui.IRenderTarget;
+import powerlessri.harmonics.gui.Render2D;
+import powerlessri.harmonics.gui.ScissorTest;
+import powerlessri.harmonics.gui.debug.ITextReceiver;
+import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
+import powerlessri.harmonics.gui.widget.AbstractWidget;
+import powerlessri.harmonics.gui.widget.IContainer;
+import powerlessri.harmonics.gui.widget.IWidget;
+
+import javax.annotation.Nullable;
+
+/**
+ * A panel that renders its children into an offscreen render target once, and draws the cached result as a single textured quad on later
+ * frames. This is meant for large, mostly static subtrees such as labels, backgrounds and icon buttons.
+ * <p>
+ * The cache gets redrawn when:
+ * <ul>
+ * <li>a descendant calls {@link AbstractWidget#markDirty()} (text change, enabled toggle, checked state change, ...)
+ * <li>the deepest widget under the mouse changes, i.e. something inside may now render a hovered state
+ * <li>a descendant is focused, since it is likely being interacted with (e.g. a text field with a cursor)
+ * <li>this boundary is resized
+ * </ul>
+ * Between those, the area of the deepest widget under the mouse is redrawn every frame, so that it keeps its hovered state and can
+ * schedule tooltips from {@link IWidget#render(int, int, float)}. Moving the boundary itself does not redraw the cache. Children that animate on their own must not be placed inside a render boundary,
+ * unless they call {@link AbstractWidget#markDirty()} each time they change.
+ * <p>
+ * The contents are rendered onto a transparent surface and then blended onto the screen, so partially transparent pixels might look
+ * slightly different from rendering them directly. Subtrees with an opaque background are not affected.
+ * <p>
+ * If the current render backend does not support offscreen rendering, the children are rendered directly every frame.
+ */
+public class RenderBoundary<T extends IWidget> extends Panel<T> {
+
+    private IRenderTarget target;
+    private IRenderBackend targetBackend;
+    private boolean dirty = true;
+    private IWidget hoveredWidget;
+
+    private int redraws = 0;
+
+    @Override
+    public void render(int mouseX, int mouseY, float particleTicks) {
+        if (!isEnabled()) {
+            return;
+        }
+        RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
+        if (getWidth() <= 0 || getHeight() <= 0 || !ensureTarget()) {
+            renderChildren(mouseX, mouseY, particleTicks);
+            RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
+            return;
+        }
+
+        IWidget hovered = isInside(mouseX, mouseY) ? findHovered(this, mouseX, mouseY) : null;
+        if (hovered != hoveredWidget) {
+            hoveredWidget = hovered;
+            dirty = true;
+        }
+        if (dirty || isDescendantFocused()) {
+            // Children may mark themselves dirty again while rendering, e.g. when they are animated
+            dirty = false;
+            Render2D.beginRenderTarget(target, getAbsoluteX(), getAbsoluteY());
+            renderChildren(mouseX, mouseY, particleTicks);
+            Render2D.endRenderTarget(target);
+            redraws++;
+        } else if (hovered != null) {
+            // Keep the rest of the cache, only the hovered widget has to render again, e.g. to schedule its tooltip
+            Render2D.beginRenderTarget(target, getAbsoluteX(), getAbsoluteY(), false);
+            ScissorTest.push(hovered.getOuterAbsoluteX(), hovered.getOuterAbsoluteY(), hovered.getFullWidth(), hovered.getFullHeight());
+            Render2D.clearRenderTarget(target);
+            renderChildren(mouseX, mouseY, particleTicks);
+            ScissorTest.pop();
+            Render2D.endRenderTarget(target);
+        }
+        Render2D.blitRenderTarget(target, getAbsoluteX(), getAbsoluteY(), getZLevel());
+        RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
+    }
+
+    /**
+     * @return {@code true} if there is an usable render target of the current size.
+     */
+    private boolean ensureTarget() {
+        IRenderBackend backend = Render2D.backend();
+        if (targetBackend != backend) {
+            deleteTarget();
+            target = backend.createRenderTarget(getWidth(), getHeight());
+            targetBackend = backend;
+            dirty = true;
+        } else if (target != null && (target.getWidth() != getWidth() || target.getHeight() != getHeight())) {
+            target.resize(getWidth(), getHeight());
+            dirty = true;
+        }
+        return target != null;
+    }
+
+    private void deleteTarget() {
+        if (target != null) {
+            target.delete();
+            target = null;
+        }
+        targetBackend = null;
+    }
+
+    @Nullable
+    private static IWidget findHovered(IContainer<?> container, int mouseX, int mouseY) {
+        for (IWidget child : container.getChildren()) {
+            if (child.isEnabled() && child.isInside(mouseX, mouseY)) {
+                if (child instanceof IContainer<?>) {
+                    IWidget deeper = findHovered((IContainer<?>) child, mouseX, mouseY);
+                    return deeper != null ? deeper : child;
+                }
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private boolean isDescendantFocused() {
+        if (getWindow() == null) {
+            return false;
+        }
+        IWidget focused = getWindow().getFocusedWidget();
+        while (focused != null) {
+            IWidget parent = focused.getParent();
+            if (parent == this) {
+                return true;
+            }
+            focused = parent;
+        }
+        return false;
+    }
+
+    @Override
+    protected void onDescendantDirty(IWidget widget) {
+        dirty = true;
+        super.onDescendantDirty(widget);
+    }
+
+    /**
+     * Force the cached contents to be redrawn on the next frame.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * @return Number of times the cached contents have been redrawn.
+     */
+    public int getRedraws() {
+        return redraws;
+    }
+
+    @Override
+    public void onRemoved() {
+        super.onRemoved();
+        deleteTarget();
+    }
+
+    @Override
+    public void provideInformation(ITextReceiver receiver) {
+        super.provideInformation(receiver);
+        receiver.line("Cached=" + (target != null));
+        receiver.line("Redraws=" + redraws);
+    }
+}
@@ -1,6 +1,5 @@
 package powerlessri.harmonics.gui.widget.panel;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import net.minecraft.util.math.MathHelper;
 import powerlessri.harmonics.gui.Render2D;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
@@ -12,7 +11,7 @@ import javax.annotation.Nonnull;
 import java.util.Objects;
 
 import static org.lwjgl.glfw.GLFW.GLFW_MOUSE_BUTTON_LEFT;
-import static powerlessri.harmonics.gui.Render2D.fontRenderer;
+import static powerlessri.harmonics.gui.Render2D.textWidth;
 
 public class Tab extends AbstractWidget implements LeafWidgetMixin {
 
@@ -31,7 +30,7 @@ public class Tab extends AbstractWidget implements LeafWidgetMixin {
 
     private void setName(String name) {
         this.name = name;
-        this.setWidth(4 + fontRenderer().getStringWidth(name) + 4);
+        this.setWidth(4 + textWidth(name) + 4);
     }
 
     @Override
@@ -61,9 +60,9 @@ public class Tab extends AbstractWidget implements LeafWidgetMixin {
     @Override
     public void render(int mouseX, int mouseY, float particleTicks) {
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
-        GlStateManager.disableTexture();
+        Render2D.disableTexture();
         BackgroundRenderers.drawVanillaStyle3x3(getAbsoluteX(), getAbsoluteY(), getFullWidth(), getFullHeight(), getZLevel());
-        GlStateManager.enableTexture();
+        Render2D.enableTexture();
         Render2D.renderCenteredText(name, getAbsoluteY(), getAbsoluteYBottom(), getAbsoluteX(), getAbsoluteXRight(), getZLevel(), getTextColor());
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
     }
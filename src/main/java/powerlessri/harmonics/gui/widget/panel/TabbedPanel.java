@@ -2,6 +2,7 @@ package powerlessri.harmonics.gui.widget.panel;
 
 import net.minecraft.util.IStringSerializable;
 import powerlessri.harmonics.collections.ReferenceList;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
@@ -49,11 +50,13 @@ public class TabbedPanel<P extends IWidget> extends AbstractContainer<IWidget> {
 
     @Override
     public void onDimensionChanged() {
-        reflow();
+        super.onDimensionChanged();
+        requestReflowIfResized();
     }
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
         tabs.expandHorizontally();
         tabs.reflow();
     }
@@ -5,32 +5,37 @@ package powerlessri.harmonics.gui.widget.panel;
 
 import com.google.common.base.Preconditions;
 import com.mojang.blaze3d.platform.GlStateManager;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.minecraft.client.gui.AbstractGui;
 import net.minecraft.client.renderer.BufferBuilder;
-import net.minecraft.client.renderer.Tessellator;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.util.math.MathHelper;
 import net.minecraftforge.fml.client.config.GuiUtils;
 import powerlessri.harmonics.Config;
+import powerlessri.harmonics.gui.QuadBatch;
 import powerlessri.harmonics.gui.Render2D;
 import powerlessri.harmonics.gui.ScissorTest;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
+import powerlessri.harmonics.gui.layout.ExtentIndex;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.widget.mixin.ResizableWidgetMixin;
 import powerlessri.harmonics.utils.Utils;
 
 import javax.annotation.Nonnegative;
+import javax.annotation.Nullable;
 import java.util.*;
 
 import static org.lwjgl.glfw.GLFW.GLFW_MOUSE_BUTTON_LEFT;
-import static org.lwjgl.opengl.GL11.GL_QUADS;
 import static powerlessri.harmonics.gui.Render2D.*;
 
 public class VerticalList<T extends IWidget> extends AbstractContainer<T> implements ResizableWidgetMixin {
 
     public static final int MIN_BAR_HEIGHT = 16;
+    // Rows bound beyond each edge of the viewport in virtual mode, so that small scrolls do not need to bind anything
+    private static final int OVERSCAN_ROWS = 2;
 
     private boolean scrolling;
     protected float scrollDistance;
@@ -38,9 +43,19 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
     private final List<T> elements;
     private int marginMiddle = 0;
 
+    // Full height plus margin of every child, so that scroll metrics and the visible range do not need to visit all children
+    private final ExtentIndex extents = new ExtentIndex();
+    private final Reference2IntOpenHashMap<IWidget> childIndices = new Reference2IntOpenHashMap<>();
+
+    // Virtual mode: the children are the rows bound by the recycler, elements stays empty
+    private IListAdapter<T> adapter;
+    private int rowHeight;
+    private final ViewRecycler<T> recycler = new ViewRecycler<>(this);
+
     public VerticalList(int width, int height) {
         this.setDimensions(width, height);
         this.elements = new ArrayList<>();
+        this.childIndices.defaultReturnValue(-1);
     }
 
     @Override
@@ -89,7 +104,7 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
             double moved = deltaY / maxScroll;
             scrollDistance += getMaxScroll() * moved;
             applyScrollLimits();
-            reflow();
+            requestReflow();
             return true;
         }
         return false;
@@ -103,7 +118,7 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
         if (isInside(mouseX, mouseY) && scroll != 0) {
             scrollDistance += -scroll * getScrollAmount();
             applyScrollLimits();
-            reflow();
+            requestReflow();
             return true;
         }
         return false;
@@ -120,12 +135,10 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
         int width = getWidth();
         int height = getHeight();
 
-        ScissorTest test = ScissorTest.scaled(left, top, width, height);
-        for (T child : getChildren()) {
-            child.render(mouseX, mouseY, partialTicks);
-        }
+        ScissorTest.push(left, top, width, height);
+        renderChildren(mouseX, mouseY, partialTicks);
         drawOverlay();
-        test.destroy();
+        ScissorTest.pop();
 
         int extraHeight = getBarExtraHeight();
         if (extraHeight > 0) {
@@ -136,13 +149,13 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
             int barLeft = getAbsBarLeft();
             int barRight = barLeft + barWidth;
 
-            GlStateManager.disableTexture();
+            disableTexture();
             beginColoredQuad();
             coloredRect(barLeft, top, barRight, bottom, getZLevel(), getShadowColor());
             coloredRect(barLeft, barTop, barRight, barBottom, getZLevel(), getBarBorderColor());
             coloredRect(barLeft, barTop, barRight - 1, barBottom - 1, getZLevel(), getBarBodyColor());
             draw();
-            GlStateManager.enableTexture();
+            enableTexture();
         }
 
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
@@ -174,6 +187,7 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
         int top = getAbsoluteY();
         int right = getAbsoluteXRight();
         int bottom = getAbsoluteYBottom();
+        QuadBatch.flush();
         if (Render2D.minecraft().world != null) {
             GuiUtils.drawGradientRect(0, left, top, right, bottom, 0xc0101010, 0xd0101010);
         } else {
@@ -181,10 +195,10 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
             GlStateManager.disableLighting();
             GlStateManager.disableFog();
             Render2D.bindTexture(AbstractGui.BACKGROUND_LOCATION);
-            GlStateManager.color4f(1.0F, 1.0F, 1.0F, 1.0F);
+            Render2D.color(0xffffffff);
             float texScale = 32.0F;
-            BufferBuilder renderer = Tessellator.getInstance().getBuffer();
-            renderer.begin(GL_QUADS, DefaultVertexFormats.POSITION_TEX_COLOR);
+            Render2D.beginQuads(DefaultVertexFormats.POSITION_TEX_COLOR);
+            BufferBuilder renderer = Render2D.buffer();
             renderer.pos(left, bottom, 0.0D).tex(left / texScale, (bottom + (int) scrollDistance) / texScale).color(0x20, 0x20, 0x20, 0xFF).endVertex();
             renderer.pos(right, bottom, 0.0D).tex(right / texScale, (bottom + (int) scrollDistance) / texScale).color(0x20, 0x20, 0x20, 0xFF).endVertex();
             renderer.pos(right, top, 0.0D).tex(right / texScale, (top + (int) scrollDistance) / texScale).color(0x20, 0x20, 0x20, 0xFF).endVertex();
@@ -198,11 +212,16 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
 
     @Override
     public List<T> getChildren() {
-        return elements;
+        return adapter != null ? recycler.getBoundViews() : elements;
     }
 
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
+        if (adapter != null) {
+            reflowVirtual();
+            return;
+        }
         int offset = (int) -scrollDistance;
         int y = 0;
         for (T child : getChildren()) {
@@ -211,31 +230,194 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
         }
     }
 
+    /**
+     * Bind rows for the items in or near the viewport only, reusing rows that stay visible and recycling the ones that scrolled out.
+     */
+    private void reflowVirtual() {
+        int stride = rowHeight + getMarginMiddle();
+        int scroll = (int) scrollDistance;
+        recycler.bind(scroll / stride - OVERSCAN_ROWS, (scroll + getHeight()) / stride + 1 + OVERSCAN_ROWS);
+        List<T> rows = recycler.getBoundViews();
+        int first = recycler.getFirstBoundIndex();
+        for (int i = 0; i < rows.size(); i++) {
+            T row = rows.get(i);
+            int y = (first + i) * stride - scroll;
+            if (row.getY() != y) {
+                row.setY(y);
+            }
+        }
+    }
+
+    /**
+     * Switch this list to virtual mode, where it does not hold a widget for every item. Only the items in or near the viewport get a row
+     * widget, created by the adapter and reused for other items while scrolling. Scrolling costs time proportional to the number of visible
+     * rows rather than the number of items.
+     *
+     * @param rowHeight Full height of every row widget
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public VerticalList<T> setAdapter(IListAdapter<T> adapter, int rowHeight) {
+        Preconditions.checkArgument(rowHeight > 0);
+        for (T widget : elements) {
+            widget.onRemoved();
+        }
+        elements.clear();
+        reindexChildren();
+        recycler.setAdapter(adapter);
+        this.adapter = adapter;
+        this.rowHeight = rowHeight;
+        applyScrollLimits();
+        requestReflow();
+        return this;
+    }
+
+    @Override
+    public void onInitialAttach() {
+        super.onInitialAttach();
+        // Rows can only be bound once this list is valid, the request made by setAdapter() might have been dropped
+        if (adapter != null) {
+            requestReflow();
+        }
+    }
+
+    @Override
+    public void onRemoved() {
+        super.onRemoved();
+        if (adapter != null) {
+            recycler.onRemoved();
+        }
+    }
+
+    @Nullable
+    public IListAdapter<T> getAdapter() {
+        return adapter;
+    }
+
+    /**
+     * Rebind all visible rows before the next frame, because the items or their number have changed.
+     */
+    public void notifyDataChanged() {
+        Preconditions.checkState(adapter != null);
+        recycler.invalidate();
+        applyScrollLimits();
+        requestReflow();
+    }
+
     @Override
     public VerticalList<T> addChildren(T widget) {
         Preconditions.checkState(isValid());
+        Preconditions.checkState(adapter == null, "Children of a list in virtual mode come from its adapter");
+        ensureIndexed();
         elements.add(widget);
         widget.attach(this);
+        indexChild(widget);
         return this;
     }
 
     @Override
     public VerticalList<T> addChildren(Collection<T> widgets) {
         Preconditions.checkState(isValid());
+        Preconditions.checkState(adapter == null, "Children of a list in virtual mode come from its adapter");
+        ensureIndexed();
         elements.addAll(widgets);
         for (T widget : widgets) {
             widget.attach(this);
+            indexChild(widget);
         }
         return this;
     }
 
+    public void removeChildren(T widget) {
+        Preconditions.checkState(adapter == null, "Children of a list in virtual mode come from its adapter");
+        if (elements.remove(widget)) {
+            reindexChildren();
+            widget.onRemoved();
+        }
+    }
+
     protected int getContentHeight() {
-        int contentHeight = 0;
-        for (T child : getChildren()) {
-            contentHeight += child.getFullHeight() + getMarginMiddle();
+        if (adapter != null) {
+            return adapter.getItemCount() * (rowHeight + getMarginMiddle()) - getMarginMiddle();
         }
+        ensureIndexed();
         // Remove last unnecessary border
-        return contentHeight - getMarginMiddle();
+        return extents.getTotal() - getMarginMiddle();
+    }
+
+    private void indexChild(IWidget child) {
+        childIndices.put(child, extents.size());
+        extents.add(child.getFullHeight() + getMarginMiddle());
+    }
+
+    private void reindexChildren() {
+        extents.clear();
+        childIndices.clear();
+        for (T child : elements) {
+            indexChild(child);
+        }
+    }
+
+    /**
+     * Rebuild the index if children have been added or removed by modifying {@link #getChildren()} directly.
+     */
+    private void ensureIndexed() {
+        if (extents.size() != elements.size()) {
+            reindexChildren();
+        }
+    }
+
+    @Override
+    protected void onDescendantDirty(IWidget widget) {
+        super.onDescendantDirty(widget);
+        if (adapter == null && widget.getParent() == this) {
+            int index = childIndices.getInt(widget);
+            int extent = widget.getFullHeight() + getMarginMiddle();
+            if (index != -1 && index < extents.size() && extents.get(index) != extent) {
+                extents.set(index, extent);
+                // Children after the resized one have to move
+                requestReflow();
+            }
+        }
+    }
+
+    /**
+     * @return Index of the first child that is at least partially visible, found by binary search, or 0 if there are no children.
+     */
+    public int getFirstVisibleIndex() {
+        if (adapter != null) {
+            // Only rows in or near the viewport are children
+            return 0;
+        }
+        ensureIndexed();
+        return extents.find((int) scrollDistance);
+    }
+
+    /**
+     * @return Index of the last child that is at least partially visible, found by binary search, or -1 if there are no children.
+     */
+    public int getLastVisibleIndex() {
+        if (adapter != null) {
+            return getChildren().size() - 1;
+        }
+        ensureIndexed();
+        if (extents.size() == 0) {
+            return -1;
+        }
+        return extents.find((int) scrollDistance + getHeight() - 1);
+    }
+
+    @Override
+    public void renderChildren(int mouseX, int mouseY, float particleTicks) {
+        int first = getFirstVisibleIndex();
+        int last = getLastVisibleIndex();
+        for (int i = first; i <= last; i++) {
+            T child = getChildren().get(i);
+            if (ScissorTest.isVisible(child.getOuterAbsoluteX(), child.getOuterAbsoluteY(), child.getFullWidth(), child.getFullHeight())) {
+                child.render(mouseX, mouseY, particleTicks);
+            } else {
+                GuiMetrics.onCulled(child);
+            }
+        }
     }
 
     public int getScrollAmount() {
@@ -248,6 +430,7 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
 
     public void setMarginMiddle(@Nonnegative int marginMiddle) {
         this.marginMiddle = Utils.lowerBound(marginMiddle, 0);
+        reindexChildren();
     }
 
     public int getBarLeft() {
@@ -296,12 +479,17 @@ public class VerticalList<T extends IWidget> extends AbstractContainer<T> implem
     public void setScrollDistance(float scrollDistance) {
         this.scrollDistance = scrollDistance;
         applyScrollLimits();
-        reflow();
+        requestReflow();
     }
 
     @Override
     public void provideInformation(ITextReceiver receiver) {
         super.provideInformation(receiver);
         receiver.line("Offset=" + scrollDistance);
+        if (adapter != null) {
+            int first = recycler.getFirstBoundIndex();
+            receiver.line("BoundRows=" + first + ".." + (first + getChildren().size()) + " of " + adapter.getItemCount());
+            receiver.line("RecycledRows=" + recycler.getPoolSize());
+        }
     }
 }
@@ -0,0 +1,154 @@
+package powerlessri.harmonics.gui.widget.panel;
+
+import powerlessri.harmonics.gui.widget.IWidget;
+import powerlessri.harmonics.gui.window.IWindow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps widgets bound to a contiguous range of items from an {@link IListAdapter}, for containers that only hold widgets for the items
+ * they show. Moving the range reuses the widgets of items that stay in it, and widgets of items that leave it are pooled and rebound to
+ * the items that enter it, so the cost of {@link #bind(int, int)} is proportional to the size of the range and not to the number of items.
+ * The container is responsible for positioning the bound widgets.
+ */
+public final class ViewRecycler<T extends IWidget> {
+
+    private final IWidget parent;
+    private IListAdapter<T> adapter;
+
+    // Widgets for the items [firstIndex, firstIndex + bound.size())
+    private final List<T> bound = new ArrayList<>();
+    private final List<T> boundView = Collections.unmodifiableList(bound);
+    private final List<T> pool = new ArrayList<>();
+    private final List<T> scratch = new ArrayList<>();
+    private int firstIndex = 0;
+    private boolean rebindAll = false;
+
+    public ViewRecycler(IWidget parent) {
+        this.parent = parent;
+    }
+
+    public IListAdapter<T> getAdapter() {
+        return adapter;
+    }
+
+    /**
+     * Replace the adapter. All widgets are removed, since they were created by the previous adapter.
+     */
+    public void setAdapter(IListAdapter<T> adapter) {
+        for (T view : bound) {
+            this.adapter.recycleView(view);
+            discard(view);
+        }
+        for (T view : pool) {
+            discard(view);
+        }
+        bound.clear();
+        pool.clear();
+        firstIndex = 0;
+        this.adapter = adapter;
+    }
+
+    /**
+     * Remove the pooled widgets. This should be called by the {@link IWidget#onRemoved()} of the container; the bound widgets are its
+     * children and are removed by it.
+     */
+    public void onRemoved() {
+        for (T view : pool) {
+            view.onRemoved();
+        }
+        pool.clear();
+    }
+
+    private void discard(T view) {
+        releaseFocus(view);
+        view.onRemoved();
+    }
+
+    /**
+     * Unfocus the widget if it or any of its descendants has focus, so that it does not receive inputs for an item it no longer displays.
+     */
+    private void releaseFocus(T view) {
+        if (!view.isValid()) {
+            return;
+        }
+        IWindow window = view.getWindow();
+        for (IWidget focused = window.getFocusedWidget(); focused != null; focused = focused.getParent()) {
+            if (focused == view) {
+                window.setFocusedWidget(null);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Rebind all widgets on the next {@link #bind(int, int)}, because the items have changed.
+     */
+    public void invalidate() {
+        rebindAll = true;
+    }
+
+    /**
+     * Make the bound widgets cover the items [first, end), clamped to the item count of the adapter.
+     */
+    public void bind(int first, int end) {
+        first = Math.max(0, first);
+        end = Math.min(end, adapter.getItemCount());
+        int oldFirst = firstIndex;
+        int oldEnd = firstIndex + bound.size();
+
+        scratch.clear();
+        for (int i = oldFirst; i < oldEnd; i++) {
+            if (i < first || i >= end) {
+                T view = bound.get(i - oldFirst);
+                adapter.recycleView(view);
+                releaseFocus(view);
+                pool.add(view);
+            }
+        }
+        for (int i = first; i < end; i++) {
+            T view;
+            if (i >= oldFirst && i < oldEnd) {
+                view = bound.get(i - oldFirst);
+                if (rebindAll) {
+                    adapter.bindView(view, i);
+                }
+            } else {
+                view = obtain();
+                adapter.bindView(view, i);
+            }
+            scratch.add(view);
+        }
+        bound.clear();
+        bound.addAll(scratch);
+        scratch.clear();
+        firstIndex = first;
+        rebindAll = false;
+    }
+
+    private T obtain() {
+        if (!pool.isEmpty()) {
+            return pool.remove(pool.size() - 1);
+        }
+        T view = adapter.createView();
+        view.attach(parent);
+        return view;
+    }
+
+    /**
+     * @return The bound widgets, in item order. The list is read only and changes with every {@link #bind(int, int)}.
+     */
+    public List<T> getBoundViews() {
+        return boundView;
+    }
+
+    public int getFirstBoundIndex() {
+        return firstIndex;
+    }
+
+    public int getPoolSize() {
+        return pool.size();
+    }
+}
@@ -7,12 +7,14 @@ package powerlessri.harmonics.gui.widget.panel;
 import com.google.common.base.Preconditions;
 import powerlessri.harmonics.gui.Render2D;
 import powerlessri.harmonics.gui.ScissorTest;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.ITextReceiver;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.utils.Utils;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 public class WrappingList extends AbstractContainer<IWidget> {
@@ -28,6 +30,10 @@ public class WrappingList extends AbstractContainer<IWidget> {
     private List<IWidget> contents = new ArrayList<>();
     private List<IWidget> children;
 
+    // Virtual mode: contents are the cells bound by the recycler for the visible rows
+    private IListAdapter<IWidget> adapter;
+    private final ViewRecycler<IWidget> recycler = new ViewRecycler<>(this);
+
     public WrappingList() {
         this(80, 80);
     }
@@ -86,18 +92,21 @@ public class WrappingList extends AbstractContainer<IWidget> {
         scrollUpArrow.render(mouseX, mouseY, particleTicks);
         scrollDownArrow.render(mouseX, mouseY, particleTicks);
 
-        ScissorTest test = ScissorTest.scaled(getAbsoluteX(), getAbsoluteY(), getWidth(), getHeight());
-
-        int sTop = 0;
-        int sBottom = getHeight();
-        for (IWidget child : contents) {
-            int cy = child.getY();
-            if (cy + child.getHeight() > sTop && cy < sBottom) {
+        ScissorTest.push(getAbsoluteX(), getAbsoluteY(), getWidth(), getHeight());
+        // Only the rows inside the viewport, which follow from the index since all items have the same size
+        int stride = getItemSizeWithMargin();
+        int columns = getColumns();
+        int first = adapter != null ? 0 : Math.min(contents.size(), offset / stride * columns);
+        int end = adapter != null ? contents.size() : Math.min(contents.size(), ((offset + getHeight()) / stride + 1) * columns);
+        for (int i = first; i < end; i++) {
+            IWidget child = contents.get(i);
+            if (ScissorTest.isVisible(child.getOuterAbsoluteX(), child.getOuterAbsoluteY(), child.getFullWidth(), child.getFullHeight())) {
                 child.render(mouseX, mouseY, particleTicks);
+            } else {
+                GuiMetrics.onCulled(child);
             }
         }
-
-        test.destroy();
+        ScissorTest.pop();
         RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
     }
 
@@ -107,7 +116,7 @@ public class WrappingList extends AbstractContainer<IWidget> {
         }
         offset += change;
         int min = 0;
-        int contentHeight = rows * getItemSizeWithMargin();
+        int contentHeight = getRows() * getItemSizeWithMargin();
         int visibleHeight = getVisibleRows() * getItemSizeWithMargin();
         int max = Utils.lowerBound(contentHeight - visibleHeight, 0);
         scrollUpArrow.setEnabled(true);
@@ -124,7 +133,7 @@ public class WrappingList extends AbstractContainer<IWidget> {
             scrollDownArrow.setEnabled(false);
         }
 
-        reflow();
+        requestReflow();
     }
 
     public void scrollUp(int change) {
@@ -155,34 +164,107 @@ public class WrappingList extends AbstractContainer<IWidget> {
     @Override
     public WrappingList addChildren(IWidget widget) {
         Preconditions.checkState(isValid());
+        Preconditions.checkState(adapter == null, "Contents of a list in virtual mode come from its adapter");
         Preconditions.checkArgument(widget.getFullWidth() == getItemSize() && widget.getFullHeight() == getItemSize());
         widget.attach(this);
         contents.add(widget);
-        reflow();
+        requestReflow();
         return this;
     }
 
     @Override
     public WrappingList addChildren(Collection<IWidget> widgets) {
         Preconditions.checkState(isValid());
+        Preconditions.checkState(adapter == null, "Contents of a list in virtual mode come from its adapter");
         for (IWidget widget : widgets) {
             Preconditions.checkArgument(widget.getFullWidth() == getItemSize() && widget.getFullHeight() == getItemSize());
             widget.attach(this);
             contents.add(widget);
         }
-        reflow();
+        requestReflow();
         return this;
     }
 
     void setContentList(List<IWidget> list) {
+        Preconditions.checkState(adapter == null, "Contents of a list in virtual mode come from its adapter");
         this.contents = list;
         for (IWidget widget : list) {
             widget.attach(this);
         }
     }
 
+    /**
+     * Switch this list to virtual mode, where it does not hold a widget for every item. Rows are computed from item indices, and only the
+     * cells of the visible rows get a widget, created by the adapter and reused for other items while scrolling. Scrolling and changing the
+     * items cost time proportional to the number of visible cells rather than the number of items. Widgets created by the adapter must
+     * have the size returned by {@link #getItemSize()}.
+     */
+    @SuppressWarnings("UnusedReturnValue")
+    public WrappingList setAdapter(IListAdapter<IWidget> adapter) {
+        if (this.adapter == null) {
+            for (IWidget widget : contents) {
+                widget.onRemoved();
+            }
+        }
+        recycler.setAdapter(adapter);
+        this.adapter = adapter;
+        this.contents = recycler.getBoundViews();
+        if (scrollUpArrow != null) {
+            // Clamp the offset to the new item count and update the arrows
+            scroll(0);
+        }
+        requestReflow();
+        return this;
+    }
+
+    @Override
+    public void onRemoved() {
+        super.onRemoved();
+        if (adapter != null) {
+            recycler.onRemoved();
+        }
+    }
+
+    @Nullable
+    public IListAdapter<IWidget> getAdapter() {
+        return adapter;
+    }
+
+    /**
+     * Rebind all visible cells before the next frame, because the items or their number have changed, e.g. after filtering.
+     */
+    public void notifyDataChanged() {
+        Preconditions.checkState(adapter != null);
+        recycler.invalidate();
+        if (scrollUpArrow != null) {
+            scroll(0);
+        }
+        requestReflow();
+    }
+
+    /**
+     * @return Number of rows of all items, at least 1.
+     */
+    public int getRows() {
+        if (adapter != null) {
+            int columns = getColumns();
+            return Math.max(1, (adapter.getItemCount() + columns - 1) / columns);
+        }
+        return rows;
+    }
+
+    // Number of items placed in a row by reflow(), which starts a new row once the next position is past the width
+    private int getColumns() {
+        return Math.max(1, getWidth() / getItemSizeWithMargin() + 1);
+    }
+
     @Override
     public void reflow() {
+        GuiMetrics.onReflow(this);
+        if (adapter != null) {
+            reflowVirtual();
+            return;
+        }
         int x = 0;
         int y = getFirstRowY();
         rows = 1;
@@ -197,6 +279,26 @@ public class WrappingList extends AbstractContainer<IWidget> {
         }
     }
 
+    private void reflowVirtual() {
+        int stride = getItemSizeWithMargin();
+        int columns = getColumns();
+        int firstRow = offset / stride;
+        int endRow = (offset + getHeight()) / stride + 1;
+        recycler.bind(firstRow * columns, endRow * columns);
+        List<IWidget> cells = recycler.getBoundViews();
+        int first = recycler.getFirstBoundIndex();
+        for (int i = 0; i < cells.size(); i++) {
+            IWidget cell = cells.get(i);
+            int index = first + i;
+            int x = (index % columns) * stride;
+            int y = (index / columns) * stride + getFirstRowY();
+            if (cell.getX() != x || cell.getY() != y) {
+                cell.setLocation(x, y);
+            }
+        }
+        rows = getRows();
+    }
+
     private int getFirstRowY() {
         return -offset;
     }
@@ -258,5 +360,10 @@ public class WrappingList extends AbstractContainer<IWidget> {
     public void provideInformation(ITextReceiver receiver) {
         super.provideInformation(receiver);
         receiver.line("Offset=" + offset);
+        if (adapter != null) {
+            int first = recycler.getFirstBoundIndex();
+            receiver.line("BoundCells=" + first + ".." + (first + contents.size()) + " of " + adapter.getItemCount());
+            receiver.line("RecycledCells=" + recycler.getPoolSize());
+        }
     }
 }
\ No newline at end of file
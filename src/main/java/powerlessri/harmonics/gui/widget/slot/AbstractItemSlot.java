@@ -15,10 +15,22 @@ public abstract class AbstractItemSlot extends AbstractWidget implements LeafWid
 
     public static final ITexture BASE = Texture.complete(Render2D.ITEM_SLOT, 18, 18);
 
+    // Last stack seen by update(), to notice changes made from outside (e.g. inventory syncs)
+    private ItemStack lastStack = ItemStack.EMPTY;
+
     public AbstractItemSlot() {
         this.setDimensions(18, 18);
     }
 
+    @Override
+    public void update(float particleTicks) {
+        ItemStack stack = getRenderedStack();
+        if (!ItemStack.areItemStacksEqual(stack, lastStack)) {
+            lastStack = stack.copy();
+            markDirty();
+        }
+    }
+
     @Override
     public void render(int mouseX, int mouseY, float particleTicks) {
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
@@ -31,6 +43,7 @@ public abstract class AbstractItemSlot extends AbstractWidget implements LeafWid
     }
 
     public void renderStack() {
+        QuadBatch.flush();
         ItemStack stack = getRenderedStack();
         ItemRenderer ir = minecraft().getItemRenderer();
         FontRenderer fr = MoreObjects.firstNonNull(stack.getItem().getFontRenderer(stack), minecraft().fontRenderer);
@@ -38,6 +51,10 @@ public abstract class AbstractItemSlot extends AbstractWidget implements LeafWid
         int y = getAbsoluteY() + 2;
         ir.renderItemAndEffectIntoGUI(stack, x, y);
         ir.renderItemOverlayIntoGUI(fr, stack, x, y, null);
+        if (stack.hasEffect()) {
+            // Enchantment glint is animated
+            markDirty();
+        }
     }
 
     public void renderBase() {
@@ -2,10 +2,15 @@ package powerlessri.harmonics.gui.widget.slot;
 
 import com.google.common.base.Preconditions;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.math.MathHelper;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.widget.AbstractContainer;
+import powerlessri.harmonics.gui.widget.panel.IListAdapter;
+import powerlessri.harmonics.gui.widget.panel.ViewRecycler;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -17,6 +22,11 @@ public class ItemSlotPanel extends AbstractContainer<AbstractItemSlot> {
 
     private List<AbstractItemSlot> children;
 
+    // Virtual mode: the children are the slots bound by the recycler for the rows [firstRow, firstRow + height)
+    private IListAdapter<AbstractItemSlot> adapter;
+    private ViewRecycler<AbstractItemSlot> recycler;
+    private int firstRow = 0;
+
     public ItemSlotPanel(int width, int height) {
         this(width, height, DefaultSlot::new);
     }
@@ -28,10 +38,10 @@ public class ItemSlotPanel extends AbstractContainer<AbstractItemSlot> {
         this.children = new ArrayList<>();
         int size = width * height;
         for (int i = 0; i < size; i++) {
-            addChildren(factory.get());
+            addSlot(factory.get());
         }
-        adjustMinContent();
         reflow();
+        adjustMinContent();
     }
 
     public ItemSlotPanel(int width, int height, List<ItemStack> stacks) {
@@ -47,20 +57,89 @@ public class ItemSlotPanel extends AbstractContainer<AbstractItemSlot> {
 
         this.children = new ArrayList<>();
         for (int i = 0; i < size; i++) {
-            addChildren(factory.apply(stacks.get(i)));
+            addSlot(factory.apply(stacks.get(i)));
         }
-        adjustMinContent();
         reflow();
+        adjustMinContent();
+    }
+
+    /**
+     * Create a virtualized panel showing {@code width * height} slots at a time out of the items of the adapter, starting at {@link
+     * #getFirstRow()}. Slots are only created for the cells that are shown, and reused for other items when the panel is scrolled with
+     * {@link #setFirstRow(int)}, so scrolling and changing the items cost time proportional to the shown cells rather than the number of
+     * items.
+     *
+     * @param slotSize Full width and height of the slots created by the adapter
+     */
+    public ItemSlotPanel(int width, int height, int slotSize, IListAdapter<AbstractItemSlot> adapter) {
+        this.width = width;
+        this.height = height;
+        this.children = new ArrayList<>();
+        this.adapter = adapter;
+        this.recycler = new ViewRecycler<>(this);
+        this.recycler.setAdapter(adapter);
+        setDimensions(width * slotSize, height * slotSize);
+    }
+
+    private void addSlot(AbstractItemSlot slot) {
+        // Called from constructors, before this panel is attached anywhere
+        children.add(slot);
+        slot.attach(this);
+    }
+
+    @Override
+    public void onRemoved() {
+        super.onRemoved();
+        if (adapter != null) {
+            recycler.onRemoved();
+        }
+    }
+
+    @Nullable
+    public IListAdapter<AbstractItemSlot> getAdapter() {
+        return adapter;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * Scroll a virtualized panel, clamped so that the last row of items is at most at the bottom.
+     */
+    public void setFirstRow(int firstRow) {
+        Preconditions.checkState(adapter != null);
+        int rows = (adapter.getItemCount() + width - 1) / width;
+        this.firstRow = MathHelper.clamp(firstRow, 0, Math.max(rows - height, 0));
+        requestReflow();
+    }
+
+    /**
+     * Rebind all shown slots before the next frame, because the items or their number have changed, e.g. after filtering.
+     */
+    public void notifyDataChanged() {
+        Preconditions.checkState(adapter != null);
+        recycler.invalidate();
+        setFirstRow(firstRow);
+    }
+
+    @Override
+    public void onInitialAttach() {
+        super.onInitialAttach();
+        if (adapter != null) {
+            requestReflow();
+        }
     }
 
     @Override
     public List<AbstractItemSlot> getChildren() {
-        return children;
+        return adapter != null ? recycler.getBoundViews() : children;
     }
 
     @Override
     public ItemSlotPanel addChildren(AbstractItemSlot widget) {
         Preconditions.checkState(isValid());
+        Preconditions.checkState(adapter == null, "Slots of a virtualized panel come from its adapter");
         children.add(widget);
         widget.attach(this);
         return this;
@@ -69,6 +148,7 @@ public class ItemSlotPanel extends AbstractContainer<AbstractItemSlot> {
     @Override
     public ItemSlotPanel addChildren(Collection<AbstractItemSlot> widgets) {
         Preconditions.checkState(isValid());
+        Preconditions.checkState(adapter == null, "Slots of a virtualized panel come from its adapter");
         children.addAll(widgets);
         for (AbstractItemSlot widget : widgets) {
             widget.attach(this);
@@ -78,22 +158,42 @@ public class ItemSlotPanel extends AbstractContainer<AbstractItemSlot> {
 
     @Override
     public void reflow() {
-        int x = 0;
+        GuiMetrics.onReflow(this);
+        if (adapter != null) {
+            reflowVirtual();
+            return;
+        }
         int y = 0;
         int i = 0;
         for (int yi = 0; yi < height; yi++) {
+            int x = 0;
             int maxHeight = 0;
             for (int xi = 0; xi < width; xi++) {
                 AbstractItemSlot slot = children.get(i);
                 slot.setLocation(x, y);
-                y += slot.getWidth();
-                maxHeight = Math.max(maxHeight, slot.getHeight());
+                x += slot.getFullWidth();
+                maxHeight = Math.max(maxHeight, slot.getFullHeight());
                 i++;
             }
             y += maxHeight;
         }
     }
 
+    private void reflowVirtual() {
+        int slotWidth = getWidth() / width;
+        int slotHeight = getHeight() / height;
+        recycler.bind(firstRow * width, (firstRow + height) * width);
+        List<AbstractItemSlot> slots = recycler.getBoundViews();
+        for (int i = 0; i < slots.size(); i++) {
+            AbstractItemSlot slot = slots.get(i);
+            int x = (i % width) * slotWidth;
+            int y = (i / width) * slotHeight;
+            if (slot.getX() != x || slot.getY() != y) {
+                slot.setLocation(x, y);
+            }
+        }
+    }
+
     @Override
     public void render(int mouseX, int mouseY, float particleTicks) {
         RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
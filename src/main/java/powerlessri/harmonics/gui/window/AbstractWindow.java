@@ -1,8 +1,9 @@
 package powerlessri.harmonics.gui.window;
 
 import powerlessri.harmonics.gui.Render2D;
+import powerlessri.harmonics.gui.ScissorTest;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.screen.BackgroundRenderers;
-import powerlessri.harmonics.gui.screen.DisplayListCaches;
 import powerlessri.harmonics.gui.widget.AbstractWidget;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.window.mixin.*;
@@ -171,7 +172,11 @@ public abstract class AbstractWindow implements IWindow, WindowEventHandlerMixin
 
     protected void renderChildren(int mouseX, int mouseY, float particleTicks) {
         for (IWidget child : getChildren()) {
-            child.render(mouseX, mouseY, particleTicks);
+            if (ScissorTest.isVisible(child.getOuterAbsoluteX(), child.getOuterAbsoluteY(), child.getFullWidth(), child.getFullHeight())) {
+                child.render(mouseX, mouseY, particleTicks);
+            } else {
+                GuiMetrics.onCulled(child);
+            }
         }
     }
 
@@ -179,10 +184,6 @@ public abstract class AbstractWindow implements IWindow, WindowEventHandlerMixin
         BackgroundRenderers.drawVanillaStyle4x4(getX(), getY(), getWidth(), getHeight(), getZLevel());
     }
 
-    public int createVanillaStyleDL() {
-        return DisplayListCaches.createVanillaStyleBackground(getX(), getY(), getWidth(), getHeight(), getZLevel());
-    }
-
     public void renderFlatStyleBackground() {
         BackgroundRenderers.drawFlatStyle(getX(), getY(), getWidth(), getHeight(), getZLevel());
     }
@@ -1,8 +1,9 @@
 package powerlessri.harmonics.gui.window;
 
-import com.mojang.blaze3d.platform.GlStateManager;
 import net.minecraft.client.Minecraft;
 import powerlessri.harmonics.Config;
+import powerlessri.harmonics.gui.Render2D;
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
 import powerlessri.harmonics.gui.layout.FlowLayout;
 import powerlessri.harmonics.gui.screen.BackgroundRenderers;
@@ -101,15 +102,15 @@ public class Dialog extends AbstractPopupWindow {
     }
 
     public static final Consumer<Dialog> VANILLA_STYLE_RENDERER = d -> {
-        GlStateManager.enableAlphaTest();
+        Render2D.enableAlphaTest();
         BackgroundRenderers.drawVanillaStyle4x4(d.getX(), d.getY(), d.getWidth(), d.getHeight(), d.getZLevel());
     };
     public static final int VANILLA_STYLE_BORDER_SIZE = 4;
 
     public static final Consumer<Dialog> FLAT_STYLE_RENDERER = d -> {
-        GlStateManager.disableAlphaTest();
+        Render2D.disableAlphaTest();
         BackgroundRenderers.drawFlatStyle(d.getX(), d.getY(), d.getWidth(), d.getHeight(), d.getZLevel());
-        GlStateManager.enableAlphaTest();
+        Render2D.enableAlphaTest();
     };
     public static final int FLAT_STYLE_BORDER_SIZE = 2 + 1;
 
@@ -150,6 +151,7 @@ public class Dialog extends AbstractPopupWindow {
     }
 
     public void reflow() {
+        GuiMetrics.onReflow(this);
         onPreReflow.run();
         buttons.adjustMinHeight();
         // Calculate the min width of the buttons
@@ -1,5 +1,6 @@
 package powerlessri.harmonics.gui.window.mixin;
 
+import powerlessri.harmonics.gui.debug.GuiMetrics;
 import powerlessri.harmonics.gui.widget.IWidget;
 import powerlessri.harmonics.gui.window.IWindow;
 
@@ -7,6 +8,7 @@ public interface WindowEventHandlerMixin extends IWindow {
 
     @Override
     default boolean mouseClicked(double mouseX, double mouseY, int button) {
+        GuiMetrics.onEventPropagated(this);
         for (IWidget child : getChildren()) {
             if (child.mouseClicked(mouseX, mouseY, button)) {
                 return true;
@@ -17,6 +19,7 @@ public interface WindowEventHandlerMixin extends IWindow {
 
     @Override
     default boolean mouseReleased(double mouseX, double mouseY, int button) {
+        GuiMetrics.onEventPropagated(this);
         for (IWidget child : getChildren()) {
             if (child.mouseReleased(mouseX, mouseY, button)) {
                 return true;
@@ -27,6 +30,7 @@ public interface WindowEventHandlerMixin extends IWindow {
 
     @Override
     default boolean mouseDragged(double mouseX, double mouseY, int button, double deltaX, double deltaY) {
+        GuiMetrics.onEventPropagated(this);
         for (IWidget child : getChildren()) {
             if (child.mouseDragged(mouseX, mouseY, button, deltaX, deltaY)) {
                 return true;
@@ -37,6 +41,7 @@ public interface WindowEventHandlerMixin extends IWindow {
 
     @Override
     default boolean mouseScrolled(double mouseX, double mouseY, double scroll) {
+        GuiMetrics.onEventPropagated(this);
         for (IWidget child : getChildren()) {
             if (child.mouseScrolled(mouseX, mouseY, scroll)) {
                 return true;
@@ -47,6 +52,7 @@ public interface WindowEventHandlerMixin extends IWindow {
 
     @Override
     default boolean keyPressed(int keyCode, int scanCode, int modifiers) {
+        GuiMetrics.onEventPropagated(this);
         for (IWidget child : getChildren()) {
             if (child.keyPressed(keyCode, scanCode, modifiers)) {
                 return true;
@@ -57,6 +63,7 @@ public interface WindowEventHandlerMixin extends IWindow {
 
     @Override
     default boolean keyReleased(int keyCode, int scanCode, int modifiers) {
+        GuiMetrics.onEventPropagated(this);
         for (IWidget child : getChildren()) {
             if (child.keyReleased(keyCode, scanCode, modifiers)) {
                 return true;
@@ -67,6 +74,7 @@ public interface WindowEventHandlerMixin extends IWindow {
 
     @Override
     default boolean charTyped(char charTyped, int keyCode) {
+        GuiMetrics.onEventPropagated(this);
         for (IWidget child : getChildren()) {
             if (child.charTyped(charTyped, keyCode)) {
                 return true;
@@ -77,6 +85,7 @@ public interface WindowEventHandlerMixin extends IWindow {
 
     @Override
     default void mouseMoved(double mouseX, double mouseY) {
+        GuiMetrics.onEventPropagated(this);
         for (IWidget child : getChildren()) {
             child.mouseMoved(mouseX, mouseY);
         }
@@ -0,0 +1,100 @@
+package powerlessri.harmonics.gui;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import powerlessri.harmonics.gui.debug.RenderEventDispatcher;
+import powerlessri.harmonics.gui.layout.FlowLayout;
+import powerlessri.harmonics.gui.widget.Checkbox;
+import powerlessri.harmonics.gui.widget.IWidget;
+import powerlessri.harmonics.gui.window.AbstractWindow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renders small widget trees into a {@link RecordingRenderBackend} and checks that the number of draw calls stays within budget, i.e. that
+ * quads of widgets sharing the same states end up in the same batch.
+ */
+public class DrawCallBudgetTest {
+
+    private static class TestWindow extends AbstractWindow {
+
+        private final List<IWidget> children = new ArrayList<>();
+
+        private TestWindow(int checkboxes) {
+            setContents(120, checkboxes * 10);
+            for (int i = 0; i < checkboxes; i++) {
+                Checkbox checkbox = new Checkbox();
+                checkbox.attachWindow(this);
+                children.add(checkbox);
+            }
+            FlowLayout.vertical(children, 0, 0, 1);
+        }
+
+        @Override
+        public int getBorderSize() {
+            return 4;
+        }
+
+        @Override
+        public List<? extends IWidget> getChildren() {
+            return children;
+        }
+
+        @Override
+        public void render(int mouseX, int mouseY, float particleTicks) {
+            RenderEventDispatcher.onPreRender(this, mouseX, mouseY);
+            renderFlatStyleBackground();
+            renderChildren(mouseX, mouseY, particleTicks);
+            RenderEventDispatcher.onPostRender(this, mouseX, mouseY);
+        }
+    }
+
+    private RecordingRenderBackend backend;
+
+    @Before
+    public void setUp() {
+        backend = new RecordingRenderBackend();
+        Render2D.useBackend(backend);
+    }
+
+    @After
+    public void tearDown() {
+        Render2D.useVanillaBackend();
+    }
+
+    private void renderFrame(AbstractWindow window) {
+        QuadBatch.beginFrame();
+        // Keep the mouse outside of the window so that nothing is hovered
+        window.render(-1, -1, 0F);
+        QuadBatch.endFrame();
+    }
+
+    @Test
+    public void smallTreeFitsInBudget() {
+        renderFrame(new TestWindow(4));
+        // One batch for the background and one for the checkboxes at most
+        assertTrue(backend.toString(), backend.getDrawCalls() <= 2);
+        assertEquals(backend.toString(), 0, backend.getStrings());
+    }
+
+    @Test
+    public void drawCallsDoNotGrowWithWidgets() {
+        renderFrame(new TestWindow(4));
+        int fewWidgets = backend.getDrawCalls();
+        renderFrame(new TestWindow(64));
+        assertEquals(backend.toString(), fewWidgets, backend.getDrawCalls());
+        // Every checkbox is two quads
+        assertTrue(backend.toString(), backend.getVertices() >= 64 * 2 * 4);
+    }
+
+    @Test
+    public void textIsMeasuredByBackend() {
+        assertEquals(3 * RecordingRenderBackend.CHAR_WIDTH, TextMeasurements.getStringWidth("abc"));
+        assertEquals(RecordingRenderBackend.CHAR_WIDTH, TextMeasurements.getCharWidth('a'), 0F);
+    }
+}
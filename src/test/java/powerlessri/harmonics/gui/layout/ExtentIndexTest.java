@@ -0,0 +1,121 @@
+package powerlessri.harmonics.gui.layout;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Applies random operations to an {@link ExtentIndex} and a plain list of extents, and checks after every operation that the prefix sums
+ * and lookups of the index match the ones computed naively from the list.
+ */
+public class ExtentIndexTest {
+
+    private static final int OPERATIONS = 5000;
+
+    private final List<Integer> model = new ArrayList<>();
+    private final ExtentIndex index = new ExtentIndex();
+
+    private int modelStart(int i) {
+        int sum = 0;
+        for (int k = 0; k < i; k++) {
+            sum += model.get(k);
+        }
+        return sum;
+    }
+
+    private int modelFind(int offset) {
+        // Last item starting at or before the offset, zero sized items included, clamped to [0, size)
+        int found = 0;
+        for (int k = 0; k <= model.size(); k++) {
+            if (modelStart(k) <= offset) {
+                found = k;
+            }
+        }
+        return Math.max(0, Math.min(found, model.size() - 1));
+    }
+
+    private void check(String operation) {
+        assertEquals(operation, model.size(), index.size());
+        assertEquals(operation, modelStart(model.size()), index.getTotal());
+        for (int i = 0; i < model.size(); i++) {
+            assertEquals(operation, (int) model.get(i), index.get(i));
+        }
+        for (int i = 0; i <= model.size(); i++) {
+            assertEquals(operation + ", start of " + i, modelStart(i), index.getStart(i));
+        }
+        for (int offset = -2; offset <= index.getTotal() + 2; offset++) {
+            assertEquals(operation + ", find " + offset, modelFind(offset), index.find(offset));
+        }
+    }
+
+    @Test
+    public void randomOperationsMatchPrefixSums() {
+        Random random = new Random(42);
+        for (int op = 0; op < OPERATIONS; op++) {
+            // Zero extents included, they are skipped by find()
+            int extent = random.nextInt(8);
+            int choice = random.nextInt(model.size() < 4 ? 2 : 10);
+            String operation;
+            if (choice == 0) {
+                index.add(extent);
+                model.add(extent);
+                operation = "add " + extent;
+            } else if (choice == 1) {
+                int i = random.nextInt(model.size() + 1);
+                index.insert(i, extent);
+                model.add(i, extent);
+                operation = "insert " + extent + " at " + i;
+            } else if (choice < 5) {
+                int i = random.nextInt(model.size());
+                index.remove(i);
+                model.remove(i);
+                operation = "remove " + i;
+            } else if (choice < 9) {
+                int i = random.nextInt(model.size());
+                index.set(i, extent);
+                model.set(i, extent);
+                operation = "set " + i + " to " + extent;
+            } else if (random.nextInt(20) == 0) {
+                index.clear();
+                model.clear();
+                operation = "clear";
+            } else {
+                int count = random.nextInt(40);
+                int[] extents = new int[count];
+                model.clear();
+                for (int i = 0; i < count; i++) {
+                    extents[i] = random.nextInt(8);
+                    model.add(extents[i]);
+                }
+                index.setAll(extents, count);
+                operation = "setAll " + count;
+            }
+            check("#" + op + " " + operation);
+        }
+    }
+
+    @Test
+    public void growsPastInitialCapacity() {
+        for (int i = 0; i < 100; i++) {
+            index.insert(i / 2, i);
+            model.add(i / 2, i);
+        }
+        check("insert 100");
+        for (int i = 0; i < 60; i++) {
+            index.remove(0);
+            model.remove(0);
+        }
+        check("remove 60");
+    }
+
+    @Test
+    public void findOnEmptyIndex() {
+        assertEquals(0, index.find(0));
+        assertEquals(0, index.find(10));
+        assertEquals(0, index.getTotal());
+    }
+}
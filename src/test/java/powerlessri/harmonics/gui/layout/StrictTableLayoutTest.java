@@ -0,0 +1,147 @@
+package powerlessri.harmonics.gui.layout;
+
+import org.junit.Test;
+import powerlessri.harmonics.gui.layout.StrictTableLayout.GrowDirection;
+
+import java.awt.*;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link StrictTableLayout#getItemX(int)}, {@link StrictTableLayout#getItemY(int)} and {@link StrictTableLayout#getItemAt(int,
+ * int)} agree with each other for items of mixed sizes, in all combinations of stack and overflow directions.
+ */
+public class StrictTableLayoutTest {
+
+    private static final GrowDirection[] DIRECTIONS = GrowDirection.values();
+
+    private static StrictTableLayout compute(GrowDirection stack, GrowDirection overflow, int gap, Dimension bounds, int[] widths, int[] heights) {
+        StrictTableLayout layout = new StrictTableLayout(stack, overflow, gap);
+        layout.compute(bounds, widths.length, i -> widths[i], i -> heights[i]);
+        return layout;
+    }
+
+    @Test
+    public void mixedSizesDownRight() {
+        int[] widths = {4, 6, 2, 5};
+        int[] heights = {5, 3, 8, 2};
+        StrictTableLayout layout = compute(GrowDirection.DOWN, GrowDirection.RIGHT, 1, new Dimension(100, 20), widths, heights);
+        // Slots are 8 and 3 high, lines are 6 and 5 wide
+        assertEquals(2, layout.getItemsPerLine());
+        assertEquals(2, layout.getLineCount());
+        assertPosition(layout, 0, 0, 0);
+        assertPosition(layout, 1, 0, 9);
+        assertPosition(layout, 2, 7, 0);
+        assertPosition(layout, 3, 7, 9);
+
+        assertEquals(1, layout.getItemAt(5, 11));
+        // Gap between the slots, and the part of a cell not covered by its smaller item
+        assertEquals(-1, layout.getItemAt(0, 8));
+        assertEquals(0, layout.getItemAt(0, 7));
+        assertEquals(-1, layout.getItemAt(-1, 0));
+        assertEquals(-1, layout.getItemAt(12, 0));
+    }
+
+    @Test
+    public void mixedSizesUpLeft() {
+        int[] widths = {4, 6, 2, 5};
+        int[] heights = {5, 3, 8, 2};
+        StrictTableLayout layout = compute(GrowDirection.UP, GrowDirection.LEFT, 1, new Dimension(100, 20), widths, heights);
+        // Same table as DOWN/RIGHT, mirrored around the end of the first slot and line
+        assertPosition(layout, 0, 0, 0);
+        assertPosition(layout, 1, 0, -4);
+        assertPosition(layout, 2, -6, 0);
+        assertPosition(layout, 3, -6, -4);
+
+        assertEquals(3, layout.getItemAt(-6, -4));
+        assertEquals(1, layout.getItemAt(5, -2));
+        // Gaps between the slots and between the lines
+        assertEquals(-1, layout.getItemAt(0, -1));
+        assertEquals(-1, layout.getItemAt(-1, 0));
+        assertEquals(-1, layout.getItemAt(0, 8));
+        assertEquals(-1, layout.getItemAt(-7, 0));
+    }
+
+    @Test
+    public void mixedSizesLeftUp() {
+        int[] widths = {3, 7, 2};
+        int[] heights = {4, 2, 6};
+        StrictTableLayout layout = compute(GrowDirection.LEFT, GrowDirection.UP, 2, new Dimension(20, 100), widths, heights);
+        // The widest item is 7, so two slots fit in 20; slots are 3 and 7 wide, lines are 4 and 6 high
+        assertEquals(2, layout.getItemsPerLine());
+        assertPosition(layout, 0, 0, 0);
+        assertPosition(layout, 1, -9, 0);
+        assertPosition(layout, 2, 0, -8);
+        assertEquals(-1, layout.getItemAt(-1, 0));
+        assertEquals(-1, layout.getItemAt(0, -2));
+        assertEquals(2, layout.getItemAt(1, -3));
+    }
+
+    @Test
+    public void randomTablesRoundTrip() {
+        Random random = new Random(7);
+        for (GrowDirection stack : DIRECTIONS) {
+            for (GrowDirection overflow : DIRECTIONS) {
+                if (stack.isVertical() == overflow.isVertical()) {
+                    continue;
+                }
+                for (int round = 0; round < 50; round++) {
+                    int count = random.nextInt(30);
+                    // Every fifth table has identical items, which takes the uniform path
+                    boolean identical = round % 5 == 0;
+                    int[] widths = new int[count];
+                    int[] heights = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        widths[i] = identical ? 5 : 1 + random.nextInt(10);
+                        heights[i] = identical ? 3 : 1 + random.nextInt(10);
+                    }
+                    int gap = random.nextInt(4);
+                    Dimension bounds = new Dimension(5 + random.nextInt(60), 5 + random.nextInt(60));
+                    StrictTableLayout layout = compute(stack, overflow, gap, bounds, widths, heights);
+                    checkRoundTrip(stack + "/" + overflow + " #" + round, layout, stack, overflow, widths, heights);
+                }
+            }
+        }
+    }
+
+    private static void checkRoundTrip(String table, StrictTableLayout layout, GrowDirection stack, GrowDirection overflow, int[] widths, int[] heights) {
+        int perLine = layout.getItemsPerLine();
+        assertEquals(table, widths.length, layout.getItemCount());
+        for (int i = 0; i < widths.length; i++) {
+            int x = layout.getItemX(i);
+            int y = layout.getItemY(i);
+            String item = table + ", item " + i;
+            // Every point of the item maps back to it
+            for (int dx = 0; dx < widths[i]; dx++) {
+                for (int dy = 0; dy < heights[i]; dy++) {
+                    assertEquals(item, i, layout.getItemAt(x + dx, y + dy));
+                }
+            }
+            if (i % perLine != 0) {
+                int previousMain = stack.isVertical() ? layout.getItemY(i - 1) : layout.getItemX(i - 1);
+                int main = stack.isVertical() ? y : x;
+                assertTrue(item + " is stacked towards " + stack, stack.isReversed() ? main < previousMain : main > previousMain);
+            }
+            if (i >= perLine) {
+                int previousCross = overflow.isVertical() ? layout.getItemY(i - perLine) : layout.getItemX(i - perLine);
+                int cross = overflow.isVertical() ? y : x;
+                assertTrue(item + " overflows towards " + overflow, overflow.isReversed() ? cross < previousCross : cross > previousCross);
+            }
+            if (i % perLine == 0) {
+                int cross = overflow.isVertical() ? y : x;
+                assertEquals(item, i, layout.getFirstIndexOfLineAt(cross));
+            }
+        }
+        if (widths.length > 0) {
+            assertEquals(table, 0, layout.getItemX(0));
+            assertEquals(table, 0, layout.getItemY(0));
+        }
+    }
+
+    private static void assertPosition(StrictTableLayout layout, int index, int x, int y) {
+        assertEquals("x of " + index, x, layout.getItemX(index));
+        assertEquals("y of " + index, y, layout.getItemY(index));
+    }
+}